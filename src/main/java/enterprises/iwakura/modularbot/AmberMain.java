@@ -2,20 +2,84 @@ package enterprises.iwakura.modularbot;
 
 import enterprises.iwakura.amber.Amber;
 import enterprises.iwakura.amber.BootstrapOptions;
+import enterprises.iwakura.modularbot.cache.LockedCoreLibraries;
+import enterprises.iwakura.modularbot.cds.CdsLauncher;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
+import enterprises.iwakura.modularbot.util.JvmUtils;
 
 import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
 
 public class AmberMain {
 
     public static void main(String[] args) throws IOException {
+        boolean prepare = Arrays.asList(args).contains(ModularBotConstants.ARG_PREPARE);
+
+        // The child JVM gets the libraries on its class path, so Amber does not have to resolve them if they are locked
+        // by the prepare mode. Otherwise, Amber has to load them into this JVM.
+        if (!prepare && CdsLauncher.isApplicable(args)) {
+            Optional<List<Path>> lockedLibraries = LockedCoreLibraries.read(ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE);
+
+            if (lockedLibraries.isPresent()) {
+                System.out.println("Using Modular Bot's dependencies from " + ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE);
+                OptionalInt cdsExitCode = CdsLauncher.launch(args, lockedLibraries.get());
+
+                if (cdsExitCode.isPresent()) {
+                    System.exit(cdsExitCode.getAsInt());
+                }
+            }
+        }
+
         System.out.println("Bootstrapping Modular Bot's dependencies...");
+        long startNanos = System.nanoTime();
         Amber amber = Amber.classLoader();
-        amber.bootstrap(BootstrapOptions.builder()
-                .exitCodeAfterDownload(-1225)
-                .exitMessageAfterDownload("Please, restart the application.")
-                .downloaderThreadCount(64)
-                .build()
-        );
+        var bootstrapOptions = BootstrapOptions.builder()
+                .downloaderThreadCount(64);
+
+        // Prepare mode does not start the bot in this JVM, so it does not have to be restarted after download
+        if (!prepare) {
+            bootstrapOptions.exitCodeAfterDownload(-1225)
+                    .exitMessageAfterDownload("Please, restart the application.");
+        }
+
+        List<Path> libraries = amber.bootstrap(bootstrapOptions.build());
+
+        if (prepare) {
+            System.exit(launchPrepare(args, libraries));
+        }
+
+        OptionalInt cdsExitCode = CdsLauncher.launch(args, libraries);
+
+        if (cdsExitCode.isPresent()) {
+            System.exit(cdsExitCode.getAsInt());
+        }
+
+        ModularBotTimings.recordEarly("amberBootstrap", startNanos);
         ModularBotMain.main(args);
     }
+
+    /**
+     * Runs the prepare mode in a child JVM that has the just downloaded dependencies on its class path
+     *
+     * @param args      Program arguments
+     * @param libraries Modular Bot's dependencies bootstrapped by Amber
+     *
+     * @return Exit code of the prepare mode
+     */
+    private static int launchPrepare(String[] args, List<Path> libraries) {
+        try {
+            return JvmUtils.runAndWait(JvmUtils.createJavaCommand(argument -> true, List.of(), libraries, PrepareMain.class.getName(), args));
+        } catch (IOException | URISyntaxException exception) {
+            System.err.println("Failed to launch prepare mode: " + exception);
+            return 1;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
 }
@@ -2,7 +2,9 @@ package enterprises.iwakura.modularbot;
 
 import dev.mayuna.mayuslibrary.exceptionreporting.UncaughtExceptionReporter;
 import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.managers.ModuleDirectoryWatcher;
 import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
 import enterprises.iwakura.ganyu.Ganyu;
 import enterprises.iwakura.sigewine.core.Sigewine;
 import enterprises.iwakura.sigewine.core.SigewineOptions;
@@ -13,6 +15,8 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.dv8tion.jda.api.JDA;
 
+import java.util.Arrays;
+
 @Getter
 @Setter
 @Slf4j
@@ -27,9 +31,12 @@ public final class ModularBot {
     private final ModularBotShardManager modularBotShardManager;
     private final ModularBotConfig config;
     private final ModuleManager moduleManager;
+    private final ModuleDirectoryWatcher moduleDirectoryWatcher;
+    private final ModularBotTimings modularBotTimings;
 
     private boolean running;
     private boolean stopping;
+    private boolean trainingRun;
 
     /**
      * Returns the singleton instance of ModularBot
@@ -42,6 +49,7 @@ public final class ModularBot {
 
     public void start(String[] args) {
         instance = this;
+        trainingRun = Arrays.asList(args).contains(ModularBotConstants.ARG_TRAINING_RUN);
 
         log.info("Starting ModularDiscordBot @ {}", ModularBotConstants.getVersion());
         log.info("Made by Mayuna");
@@ -73,8 +81,10 @@ public final class ModularBot {
 
         log.info("Loading...");
         long startMillis = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
 
         log.info("Phase 1/5 - Loading core...");
+        long phaseStartNanos = System.nanoTime();
 
         log.info("Checking configuration");
         checkConfiguration();
@@ -85,11 +95,15 @@ public final class ModularBot {
         log.info("Registering UncaughtExceptionReporter");
         registerUncaughtExceptionReporter();
 
+        phaseStartNanos = recordPhase("loadCore", phaseStartNanos);
+
         log.info("Phase 2/5 - Loading modules...");
         loadModules();
+        phaseStartNanos = recordPhase("loadModules", phaseStartNanos);
 
         log.info("Phase 3/5 - Enabling modules...");
         enableModules();
+        phaseStartNanos = recordPhase("enableModules", phaseStartNanos);
 
         log.info("Phase 4/5 - Preparing JDA...");
 
@@ -101,15 +115,43 @@ public final class ModularBot {
 
         log.info("Finishing ModularBotShardManager...");
         finishModularBotShardManager();
+        phaseStartNanos = recordPhase("prepareJda", phaseStartNanos);
+
+        if (trainingRun) {
+            finishTrainingRun(startMillis);
+            return;
+        }
 
         log.info("Phase 5/5 - Connecting to Discord...");
         connectToDiscord();
+        recordPhase("connectToDiscord", phaseStartNanos);
+
+        modularBotTimings.record(ModularBotTimings.CATEGORY_STARTUP, null, "total", startNanos);
+        modularBotTimings.markStartupCompleted(System.currentTimeMillis() - startMillis);
+        modularBotTimings.dump(ModularBotConstants.PATH_FILE_STARTUP_TIMINGS);
 
         log.info("Successfully started ModularDiscordBot (took {}ms)", (System.currentTimeMillis() - startMillis));
         running = true;
 
         log.info("Initializing Presence Activity Cycle...");
         initializePresenceActivityCycle();
+
+        log.info("Starting Module Directory Watcher...");
+        moduleDirectoryWatcher.start();
+    }
+
+    /**
+     * Records timing of a startup phase that ends now
+     *
+     * @param phase      Name of the phase
+     * @param startNanos {@link System#nanoTime()} when the phase started
+     *
+     * @return {@link System#nanoTime()} when the phase ended, i.e., when the next phase starts
+     */
+    private long recordPhase(String phase, long startNanos) {
+        long endNanos = System.nanoTime();
+        modularBotTimings.record(ModularBotTimings.CATEGORY_STARTUP, null, phase, startNanos, endNanos);
+        return endNanos;
     }
 
     /**
@@ -186,7 +228,7 @@ public final class ModularBot {
      */
     private void createModularBotShardManager() {
         log.info("Initializing ModularBotShardManager...");
-        if (!modularBotShardManager.init()) {
+        if (!modularBotShardManager.init(trainingRun)) {
             shutdown();
         }
     }
@@ -216,10 +258,35 @@ public final class ModularBot {
         modularBotShardManager.initPresenceActivityCycle();
     }
 
+    /**
+     * Finishes training run - the core and modules were loaded without connecting to Discord. Exits the JVM normally
+     * (instead of halting it), so the JVM can write the CDS archive when started with -XX:ArchiveClassesAtExit.
+     *
+     * @param startMillis When was the startup started
+     */
+    private void finishTrainingRun(long startMillis) {
+        log.info("Training run finished (took {}ms), shutting down without connecting to Discord...", (System.currentTimeMillis() - startMillis));
+
+        stopComponents();
+
+        log.info("Exiting JVM...");
+        System.exit(0);
+    }
+
     /**
      * Shutdowns ModularDiscordBot
      */
     public void shutdown() {
+        stopComponents();
+
+        log.info("Halting JVM...");
+        Runtime.getRuntime().halt(0);
+    }
+
+    /**
+     * Stops Ganyu, module directory watcher, modules and shards
+     */
+    private void stopComponents() {
         stopping = true;
 
         log.info("Shutting down ModularDiscordBot @ {}", ModularBotConstants.getVersion());
@@ -227,6 +294,17 @@ public final class ModularBot {
         log.info("Shutting down Ganyu...");
         ganyu.stop();
 
+        log.info("Stopping Module Directory Watcher...");
+        moduleDirectoryWatcher.stop();
+
+        // Listeners must be detached before the modules are unloaded, otherwise the shards dispatch events and commands
+        // into modules whose class loaders are already closed. The shards stay connected, so modules may use JDA in
+        // their onDisable.
+        log.info("Detaching event listeners...");
+        if (modularBotShardManager != null) {
+            modularBotShardManager.detachListeners();
+        }
+
         log.info("Unloading modules...");
         moduleManager.unloadModules();
 
@@ -236,9 +314,6 @@ public final class ModularBot {
         }
 
         log.info("Shutdown completed");
-
-        log.info("Halting JVM...");
-        Runtime.getRuntime().halt(0);
     }
 
     /**
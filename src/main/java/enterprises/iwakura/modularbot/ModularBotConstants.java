@@ -9,6 +9,17 @@ public final class ModularBotConstants {
 
     public static final Path PATH_FOLDER_MODULES = Path.of("./modules");
     public static final String FILE_NAME_MODULE_INFO = "module_info.json";
+    public static final String FILE_NAME_SIGEWINE_INDEX = "sigewine_index.json";
+    public static final Path PATH_FOLDER_AMBER_LIBRARIES = Path.of("amber-lib");
+    public static final Path PATH_FOLDER_SHARED_LIBRARIES = Path.of("amber-lib", "shared");
+    public static final Path PATH_FILE_MODULE_STARTUP_CACHE = Path.of("./cache/module-startup-cache.json");
+    public static final Path PATH_FILE_DEPENDENCY_LOCKFILE = Path.of("./cache/dependencies.lock.json");
+    public static final Path PATH_FILE_COMMAND_MANIFEST = Path.of("./cache/command-manifest.json");
+    public static final Path PATH_FILE_STARTUP_TIMINGS = Path.of("./timings/startup-timings.json");
+    public static final Path PATH_FILE_CDS_ARCHIVE = Path.of("./cds/modular-discord-bot.jsa");
+    public static final String ARG_TRAINING_RUN = "--training-run";
+    public static final String ARG_PREPARE = "prepare";
+    public static final String ARG_COORDINATOR = "coordinator";
 
     private ModularBotConstants() {
     }
@@ -1,21 +1,36 @@
 package enterprises.iwakura.modularbot;
 
+import enterprises.iwakura.modularbot.cluster.ClusterCoordinator;
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Arrays;
+
 @Slf4j
 public final class ModularBotMain {
 
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains(ModularBotConstants.ARG_COORDINATOR)) {
+            log.info("Starting standalone cluster coordinator...");
+            ClusterCoordinator.runStandalone(new ModularBotConfig());
+            return;
+        }
+
         log.info("Bootstrapping ModularBot...");
 
         log.info("Initializing Sigewine...");
         //noinspection deprecation
         var sigewine = ModularBot.getSigewine();
+        long scanStartNanos = System.nanoTime();
         sigewine.scan(ModularBotMain.class);
+        ModularBotTimings.recordEarly("sigewineScan", scanStartNanos);
         log.info("Sigewine initialized with {} beans", sigewine.getSingletonBeans().size());
 
         log.info("Getting ModularBot bean...");
+        long injectStartNanos = System.nanoTime();
         var modularBot = sigewine.inject(ModularBot.class);
+        ModularBotTimings.recordEarly("sigewineInject", injectStartNanos);
 
         log.info("Starting ModularBot...");
         modularBot.start(args);
@@ -1,22 +1,59 @@
 package enterprises.iwakura.modularbot;
 
+import com.jagrosh.jdautilities.command.CommandClient;
 import com.jagrosh.jdautilities.command.CommandClientBuilder;
 import enterprises.iwakura.jdainteractables.InteractableListener;
+import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.cache.CommandManifest;
+import enterprises.iwakura.modularbot.cluster.ClusterNode;
+import enterprises.iwakura.modularbot.cluster.ClusterSessionController;
+import enterprises.iwakura.modularbot.cluster.ShardAssignment;
 import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.events.InstrumentedEventManager;
+import enterprises.iwakura.modularbot.events.LazyModuleEventManager;
+import enterprises.iwakura.modularbot.events.ModuleEventBus;
+import enterprises.iwakura.modularbot.listeners.CommandRegistrationListener;
+import enterprises.iwakura.modularbot.listeners.LazyModuleTriggerListener;
 import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.metrics.ModularBotEventMetrics;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
 import enterprises.iwakura.modularbot.objects.ModuleStatus;
 import enterprises.iwakura.modularbot.objects.activity.ModuleActivity;
+import enterprises.iwakura.modularbot.sharding.GatewayPayloadRecorder;
+import enterprises.iwakura.modularbot.sharding.ShardCachePolicy;
+import enterprises.iwakura.modularbot.sharding.ShardExecutors;
+import enterprises.iwakura.modularbot.sharding.ShardLoginController;
+import enterprises.iwakura.modularbot.sharding.ShardLoginProgress;
+import enterprises.iwakura.modularbot.sharding.ShardWatchdog;
 import enterprises.iwakura.sigewine.core.annotations.Bean;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Activity;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
 import net.dv8tion.jda.api.sharding.ShardManager;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Bean
@@ -24,22 +61,39 @@ import java.util.TimerTask;
 public final class ModularBotShardManager {
 
     public static final int INVALID_SHARD_ID = -1;
+    private static final long SHARD_SHUTDOWN_TIMEOUT_MILLIS = 10000;
 
     private final ModularBotConfig modularBotConfig;
     private final ModuleManager moduleManager;
-
-    private final Timer presenceActivityUpdaterTimer = new Timer();
+    private final ModularBotTimings modularBotTimings;
+    private final LazyModuleTriggerListener lazyModuleTriggerListener;
+    private final ClusterNode clusterNode;
+    private final ModuleEventBus moduleEventBus;
+    private final ModularBotEventMetrics modularBotEventMetrics;
+    private final @Getter ShardWatchdog shardWatchdog;
+
+    private final ScheduledExecutorService presenceActivityScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("presence-activity-cycle").daemon().factory());
+    private final ExecutorService presenceActivityExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("presence-activity-", 0).factory());
     private @Getter CommandClientBuilder commandClientBuilder;
+    private @Getter CommandClient commandClient;
+    private CommandRegistrationListener commandRegistrationListener;
     private @Getter DefaultShardManagerBuilder shardManagerBuilder;
     private ShardManager shardManager;
 
+    private final @Getter ShardLoginProgress shardLoginProgress = new ShardLoginProgress();
+    private final ShardExecutors shardExecutors = new ShardExecutors();
+    private @Getter GatewayPayloadRecorder gatewayPayloadRecorder;
+    private List<Integer> localShardIds;
+    private final Set<Integer> clusterShardIds = new HashSet<>();
     private boolean connected = false;
     private int lastActivityIndex = 0;
 
     /**
      * Initializes ShardManager
+     *
+     * @param trainingRun True if this is a training run, which does not join the cluster
      */
-    public boolean init() {
+    public boolean init(boolean trainingRun) {
         var discordSettings = modularBotConfig.getDiscord();
 
         log.info("Creating CommandClientBuilder...");
@@ -59,15 +113,61 @@ public final class ModularBotShardManager {
 
             log.info("Modular Bot's config Gateway intents: {}", discordSettings.getShardManager().getGatewayIntents().toString());
 
+            log.info("Applying cache policy...");
+            var cacheSettings = shardManagerSettings.getCache();
+            new ShardCachePolicy(cacheSettings, moduleManager.getModulesSnapshot()).apply(shardManagerBuilder, cacheSettings, shardManagerSettings.getGatewayIntents());
+
+            if (shardManagerSettings.isEventMetrics()) {
+                log.info("Using InstrumentedEventManager...");
+                shardManagerBuilder.setEventManagerProvider(shardId -> new InstrumentedEventManager(moduleManager, modularBotEventMetrics));
+            } else if (!moduleManager.getDormantModules().isEmpty()) {
+                // Listeners of dormant lazy modules must not receive events until the modules are activated
+                log.info("Using LazyModuleEventManager...");
+                shardManagerBuilder.setEventManagerProvider(shardId -> new LazyModuleEventManager(moduleManager));
+            }
+
+            log.info("Applying gateway settings...");
+            applyGatewaySettings(shardManagerSettings.getGateway());
+
+            log.info("Applying shard executors...");
+            shardExecutors.apply(shardManagerBuilder, shardManagerSettings.getThreading());
+
+            // Must be the first listener, so lazy modules are enabled before their listeners receive the triggering event
+            log.info("Registering LazyModuleTriggerListener...");
+            shardManagerBuilder.addEventListeners(lazyModuleTriggerListener);
+
+            log.info("Registering ShardLoginProgress...");
+            shardManagerBuilder.addEventListeners(shardLoginProgress);
+
+            log.info("Registering ShardWatchdog...");
+            shardManagerBuilder.addEventListeners(shardWatchdog);
+
+            if (moduleEventBus.isEnabled()) {
+                log.info("Registering ModuleEventBus...");
+                shardManagerBuilder.addEventListeners(moduleEventBus);
+            }
+
+            if (clusterNode.isEnabled()) {
+                if (!trainingRun) {
+                    return initCluster(shardManagerSettings);
+                }
+
+                log.info("Training run does not connect to Discord, not joining the cluster");
+            }
+
+            shardManagerBuilder.setSessionController(new ShardLoginController(shardManagerSettings.getLoginConcurrency(), shardLoginProgress));
+
             if (!shardManagerSettings.getShardIds().isEmpty()) {
                 log.info("Using these shard IDs: {}", shardManagerSettings.getShardIds().toString());
                 shardManagerBuilder.setShards(shardManagerSettings.getShardIds());
+                localShardIds = List.copyOf(shardManagerSettings.getShardIds());
                 return true;
             }
 
             if (shardManagerSettings.getMinShardId() != INVALID_SHARD_ID && shardManagerSettings.getMaxShardId() != INVALID_SHARD_ID) {
                 log.info("Using shard IDs from {} to {}", shardManagerSettings.getMinShardId(), shardManagerSettings.getMaxShardId());
                 shardManagerBuilder.setShards(shardManagerSettings.getMinShardId(), shardManagerSettings.getMaxShardId());
+                localShardIds = IntStream.rangeClosed(shardManagerSettings.getMinShardId(), shardManagerSettings.getMaxShardId()).boxed().toList();
                 return true;
             }
 
@@ -89,6 +189,63 @@ public final class ModularBotShardManager {
         }
     }
 
+    /**
+     * Applies gateway compression, encoding and buffer sizes. Enables raw events if gateway payloads should be recorded
+     * for the gateway decode benchmark.
+     *
+     * @param gatewaySettings Gateway settings
+     */
+    private void applyGatewaySettings(ModularBotConfig.Discord.ShardManager.Gateway gatewaySettings) {
+        log.info("Using gateway compression {} and encoding {}", gatewaySettings.getCompression(), gatewaySettings.getEncoding());
+        shardManagerBuilder.setCompression(gatewaySettings.getCompression());
+        shardManagerBuilder.setGatewayEncoding(gatewaySettings.getEncoding());
+
+        if (gatewaySettings.getMaxBufferSize() > 0) {
+            shardManagerBuilder.setMaxBufferSize(gatewaySettings.getMaxBufferSize());
+        }
+
+        if (gatewaySettings.getLargeThreshold() > 0) {
+            shardManagerBuilder.setLargeThreshold(gatewaySettings.getLargeThreshold());
+        }
+
+        if (gatewaySettings.isRecordPayloads()) {
+            log.info("Recording up to {} gateway payloads per shard for the gateway decode benchmark", gatewaySettings.getRecordedPayloadsPerShard());
+            gatewayPayloadRecorder = new GatewayPayloadRecorder(gatewaySettings.getRecordedPayloadsPerShard());
+            shardManagerBuilder.setRawEventsEnabled(true);
+            shardManagerBuilder.addEventListeners(gatewayPayloadRecorder);
+        }
+    }
+
+    /**
+     * Joins the cluster and uses shards assigned by its coordinator
+     *
+     * @param shardManagerSettings Shard manager settings
+     *
+     * @return True if successful, false otherwise
+     *
+     * @throws InterruptedException If interrupted while waiting for the assignment
+     */
+    private boolean initCluster(ModularBotConfig.Discord.ShardManager shardManagerSettings) throws InterruptedException {
+        if (shardManagerSettings.getTotalShards() < 1) {
+            log.error("Cluster mode requires discord#shardManager#totalShards to be set to a positive number!");
+            return false;
+        }
+
+        ShardAssignment assignment = clusterNode.join();
+        log.info("Using {} shard(s) assigned by cluster coordinator: {}", assignment.shardIds().size(), assignment.shardIds());
+
+        synchronized (clusterShardIds) {
+            clusterShardIds.addAll(assignment.shardIds());
+        }
+
+        shardManagerBuilder.setShardsTotal(assignment.totalShards());
+        shardManagerBuilder.setShards(assignment.shardIds());
+        shardManagerBuilder.setSessionController(new ClusterSessionController(clusterNode));
+        shardLoginProgress.setConcurrency(Math.max(1, modularBotConfig.getDiscord().getCluster().getMaxConcurrency()));
+        localShardIds = assignment.shardIds();
+        return true;
+    }
+
     /**
      * Finishes and builds {@link ShardManager}
      *
@@ -100,8 +257,25 @@ public final class ModularBotShardManager {
             return false;
         }
 
+        boolean diffCommandRegistration = modularBotConfig.getDiscord().getCommandRegistration().isEnabled();
+
+        if (diffCommandRegistration) {
+            // Commands are registered by CommandRegistrationListener instead of the command client
+            commandClientBuilder.setManualUpsert(true);
+        }
+
         log.info("Registering CommandClientBuilder...");
-        shardManagerBuilder.addEventListeners(commandClientBuilder.build());
+        commandClient = commandClientBuilder.build();
+        lazyModuleTriggerListener.setCommandClient(commandClient);
+        shardManagerBuilder.addEventListeners(commandClient);
+
+        if (diffCommandRegistration) {
+            log.info("Registering CommandRegistrationListener...");
+            CommandManifest commandManifest = new CommandManifest(ModularBotConstants.PATH_FILE_COMMAND_MANIFEST);
+            commandManifest.load();
+            commandRegistrationListener = new CommandRegistrationListener(commandClient, commandManifest);
+            shardManagerBuilder.addEventListeners(commandRegistrationListener);
+        }
 
         log.info("Registering JDA-Interactable's InteractableListener...");
         shardManagerBuilder.addEventListeners(new InteractableListener());
@@ -129,10 +303,34 @@ public final class ModularBotShardManager {
         }
 
         connected = true;
+        long startNanos = System.nanoTime();
+
+        // Records how long it took each shard to log in
+        this.shardManager.addEventListener(new ListenerAdapter() {
+            @Override
+            public void onReady(@NonNull ReadyEvent event) {
+                modularBotTimings.record(ModularBotTimings.CATEGORY_SHARD, "shard-" + event.getJDA().getShardInfo().getShardId(), "ready", startNanos);
+                event.getJDA().removeEventListener(this);
+            }
+        });
 
         try {
+            shardLoginProgress.start();
             this.shardManager.login();
             log.info("Connected to Discord!");
+
+            // Shards are logged in asynchronously
+            shardLoginProgress.expect(localShardIds != null ? localShardIds : IntStream.range(0, shardManager.getShardsTotal()).boxed().toList());
+            shardLoginProgress.getReadiness().thenAccept(duration -> {
+                modularBotTimings.record(ModularBotTimings.CATEGORY_SHARD, null, "allReady", startNanos);
+                log.info("All {} local shards are connected (took {}ms)", shardLoginProgress.getLocalShardCount(), duration.toMillis());
+            });
+
+            if (clusterNode.isEnabled()) {
+                clusterNode.setAssignmentListener(this::applyShardAssignment);
+            }
+
+            shardWatchdog.start(shardManager);
             return true;
         } catch (Exception exception) {
             log.error("Could not connect to Discord!", exception);
@@ -140,6 +338,49 @@ public final class ModularBotShardManager {
         }
     }
 
+    /**
+     * Starts shards newly assigned to this cluster node and stops shards that were assigned to another node. Returns
+     * once the stopped shards are disconnected, so the coordinator may assign them to other nodes afterward.
+     */
+    private void applyShardAssignment() {
+        ShardAssignment assignment = clusterNode.getAssignment();
+
+        synchronized (clusterShardIds) {
+            Set<Integer> removedShardIds = new HashSet<>(clusterShardIds);
+            assignment.shardIds().forEach(removedShardIds::remove);
+
+            removedShardIds.forEach(shardId -> {
+                log.info("Stopping shard ID {}, it is not assigned to this cluster node anymore", shardId);
+                JDA shard = shardManager.getShardById(shardId);
+                shardManager.shutdown(shardId);
+                clusterShardIds.remove(shardId);
+
+                if (shard != null) {
+                    awaitShardShutdown(shard);
+                }
+            });
+
+            assignment.shardIds().forEach(shardId -> {
+                if (clusterShardIds.add(shardId)) {
+                    log.info("Starting shard ID {}, it was assigned to this cluster node", shardId);
+                    shardManager.start(shardId);
+                }
+            });
+        }
+    }
+
+    private static void awaitShardShutdown(JDA shard) {
+        try {
+            if (!shard.awaitShutdown(SHARD_SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("Shard ID {} did not stop in {}ms, forcing shutdown", shard.getShardInfo().getShardId(), SHARD_SHUTDOWN_TIMEOUT_MILLIS);
+                shard.shutdownNow();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            shard.shutdownNow();
+        }
+    }
+
     /**
      * Initializes Presence Activity Cycle
      */
@@ -158,60 +399,204 @@ public final class ModularBotShardManager {
             return;
         }
 
-        //@formatter:off
-        presenceActivityUpdaterTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                List<ModuleActivity> allActivities = new LinkedList<>();
-
-                moduleManager.getModules().forEach(module -> {
-                    if (module.getModuleStatus() == ModuleStatus.ENABLED) {
-                        List<ModuleActivity> activities = module.getModuleActivities().getActivities();
-
-                        synchronized (activities) {
-                            allActivities.addAll(activities);
-                        }
-                    }
-                });
-
-                // No activities registered
-                if (allActivities.isEmpty()) {
-                    return;
-                }
+        long shardTimeoutMillis = presenceActivityCycle.getShardTimeoutMillis();
+        presenceActivityScheduler.scheduleAtFixedRate(() -> {
+            try {
+                cyclePresenceActivity(shardTimeoutMillis);
+            } catch (Exception exception) {
+                log.error("Failed to cycle presence activity!", exception);
+            }
+        }, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
 
-                if (allActivities.size() <= lastActivityIndex + 1) {
-                    lastActivityIndex = 0;
-                } else {
-                    lastActivityIndex++;
-                }
+    /**
+     * Sets next activity on all shards. Activities of shards are evaluated in parallel and the presence is updated only
+     * if the activity differs from shard's current one.
+     *
+     * @param shardTimeoutMillis Time in which the activity of each shard must be evaluated
+     */
+    private void cyclePresenceActivity(long shardTimeoutMillis) {
+        List<ModuleActivity> allActivities = new ArrayList<>();
+
+        moduleManager.getModulesSnapshot().forEach(module -> {
+            if (module.getModuleStatus() == ModuleStatus.ENABLED) {
+                allActivities.addAll(module.getModuleActivities().getActivities());
+            }
+        });
 
-                ModuleActivity moduleActivity = allActivities.get(lastActivityIndex);
-
-                shardManager.getShardCache().forEach(jda -> {
-                    try {
-                        jda.getPresence().setActivity(moduleActivity.getOnActivityRefresh().apply(jda));
-                    } catch (Exception exception) {
-                        log.error("Failed to set activity from module {} with activity name of {} on shard ID {}",
-                            moduleActivity.getModule().getModuleInfo().getName(),
-                            moduleActivity.getName(),
-                            jda.getShardInfo().getShardId()
-                        );
-                    }
-                });
+        // No activities registered
+        if (allActivities.isEmpty()) {
+            return;
+        }
+
+        if (allActivities.size() <= lastActivityIndex + 1) {
+            lastActivityIndex = 0;
+        } else {
+            lastActivityIndex++;
+        }
+
+        ModuleActivity moduleActivity = allActivities.get(lastActivityIndex);
+        Map<JDA, Future<?>> futures = new LinkedHashMap<>();
+
+        shardManager.getShardCache().forEach(jda -> futures.put(jda, presenceActivityExecutor.submit(() -> {
+            Activity activity = moduleActivity.getOnActivityRefresh().apply(jda);
+
+            // Do not spend gateway rate limit on presence that would not change
+            if (!Objects.equals(activity, jda.getPresence().getActivity())) {
+                jda.getPresence().setActivity(activity);
             }
-        }, 0, intervalMillis);
-        //@formatter:on
+        })));
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shardTimeoutMillis);
+
+        futures.forEach((jda, future) -> {
+            try {
+                future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException exception) {
+                future.cancel(true);
+                log.warn("Activity from module {} with activity name of {} on shard ID {} was not evaluated in {}ms",
+                        moduleActivity.getModule().getModuleInfo().getName(),
+                        moduleActivity.getName(),
+                        jda.getShardInfo().getShardId(),
+                        shardTimeoutMillis
+                );
+            } catch (InterruptedException exception) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException exception) {
+                log.error("Failed to set activity from module {} with activity name of {} on shard ID {}",
+                        moduleActivity.getModule().getModuleInfo().getName(),
+                        moduleActivity.getName(),
+                        jda.getShardInfo().getShardId(),
+                        exception.getCause()
+                );
+            }
+        });
+    }
+
+    /**
+     * Removes all event listeners whose classes were loaded by specified class loader from all shards
+     *
+     * @param classLoader Non-null {@link ClassLoader}, e.g., module's class loader
+     */
+    public void removeEventListeners(@NonNull ClassLoader classLoader) {
+        if (shardManager == null) {
+            return;
+        }
+
+        shardManager.getShardCache().forEach(jda -> {
+            Object[] listeners = jda.getRegisteredListeners().stream()
+                    .filter(listener -> listener.getClass().getClassLoader() == classLoader)
+                    .toArray();
+
+            if (listeners.length != 0) {
+                log.info("Removing {} event listeners from shard ID {}", listeners.length, jda.getShardInfo().getShardId());
+                jda.removeEventListener(listeners);
+            }
+        });
+    }
+
+    /**
+     * Removes all commands, slash commands and context menus whose classes were loaded by specified class loader from
+     * the command client
+     *
+     * @param classLoader Non-null {@link ClassLoader}, e.g., module's class loader
+     */
+    public void removeCommands(@NonNull ClassLoader classLoader) {
+        if (commandClient == null) {
+            return;
+        }
+
+        List.copyOf(commandClient.getCommands()).stream()
+                .filter(command -> command.getClass().getClassLoader() == classLoader)
+                .forEach(command -> commandClient.removeCommand(command.getName()));
+        List.copyOf(commandClient.getSlashCommands()).stream()
+                .filter(command -> command.getClass().getClassLoader() == classLoader)
+                .forEach(command -> commandClient.removeSlashCommand(command.getName()));
+        List.copyOf(commandClient.getContextMenus()).stream()
+                .filter(contextMenu -> contextMenu.getClass().getClassLoader() == classLoader)
+                .forEach(contextMenu -> commandClient.removeContextMenu(contextMenu.getName()));
+    }
+
+    /**
+     * Adds commands of specified module into the command client. The module registers them into a separate
+     * {@link CommandClientBuilder}, other settings of that builder are ignored.
+     *
+     * @param module Non-null {@link Module}
+     */
+    public void addCommands(@NonNull Module module) {
+        if (commandClient == null) {
+            return;
+        }
+
+        var moduleCommandClientBuilder = new CommandClientBuilder()
+                .setOwnerId(commandClient.getOwnerId())
+                .setActivity(null);
+        module.onCommandClientBuilderInitialization(moduleCommandClientBuilder);
+        CommandClient moduleCommandClient = moduleCommandClientBuilder.build();
+
+        try {
+            moduleCommandClient.getCommands().forEach(commandClient::addCommand);
+            moduleCommandClient.getSlashCommands().forEach(commandClient::addSlashCommand);
+            moduleCommandClient.getContextMenus().forEach(commandClient::addContextMenu);
+        } finally {
+            moduleCommandClient.shutdown();
+        }
+    }
+
+    /**
+     * Registers application commands of the command client with Discord again, e.g., after modules were reloaded
+     */
+    public void refreshCommands() {
+        if (shardManager == null || commandClient == null) {
+            return;
+        }
+
+        if (commandRegistrationListener != null) {
+            commandRegistrationListener.refresh(shardManager);
+            return;
+        }
+
+        String forcedGuildId = commandClient.forcedGuildId();
+        JDA jda = forcedGuildId == null || forcedGuildId.isEmpty()
+                ? shardManager.getShardById(0)
+                : Optional.ofNullable(shardManager.getGuildById(forcedGuildId)).map(Guild::getJDA).orElse(null);
+
+        // The shard responsible for the commands runs on another cluster node
+        if (jda != null) {
+            commandClient.upsertInteractions(jda);
+        }
     }
 
     /**
      * Shutdowns {@link ShardManager}
      */
     public void shutdown() {
-        presenceActivityUpdaterTimer.cancel();
+        detachListeners();
+
+        if (clusterNode.isEnabled()) {
+            clusterNode.leave();
+        }
 
         if (shardManager != null) {
             shardManager.shutdown();
         }
+
+        shardExecutors.shutdown();
+    }
+
+    /**
+     * Stops delivering events to listeners and stops the presence activity cycle and the watchdog. The shards stay
+     * connected, so modules may still use JDA while they are disabled.
+     */
+    public void detachListeners() {
+        presenceActivityScheduler.shutdownNow();
+        presenceActivityExecutor.shutdownNow();
+        shardWatchdog.stop();
+
+        if (shardManager != null) {
+            shardManager.getShardCache().forEach(shard -> shard.removeEventListener(shard.getRegisteredListeners().toArray()));
+        }
     }
 
     /**
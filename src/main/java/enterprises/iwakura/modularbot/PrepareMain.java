@@ -0,0 +1,184 @@
+package enterprises.iwakura.modularbot;
+
+import enterprises.iwakura.modularbot.amber.RepositoryChecksums;
+import enterprises.iwakura.modularbot.cache.DependencyLockfile;
+import enterprises.iwakura.modularbot.classloader.ModuleClassLoaderLeakDetector;
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.metrics.ModularBotMetrics;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
+import enterprises.iwakura.modularbot.util.JvmUtils;
+import enterprises.iwakura.sigewine.core.Sigewine;
+import enterprises.iwakura.sigewine.core.SigewineOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Prepare mode - resolves and downloads the whole dependency closure of Modular Bot and of all module jars in the
+ * modules directories, verifies their hashes against the previous lockfile and writes a new one. Jars that are not in
+ * the previous lockfile (e.g., all jars on the first prepare) are verified against the checksums of the Maven
+ * repositories instead. Modules' startup data are stored into the module startup cache and the boots use the lockfile,
+ * so the next start neither resolves dependencies nor opens module jars. Modules are not loaded and Modular Bot does not
+ * connect to Discord.
+ */
+@Slf4j
+public final class PrepareMain {
+
+    private PrepareMain() {
+    }
+
+    /**
+     * Entry point of the child JVM launched by {@link AmberMain} in prepare mode
+     *
+     * @param args Program arguments
+     */
+    public static void main(String[] args) {
+        List<Path> coreLibraries = new ArrayList<>();
+
+        try {
+            Path modularBotJar = JvmUtils.getModularBotJar();
+
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                Path library = Path.of(entry).toAbsolutePath().normalize();
+
+                if (!entry.isBlank() && !library.equals(modularBotJar)) {
+                    coreLibraries.add(library);
+                }
+            }
+        } catch (URISyntaxException exception) {
+            log.error("Failed to determine location of Modular Bot's jar!", exception);
+            System.exit(1);
+        }
+
+        System.exit(prepare(coreLibraries));
+    }
+
+    /**
+     * Runs the prepare mode
+     *
+     * @param coreLibraries Modular Bot's dependencies bootstrapped by Amber
+     *
+     * @return Exit code - 0 if everything was prepared and verified, 1 otherwise
+     */
+    public static int prepare(List<Path> coreLibraries) {
+        log.info("Preparing dependencies of Modular Bot and its modules...");
+        long startMillis = System.currentTimeMillis();
+
+        // Modules are not loaded, so the beans are created directly instead of starting the whole Sigewine context
+        var modularBotConfig = new ModularBotConfig();
+        var moduleManager = new ModuleManager(
+                modularBotConfig,
+                new Sigewine(SigewineOptions.builder().build()),
+                new ModuleClassLoaderLeakDetector(new ModularBotMetrics()),
+                new ModularBotTimings()
+        );
+
+        Map<Path, List<Path>> moduleDependencies = new LinkedHashMap<>();
+        boolean success = moduleManager.resolveModuleDependencies(moduleDependencies);
+
+        var dependencyLockfile = new DependencyLockfile(ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE);
+        dependencyLockfile.load();
+        dependencyLockfile.setModuleResolutionSettings(moduleManager.getDependencyResolutionSettings());
+        List<Path> mismatchedJarFiles = new ArrayList<>();
+        List<Path> mismatchedRepositoryJarFiles;
+
+        try {
+            mismatchedJarFiles.addAll(dependencyLockfile.lockCore(coreLibraries));
+
+            for (var entry : moduleDependencies.entrySet()) {
+                mismatchedJarFiles.addAll(dependencyLockfile.lockModule(entry.getKey(), entry.getValue()));
+            }
+
+            mismatchedRepositoryJarFiles = verifyNewJarFiles(dependencyLockfile, coreLibraries, moduleDependencies, moduleManager);
+        } catch (IOException exception) {
+            log.error("Failed to verify dependencies!", exception);
+            return 1;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        if (!mismatchedJarFiles.isEmpty()) {
+            log.error("{} jars do not match the previous lockfile: {}", mismatchedJarFiles.size(), mismatchedJarFiles);
+            success = false;
+        }
+
+        if (!mismatchedRepositoryJarFiles.isEmpty()) {
+            log.error("{} jars do not match checksums of the repositories: {}", mismatchedRepositoryJarFiles.size(), mismatchedRepositoryJarFiles);
+            success = false;
+        }
+
+        // Boots use the lockfile instead of resolving dependencies, so it must contain only verified jars
+        if (success) {
+            try {
+                dependencyLockfile.save();
+            } catch (IOException exception) {
+                log.error("Failed to write dependency lockfile {}!", ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE, exception);
+                return 1;
+            }
+        }
+
+        log.info("Prepared {} core libraries and {} modules in {}ms, lockfile {}",
+                coreLibraries.size(),
+                moduleDependencies.size(),
+                (System.currentTimeMillis() - startMillis),
+                success ? "written to " + ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE : "was not written"
+        );
+
+        if (!success) {
+            log.error("Some dependencies could not be prepared or verified, see the log above.");
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Verifies jars that were not in the previous lockfile against checksums of the Maven repositories
+     *
+     * @param dependencyLockfile Dependency lockfile with locked jars
+     * @param coreLibraries      Modular Bot's dependencies
+     * @param moduleDependencies Dependencies of modules by their module file
+     * @param moduleManager      Module manager that resolved the dependencies
+     *
+     * @return Jars whose checksum does not match the repositories
+     *
+     * @throws IOException          If any jar could not be read
+     * @throws InterruptedException If interrupted while waiting for the repositories
+     */
+    private static List<Path> verifyNewJarFiles(DependencyLockfile dependencyLockfile, List<Path> coreLibraries, Map<Path, List<Path>> moduleDependencies,
+                                                ModuleManager moduleManager) throws IOException, InterruptedException {
+        Set<Path> newJarFiles = new HashSet<>(dependencyLockfile.getNewJarFiles());
+
+        if (newJarFiles.isEmpty()) {
+            return List.of();
+        }
+
+        log.info("Verifying {} new jars against checksums of repositories {}...", newJarFiles.size(), RepositoryChecksums.DEFAULT_REPOSITORIES);
+        var repositoryChecksums = new RepositoryChecksums(RepositoryChecksums.DEFAULT_REPOSITORIES);
+        Set<Path> mismatchedJarFiles = new LinkedHashSet<>(repositoryChecksums.verify(
+                coreLibraries.stream().filter(newJarFiles::contains).toList(),
+                ModularBotConstants.PATH_FOLDER_AMBER_LIBRARIES
+        ));
+
+        for (var entry : moduleDependencies.entrySet()) {
+            mismatchedJarFiles.addAll(repositoryChecksums.verify(
+                    entry.getValue().stream().filter(newJarFiles::remove).toList(),
+                    moduleManager.getLibraryDirectory(entry.getKey())
+            ));
+        }
+
+        return new ArrayList<>(mismatchedJarFiles);
+    }
+}
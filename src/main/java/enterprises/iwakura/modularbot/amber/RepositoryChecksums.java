@@ -0,0 +1,204 @@
+package enterprises.iwakura.modularbot.amber;
+
+import enterprises.iwakura.modularbot.util.HashUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies jars downloaded by Amber against the SHA-1 checksums published by Maven repositories next to the artifacts.
+ * Amber lays out the artifacts by their coordinates, so the artifact's path in the repository is its path relative to
+ * the library directory. Jars that are in none of the repositories (or when the repositories are unreachable) cannot
+ * be verified and are only reported.
+ */
+@Slf4j
+public final class RepositoryChecksums {
+
+    /**
+     * Repositories Modular Bot's dependencies are downloaded from
+     */
+    public static final List<String> DEFAULT_REPOSITORIES = List.of("https://repo1.maven.org/maven2", "https://m2.chew.pro/releases");
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private final List<String> repositories;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    /**
+     * Creates new {@link RepositoryChecksums}
+     *
+     * @param repositories Non-null URLs of Maven repositories, tried in order
+     */
+    public RepositoryChecksums(@NonNull List<String> repositories) {
+        this.repositories = repositories.stream().map(repository -> repository.endsWith("/") ? repository : repository + "/").toList();
+    }
+
+    /**
+     * Verifies specified jars concurrently
+     *
+     * @param jarFiles         Non-null jar files
+     * @param libraryDirectory Non-null library directory the jars were bootstrapped into
+     *
+     * @return Jars whose checksum does not match the repository's checksum
+     *
+     * @throws IOException          If any jar could not be read
+     * @throws InterruptedException If interrupted while waiting for the repositories
+     */
+    public List<Path> verify(@NonNull List<Path> jarFiles, @NonNull Path libraryDirectory) throws IOException, InterruptedException {
+        List<Path> mismatchedJarFiles = new ArrayList<>();
+        List<Future<Result>> results = new ArrayList<>(jarFiles.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path jarFile : jarFiles) {
+                results.add(executor.submit(() -> verify(jarFile, libraryDirectory)));
+            }
+
+            for (int index = 0; index < jarFiles.size(); index++) {
+                Result result = results.get(index).get();
+
+                if (result == Result.MISMATCH) {
+                    mismatchedJarFiles.add(jarFiles.get(index));
+                }
+            }
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+
+            throw new IOException("Failed to verify jars against repository checksums", exception.getCause());
+        }
+
+        return mismatchedJarFiles;
+    }
+
+    /**
+     * Verifies specified jar against the checksum of the first repository that has it
+     *
+     * @param jarFile          Non-null jar file
+     * @param libraryDirectory Non-null library directory the jar was bootstrapped into
+     *
+     * @return Result of the verification
+     *
+     * @throws IOException          If the jar could not be read
+     * @throws InterruptedException If interrupted while waiting for the repositories
+     */
+    public Result verify(@NonNull Path jarFile, @NonNull Path libraryDirectory) throws IOException, InterruptedException {
+        Optional<String> optionalArtifactPath = getArtifactPath(jarFile, libraryDirectory);
+
+        if (optionalArtifactPath.isEmpty()) {
+            log.warn("Jar {} is not laid out by its coordinates in {}, it cannot be verified against repository checksums", jarFile, libraryDirectory);
+            return Result.UNAVAILABLE;
+        }
+
+        String artifactPath = optionalArtifactPath.get();
+
+        for (String repository : repositories) {
+            Optional<String> optionalChecksum = fetchChecksum(repository + artifactPath + ".sha1");
+
+            if (optionalChecksum.isEmpty()) {
+                continue;
+            }
+
+            String sha1 = HashUtils.sha1(jarFile);
+
+            if (!sha1.equals(optionalChecksum.get())) {
+                log.error("Checksum of {} does not match repository {} (expected {}, got {})", artifactPath, repository, optionalChecksum.get(), sha1);
+                return Result.MISMATCH;
+            }
+
+            return Result.MATCH;
+        }
+
+        log.warn("Jar {} was not found in repositories {}, it cannot be verified against repository checksums", artifactPath, repositories);
+        return Result.UNAVAILABLE;
+    }
+
+    /**
+     * Returns path of specified jar in a Maven repository, i.e., group/artifact/version/file
+     *
+     * @param jarFile          Non-null jar file
+     * @param libraryDirectory Non-null library directory the jar was bootstrapped into
+     *
+     * @return Optional of the path, empty if the jar is not laid out by its coordinates
+     */
+    public static Optional<String> getArtifactPath(@NonNull Path jarFile, @NonNull Path libraryDirectory) {
+        Path normalizedJarFile = jarFile.toAbsolutePath().normalize();
+        Path normalizedLibraryDirectory = libraryDirectory.toAbsolutePath().normalize();
+
+        if (!normalizedJarFile.startsWith(normalizedLibraryDirectory)) {
+            return Optional.empty();
+        }
+
+        Path coordinates = normalizedLibraryDirectory.relativize(normalizedJarFile);
+        int nameCount = coordinates.getNameCount();
+
+        // group.../artifact/version/artifact-version[-classifier].jar
+        if (nameCount < 4) {
+            return Optional.empty();
+        }
+
+        String artifact = coordinates.getName(nameCount - 3).toString();
+        String version = coordinates.getName(nameCount - 2).toString();
+
+        if (!coordinates.getFileName().toString().startsWith(artifact + "-" + version)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(coordinates.toString().replace('\\', '/'));
+    }
+
+    private Optional<String> fetchChecksum(String url) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(TIMEOUT).GET().build();
+
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() != 200 || response.body().isBlank()) {
+                return Optional.empty();
+            }
+
+            // Some repositories append the file name after the checksum
+            return Optional.of(response.body().trim().split("\\s+")[0].toLowerCase(Locale.ROOT));
+        } catch (IOException exception) {
+            log.debug("Failed to fetch checksum {}", url, exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Result of verification against repository checksums
+     */
+    public enum Result {
+
+        /**
+         * Checksum matches the repository
+         */
+        MATCH,
+        /**
+         * Checksum does not match the repository
+         */
+        MISMATCH,
+        /**
+         * No repository has a checksum of the jar
+         */
+        UNAVAILABLE
+    }
+}
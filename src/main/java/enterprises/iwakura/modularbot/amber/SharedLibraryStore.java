@@ -0,0 +1,218 @@
+package enterprises.iwakura.modularbot.amber;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import enterprises.iwakura.modularbot.util.HashUtils;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Library directory shared by all modules' Amber bootstraps. Amber lays out the artifacts by their coordinates, so
+ * an artifact required by multiple modules is downloaded and stored only once. The store keeps an index of artifact
+ * checksums and reports artifacts whose content no longer matches. Checksums are recorded when the artifact is first
+ * seen (trust on first use), they are not compared with the repository's checksums.<br>
+ * Bootstraps write directly into the store, one after another - each resolves its dependencies against the stored
+ * artifacts and downloads only the missing ones, so no artifact is downloaded twice.
+ */
+@Slf4j
+public final class SharedLibraryStore {
+
+    private static final String INDEX_FILE_NAME = "store-index.json";
+    private static final Pattern VERSIONED_JAR_PATTERN = Pattern.compile("^(.+?)-\\d[^/]*\\.jar$");
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final @Getter Path directory;
+    private final Map<String, Artifact> artifacts = new HashMap<>();
+    private final Object lock = new Object();
+
+    /**
+     * Creates new {@link SharedLibraryStore}
+     *
+     * @param directory Non-null {@link Path} to the store's directory
+     */
+    public SharedLibraryStore(@NonNull Path directory) {
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Returns key identifying the artifact of specified jar regardless of its version. Jars in the store are keyed by
+     * their group and artifact ID, e.g., {@code com/google/guava/guava} for
+     * {@code com/google/guava/guava/33.4.8-jre/guava-33.4.8-jre.jar}. Other jars are keyed by their file name without
+     * the version, e.g., {@code guava} for {@code guava-33.4.8-jre.jar}.
+     *
+     * @param jarFile Non-null {@link Path} to the jar file
+     *
+     * @return Artifact key
+     */
+    public String getArtifactKey(@NonNull Path jarFile) {
+        Path normalizedJarFile = jarFile.toAbsolutePath().normalize();
+
+        if (normalizedJarFile.startsWith(directory)) {
+            Path coordinates = directory.relativize(normalizedJarFile);
+
+            // group.../artifact/version/file
+            if (coordinates.getNameCount() >= 4) {
+                return coordinates.getParent().getParent().toString().replace('\\', '/');
+            }
+        }
+
+        String fileName = normalizedJarFile.getFileName().toString();
+        Matcher matcher = VERSIONED_JAR_PATTERN.matcher(fileName);
+        return matcher.matches() ? matcher.group(1) : fileName;
+    }
+
+    /**
+     * Loads the checksum index of the store
+     */
+    public void load() {
+        synchronized (lock) {
+            artifacts.clear();
+        }
+
+        Path indexFile = directory.resolve(INDEX_FILE_NAME);
+
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(indexFile)) {
+            Map<String, Artifact> loadedArtifacts = GSON.fromJson(reader, new TypeToken<Map<String, Artifact>>() {}.getType());
+
+            if (loadedArtifacts != null) {
+                synchronized (lock) {
+                    artifacts.putAll(loadedArtifacts);
+                }
+            }
+        } catch (IOException | JsonParseException exception) {
+            log.warn("Failed to read shared library store index {}, checksums will be recorded again.", indexFile, exception);
+        }
+    }
+
+    /**
+     * Saves the checksum index of the store
+     */
+    public void save() {
+        Path indexFile = directory.resolve(INDEX_FILE_NAME);
+
+        try {
+            Files.createDirectories(directory);
+            Path temporaryFile = Files.createTempFile(directory, INDEX_FILE_NAME, ".tmp");
+
+            Map<String, Artifact> sortedArtifacts;
+
+            synchronized (lock) {
+                sortedArtifacts = new TreeMap<>(artifacts);
+            }
+
+            try (Writer writer = Files.newBufferedWriter(temporaryFile)) {
+                GSON.toJson(sortedArtifacts, writer);
+            }
+
+            Files.move(temporaryFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            log.warn("Failed to save shared library store index {}!", indexFile, exception);
+        }
+    }
+
+    /**
+     * Verifies checksums of specified jars from the store. Jars outside the store are ignored. Checksums of jars that
+     * are not in the index yet are recorded. Jars whose size or last modified time differ from the index are hashed again.
+     *
+     * @param jarFiles Non-null list of jar files
+     *
+     * @return Jars whose checksum does not match the index
+     *
+     * @throws IOException If any jar could not be read
+     */
+    public List<Path> verify(@NonNull List<Path> jarFiles) throws IOException {
+        synchronized (lock) {
+            return verifyLocked(jarFiles);
+        }
+    }
+
+    private List<Path> verifyLocked(List<Path> jarFiles) throws IOException {
+        List<Path> corruptedJarFiles = new ArrayList<>();
+
+        for (Path jarFile : jarFiles) {
+            Path normalizedJarFile = jarFile.toAbsolutePath().normalize();
+
+            if (!normalizedJarFile.startsWith(directory)) {
+                continue;
+            }
+
+            String coordinates = directory.relativize(normalizedJarFile).toString().replace('\\', '/');
+            long size = Files.size(normalizedJarFile);
+            long lastModified = Files.getLastModifiedTime(normalizedJarFile).toMillis();
+            Artifact artifact = artifacts.get(coordinates);
+
+            if (artifact != null && artifact.getSize() == size && artifact.getLastModified() == lastModified) {
+                continue;
+            }
+
+            String sha256 = HashUtils.sha256(normalizedJarFile);
+
+            if (artifact != null && !artifact.getSha256().equals(sha256)) {
+                log.warn("Checksum of shared library {} does not match (expected {}, got {})", coordinates, artifact.getSha256(), sha256);
+                corruptedJarFiles.add(normalizedJarFile);
+                continue;
+            }
+
+            Artifact updatedArtifact = new Artifact();
+            updatedArtifact.setSha256(sha256);
+            updatedArtifact.setSize(size);
+            updatedArtifact.setLastModified(lastModified);
+            artifacts.put(coordinates, updatedArtifact);
+        }
+
+        return corruptedJarFiles;
+    }
+
+    /**
+     * Removes specified jars from the store and the index, so they are downloaded again by the next bootstrap
+     *
+     * @param jarFiles Non-null list of jar files
+     *
+     * @throws IOException If any jar could not be deleted
+     */
+    public void evict(@NonNull List<Path> jarFiles) throws IOException {
+        synchronized (lock) {
+            for (Path jarFile : jarFiles) {
+                Path normalizedJarFile = jarFile.toAbsolutePath().normalize();
+
+                if (normalizedJarFile.startsWith(directory)) {
+                    artifacts.remove(directory.relativize(normalizedJarFile).toString().replace('\\', '/'));
+                    Files.deleteIfExists(normalizedJarFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Artifact in the store
+     */
+    @Data
+    public static final class Artifact {
+
+        private String sha256;
+        private long size;
+        private long lastModified;
+    }
+}
@@ -2,6 +2,7 @@ package enterprises.iwakura.modularbot.base;
 
 import com.jagrosh.jdautilities.command.CommandClientBuilder;
 import enterprises.iwakura.ganyu.Ganyu;
+import enterprises.iwakura.modularbot.events.ModuleEventListeners;
 import enterprises.iwakura.modularbot.objects.ModuleInfo;
 import enterprises.iwakura.modularbot.objects.ModuleStatus;
 import enterprises.iwakura.modularbot.objects.activity.ModuleActivities;
@@ -9,6 +10,7 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
 
 import java.nio.file.Path;
 
@@ -17,6 +19,7 @@ import java.nio.file.Path;
 public abstract class Module {
 
     private final ModuleActivities moduleActivities = new ModuleActivities(this);
+    private final ModuleEventListeners moduleEventListeners = new ModuleEventListeners(this);
 
     /**
      * Module info loaded from module.json
@@ -51,7 +54,8 @@ public abstract class Module {
     public abstract void onEnable();
 
     /**
-     * This method is called when the module is disabling
+     * This method is called when the module is disabling. At shutdown, the shards are still connected, so JDA may be
+     * used (e.g., to send a message), but events are no longer delivered to listeners.
      */
     public abstract void onDisable();
 
@@ -80,6 +84,16 @@ public abstract class Module {
         // Empty
     }
 
+    /**
+     * This method is called after the module is enabled. Event listeners registered here receive events from Modular
+     * Bot's event bus on the module's own threads, so they do not delay listeners of other modules.
+     *
+     * @param moduleEventListeners Non-null {@link ModuleEventListeners}
+     */
+    public void onEventListenerRegistration(@NonNull ModuleEventListeners moduleEventListeners) {
+        // Empty
+    }
+
     /**
      * This method is called when Modular Bot is registering console commands
      *
@@ -88,6 +102,17 @@ public abstract class Module {
     public void onConsoleCommandRegistration(@NonNull Ganyu ganyu) {
     }
 
+    /**
+     * This method is called after the module was hot reloaded while Modular Bot is connected to Discord. Event listeners
+     * registered in {@link #onShardManagerBuilderInitialization(DefaultShardManagerBuilder)} are not registered again,
+     * you can register them here.
+     *
+     * @param shardManager Non-null {@link ShardManager}
+     */
+    public void onHotReload(@NonNull ShardManager shardManager) {
+        // Empty
+    }
+
     /**
      * This method is called when some exception is uncaught
      *
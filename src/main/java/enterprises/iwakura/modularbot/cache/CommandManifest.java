@@ -0,0 +1,149 @@
+package enterprises.iwakura.modularbot.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent manifest of registered application commands. For each scope (global or a guild) it stores hash of the
+ * whole command set and ID and hash of each command, so unchanged commands are not registered again.
+ */
+@Slf4j
+public final class CommandManifest {
+
+    private static final int VERSION = 2;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final Path manifestFile;
+    private final Map<String, Scope> scopes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new {@link CommandManifest}
+     *
+     * @param manifestFile Non-null {@link Path} to the manifest file
+     */
+    public CommandManifest(@NonNull Path manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Loads the manifest from its file. Missing or unreadable manifest file results in an empty manifest.
+     */
+    public void load() {
+        scopes.clear();
+
+        if (!Files.exists(manifestFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(manifestFile)) {
+            ManifestFile loadedManifestFile = GSON.fromJson(reader, ManifestFile.class);
+
+            if (loadedManifestFile == null || loadedManifestFile.getVersion() != VERSION || loadedManifestFile.getScopes() == null) {
+                log.info("Command manifest {} is outdated, ignoring it.", manifestFile);
+                return;
+            }
+
+            scopes.putAll(loadedManifestFile.getScopes());
+            log.info("Loaded command manifest with {} scopes", scopes.size());
+        } catch (IOException | JsonParseException exception) {
+            log.warn("Failed to read command manifest {}, ignoring it.", manifestFile, exception);
+        }
+    }
+
+    /**
+     * Saves the manifest into its file
+     */
+    public void save() {
+        ManifestFile manifestFileContent = new ManifestFile();
+        manifestFileContent.setVersion(VERSION);
+        manifestFileContent.setScopes(new HashMap<>(scopes));
+
+        try {
+            Path parent = manifestFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            // Write into temporary file first, so a crash during writing won't corrupt the manifest
+            Path temporaryFile = Files.createTempFile(parent, manifestFile.getFileName().toString(), ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(temporaryFile)) {
+                GSON.toJson(manifestFileContent, writer);
+            }
+
+            Files.move(temporaryFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            log.warn("Failed to save command manifest {}!", manifestFile, exception);
+        }
+    }
+
+    /**
+     * Returns manifest of specified scope
+     *
+     * @param scope Non-null scope name
+     *
+     * @return Optional of {@link Scope}
+     */
+    public Optional<Scope> get(@NonNull String scope) {
+        return Optional.ofNullable(scopes.get(scope));
+    }
+
+    /**
+     * Stores manifest of specified scope
+     *
+     * @param scope         Non-null scope name
+     * @param scopeManifest Non-null {@link Scope}
+     */
+    public void put(@NonNull String scope, @NonNull Scope scopeManifest) {
+        scopes.put(scope, scopeManifest);
+    }
+
+    /**
+     * Removes manifest of specified scope, so its commands are registered from scratch next time
+     *
+     * @param scope Non-null scope name
+     */
+    public void remove(@NonNull String scope) {
+        scopes.remove(scope);
+    }
+
+    @Data
+    private static final class ManifestFile {
+
+        private int version;
+        private Map<String, Scope> scopes;
+    }
+
+    /**
+     * Registered command set of a scope
+     */
+    @Data
+    public static final class Scope {
+
+        private String hash;
+        private Map<String, Command> commands = new HashMap<>();
+    }
+
+    /**
+     * Registered command, keyed by its type and name
+     */
+    @Data
+    public static final class Command {
+
+        private String id;
+        private String hash;
+    }
+}
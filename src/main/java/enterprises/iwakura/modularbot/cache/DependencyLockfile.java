@@ -0,0 +1,259 @@
+package enterprises.iwakura.modularbot.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import enterprises.iwakura.modularbot.util.HashUtils;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Lockfile of the whole dependency closure of Modular Bot and its modules - every jar with its size, last modified time
+ * and SHA-256 hash. Written by the prepare mode. Jars recorded in a previous lockfile are verified against it, so a jar
+ * whose content changed without its version changing is detected before the bot starts.<br>
+ * Boots use the lockfile instead of Amber resolution - locked jars are used as long as they exist with the same size and
+ * last modified time, see {@link #getModuleDependencies(Path, String)} and {@link LockedCoreLibraries}.
+ */
+@Slf4j
+public final class DependencyLockfile {
+
+    /**
+     * Version of the lockfile format, also checked by {@link LockedCoreLibraries}
+     */
+    static final int VERSION = 2;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final Path lockfile;
+    private final Map<String, LockedJar> previousJars = new HashMap<>();
+    private final Map<String, List<LockedJar>> previousModules = new HashMap<>();
+    private final List<LockedJar> core = new ArrayList<>();
+    private final Map<String, List<LockedJar>> modules = new TreeMap<>();
+    private final List<Path> newJarFiles = new ArrayList<>();
+    private String previousModuleResolutionSettings;
+    private @Setter String moduleResolutionSettings;
+
+    /**
+     * Creates new {@link DependencyLockfile}
+     *
+     * @param lockfile Non-null {@link Path} to the lockfile
+     */
+    public DependencyLockfile(@NonNull Path lockfile) {
+        this.lockfile = lockfile;
+    }
+
+    /**
+     * Loads jars of the previous lockfile, against which the new jars will be verified and which are used by boots
+     */
+    public void load() {
+        previousJars.clear();
+        previousModules.clear();
+        previousModuleResolutionSettings = null;
+
+        if (!Files.exists(lockfile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(lockfile)) {
+            LockfileContent content = GSON.fromJson(reader, LockfileContent.class);
+
+            if (content == null || content.getVersion() != VERSION) {
+                log.info("Dependency lockfile {} is outdated, ignoring it.", lockfile);
+                return;
+            }
+
+            Optional.ofNullable(content.getCore()).ifPresent(jars -> jars.forEach(jar -> previousJars.put(jar.getFile(), jar)));
+            Optional.ofNullable(content.getModules()).ifPresent(modules -> {
+                previousModules.putAll(modules);
+                modules.values().forEach(jars -> jars.forEach(jar -> previousJars.put(jar.getFile(), jar)));
+            });
+            previousModuleResolutionSettings = content.getModuleResolutionSettings();
+        } catch (IOException | JsonParseException exception) {
+            log.warn("Failed to read dependency lockfile {}, ignoring it.", lockfile, exception);
+        }
+    }
+
+    /**
+     * Returns dependency jars of specified module locked in the loaded lockfile. The module's jars are valid if they
+     * were resolved with the same settings and the module jar and all of its dependency jars exist with the same size
+     * and last modified time. Nothing is hashed, so the check costs only a few file attribute reads. This method is
+     * thread-safe once the lockfile is loaded.
+     *
+     * @param moduleFile         Non-null module jar
+     * @param resolutionSettings Non-null settings the module's dependencies are resolved with
+     *
+     * @return Optional of the module's dependency jars (without the module jar itself)
+     */
+    public Optional<List<Path>> getModuleDependencies(@NonNull Path moduleFile, @NonNull String resolutionSettings) {
+        List<LockedJar> lockedJars = previousModules.get(key(moduleFile));
+
+        if (lockedJars == null || lockedJars.isEmpty() || !resolutionSettings.equals(previousModuleResolutionSettings)) {
+            return Optional.empty();
+        }
+
+        List<Path> dependencies = new ArrayList<>(lockedJars.size() - 1);
+
+        for (int index = 0; index < lockedJars.size(); index++) {
+            LockedJar lockedJar = lockedJars.get(index);
+            Path jarFile = Path.of(lockedJar.getFile());
+
+            try {
+                if (!Files.exists(jarFile) || Files.size(jarFile) != lockedJar.getSize()
+                        || Files.getLastModifiedTime(jarFile).toMillis() != lockedJar.getLastModified()) {
+                    return Optional.empty();
+                }
+            } catch (IOException exception) {
+                log.debug("Failed to validate locked jar {}", jarFile, exception);
+                return Optional.empty();
+            }
+
+            // The module jar is locked first
+            if (index != 0) {
+                dependencies.add(jarFile);
+            }
+        }
+
+        return Optional.of(dependencies);
+    }
+
+    /**
+     * Returns jars locked by this lockfile that were not in the previous lockfile, in order they were locked. Module
+     * jars are not included.
+     *
+     * @return Non-null list of jar files
+     */
+    public List<Path> getNewJarFiles() {
+        return List.copyOf(newJarFiles);
+    }
+
+    /**
+     * Locks Modular Bot's dependency jars
+     *
+     * @param jarFiles Non-null dependency jars
+     *
+     * @return Jars whose hash differs from the previous lockfile
+     *
+     * @throws IOException If any jar could not be read
+     */
+    public List<Path> lockCore(@NonNull List<Path> jarFiles) throws IOException {
+        return lock(jarFiles, core, null);
+    }
+
+    /**
+     * Locks module jar and its dependency jars
+     *
+     * @param moduleFile   Non-null module jar
+     * @param dependencies Non-null dependency jars of the module
+     *
+     * @return Jars whose hash differs from the previous lockfile
+     *
+     * @throws IOException If any jar could not be read
+     */
+    public List<Path> lockModule(@NonNull Path moduleFile, @NonNull List<Path> dependencies) throws IOException {
+        List<LockedJar> lockedJars = new ArrayList<>();
+        List<Path> jarFiles = new ArrayList<>();
+        jarFiles.add(moduleFile);
+        jarFiles.addAll(dependencies);
+
+        List<Path> mismatchedJarFiles = lock(jarFiles, lockedJars, moduleFile);
+        modules.put(key(moduleFile), lockedJars);
+        return mismatchedJarFiles;
+    }
+
+    /**
+     * Writes the lockfile
+     *
+     * @throws IOException If the lockfile could not be written
+     */
+    public void save() throws IOException {
+        LockfileContent content = new LockfileContent();
+        content.setVersion(VERSION);
+        content.setCreatedAt(Instant.now().toString());
+        content.setModuleResolutionSettings(moduleResolutionSettings);
+        content.setModules(modules);
+        content.setCore(core);
+
+        Path parent = lockfile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temporaryFile = Files.createTempFile(parent, lockfile.getFileName().toString(), ".tmp");
+
+        try (Writer writer = Files.newBufferedWriter(temporaryFile)) {
+            GSON.toJson(content, writer);
+        }
+
+        Files.move(temporaryFile, lockfile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Path> lock(List<Path> jarFiles, List<LockedJar> lockedJars, Path moduleFile) throws IOException {
+        List<Path> mismatchedJarFiles = new ArrayList<>();
+
+        for (Path jarFile : jarFiles) {
+            LockedJar lockedJar = new LockedJar();
+            lockedJar.setFile(key(jarFile));
+            lockedJar.setSize(Files.size(jarFile));
+            lockedJar.setLastModified(Files.getLastModifiedTime(jarFile).toMillis());
+            lockedJar.setSha256(HashUtils.sha256(jarFile));
+
+            LockedJar previousJar = previousJars.get(lockedJar.getFile());
+
+            if (previousJar == null && jarFile != moduleFile) {
+                newJarFiles.add(jarFile);
+            }
+
+            // Module jars are expected to change, their dependencies are not
+            if (previousJar != null && !previousJar.getSha256().equals(lockedJar.getSha256()) && jarFile != moduleFile) {
+                log.warn("Hash of {} does not match the previous lockfile (expected {}, got {})", jarFile, previousJar.getSha256(), lockedJar.getSha256());
+                mismatchedJarFiles.add(jarFile);
+            }
+
+            lockedJars.add(lockedJar);
+        }
+
+        return mismatchedJarFiles;
+    }
+
+    private static String key(Path jarFile) {
+        return jarFile.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Content of the lockfile. Field order is the order Gson writes them in - core is last and its jars start with file,
+     * size and lastModified, as {@link LockedCoreLibraries} expects.
+     */
+    @Data
+    private static final class LockfileContent {
+
+        private int version;
+        private String createdAt;
+        private String moduleResolutionSettings;
+        private Map<String, List<LockedJar>> modules;
+        private List<LockedJar> core;
+    }
+
+    /**
+     * Locked jar file
+     */
+    @Data
+    public static final class LockedJar {
+
+        private String file;
+        private long size;
+        private long lastModified;
+        private String sha256;
+    }
+}
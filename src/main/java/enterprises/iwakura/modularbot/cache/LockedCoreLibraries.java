@@ -0,0 +1,112 @@
+package enterprises.iwakura.modularbot.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads Modular Bot's dependency jars locked in the {@link DependencyLockfile}. Runs before Amber bootstraps them, so it
+ * uses only the JDK - the core jars are matched in the JSON Gson writes instead of parsing it. The jars are used only if
+ * all of them exist with the same size and last modified time.
+ */
+public final class LockedCoreLibraries {
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile("\"version\"\\s*:\\s*(\\d+)");
+    private static final Pattern CORE_PATTERN = Pattern.compile("\"core\"\\s*:\\s*\\[");
+    private static final Pattern LOCKED_JAR_PATTERN = Pattern.compile(
+            "\\{\\s*\"file\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"\\s*,\\s*\"size\"\\s*:\\s*(\\d+)\\s*,\\s*\"lastModified\"\\s*:\\s*(\\d+)"
+    );
+
+    private LockedCoreLibraries() {
+    }
+
+    /**
+     * Reads core jars locked in specified lockfile
+     *
+     * @param lockfile {@link Path} to the lockfile
+     *
+     * @return Optional of the locked jars, empty if the lockfile does not exist, is outdated or any jar has changed
+     */
+    public static Optional<List<Path>> read(Path lockfile) {
+        String content;
+
+        try {
+            if (!Files.isRegularFile(lockfile)) {
+                return Optional.empty();
+            }
+
+            content = Files.readString(lockfile);
+        } catch (IOException exception) {
+            return Optional.empty();
+        }
+
+        Matcher versionMatcher = VERSION_PATTERN.matcher(content);
+
+        if (!versionMatcher.find() || Integer.parseInt(versionMatcher.group(1)) != DependencyLockfile.VERSION) {
+            return Optional.empty();
+        }
+
+        Matcher coreMatcher = CORE_PATTERN.matcher(content);
+
+        if (!coreMatcher.find()) {
+            return Optional.empty();
+        }
+
+        // Core is the last field of the lockfile, so all jars after it are core jars
+        List<Path> libraries = new ArrayList<>();
+        Matcher lockedJarMatcher = LOCKED_JAR_PATTERN.matcher(content);
+        lockedJarMatcher.region(coreMatcher.end(), content.length());
+
+        try {
+            while (lockedJarMatcher.find()) {
+                Path library = Path.of(unescape(lockedJarMatcher.group(1)));
+
+                if (!Files.isRegularFile(library) || Files.size(library) != Long.parseLong(lockedJarMatcher.group(2))
+                        || Files.getLastModifiedTime(library).toMillis() != Long.parseLong(lockedJarMatcher.group(3))) {
+                    return Optional.empty();
+                }
+
+                libraries.add(library);
+            }
+        } catch (IOException | RuntimeException exception) {
+            return Optional.empty();
+        }
+
+        return libraries.isEmpty() ? Optional.empty() : Optional.of(libraries);
+    }
+
+    private static String unescape(String jsonString) {
+        StringBuilder builder = new StringBuilder(jsonString.length());
+
+        for (int index = 0; index < jsonString.length(); index++) {
+            char character = jsonString.charAt(index);
+
+            if (character != '\\') {
+                builder.append(character);
+                continue;
+            }
+
+            char escaped = jsonString.charAt(++index);
+
+            switch (escaped) {
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    builder.append((char) Integer.parseInt(jsonString.substring(index + 1, index + 5), 16));
+                    index += 4;
+                }
+                default -> builder.append(escaped);
+            }
+        }
+
+        return builder.toString();
+    }
+}
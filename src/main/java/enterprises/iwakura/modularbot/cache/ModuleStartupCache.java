@@ -0,0 +1,245 @@
+package enterprises.iwakura.modularbot.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import enterprises.iwakura.modularbot.util.HashUtils;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of module jar's startup data - its module info, Sigewine index, resolved dependency jars and
+ * packages. Entries are keyed by the jar's path and validated by its size, last modified time and SHA-256 hash and by
+ * the settings the dependencies were resolved with, so unchanged jars skip zip scanning and Amber dependency resolution.
+ */
+@Slf4j
+public final class ModuleStartupCache {
+
+    private static final int VERSION = 3;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    private final Path cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new {@link ModuleStartupCache}
+     *
+     * @param cacheFile Non-null {@link Path} to the cache file
+     */
+    public ModuleStartupCache(@NonNull Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Loads the cache from its file. Missing or unreadable cache file results in an empty cache.
+     */
+    public void load() {
+        entries.clear();
+
+        if (!Files.exists(cacheFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(cacheFile)) {
+            CacheFile loadedCacheFile = GSON.fromJson(reader, CacheFile.class);
+
+            if (loadedCacheFile == null || loadedCacheFile.getVersion() != VERSION || loadedCacheFile.getEntries() == null) {
+                log.info("Module startup cache {} is outdated, ignoring it.", cacheFile);
+                return;
+            }
+
+            loadedCacheFile.getEntries().forEach(entry -> entries.put(entry.getModuleFile(), entry));
+            log.info("Loaded module startup cache with {} entries", entries.size());
+        } catch (IOException | JsonParseException exception) {
+            log.warn("Failed to read module startup cache {}, ignoring it.", cacheFile, exception);
+        }
+    }
+
+    /**
+     * Saves the cache into its file. Entries of jar files that no longer exist are dropped.
+     */
+    public void save() {
+        entries.values().removeIf(entry -> !Files.exists(Path.of(entry.getModuleFile())));
+
+        CacheFile cacheFileContent = new CacheFile();
+        cacheFileContent.setVersion(VERSION);
+        cacheFileContent.setEntries(new ArrayList<>(entries.values()));
+
+        try {
+            Path parent = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+
+            // Write into temporary file first, so a crash during writing won't corrupt the cache
+            Path temporaryFile = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(temporaryFile)) {
+                GSON.toJson(cacheFileContent, writer);
+            }
+
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            log.warn("Failed to save module startup cache {}!", cacheFile, exception);
+        }
+    }
+
+    /**
+     * Returns valid cache entry for specified module jar. The entry is valid if it was resolved with the same settings,
+     * the jar's size and last modified time match (or its hash matches, if only the last modified time changed) and all
+     * of its dependency jars still exist with the same size and last modified time. Invalid entries are removed. This
+     * method is thread-safe.
+     *
+     * @param moduleFile         Non-null {@link Path} to the module jar
+     * @param resolutionSettings Non-null settings the module's dependencies are resolved with
+     *
+     * @return Optional of {@link Entry}
+     */
+    public Optional<Entry> get(@NonNull Path moduleFile, @NonNull String resolutionSettings) {
+        String key = key(moduleFile);
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        if (!resolutionSettings.equals(entry.getResolutionSettings())) {
+            // Dependencies were resolved into other directories
+            entries.remove(key);
+            return Optional.empty();
+        }
+
+        try {
+            long size = Files.size(moduleFile);
+            long lastModified = Files.getLastModifiedTime(moduleFile).toMillis();
+
+            if (size != entry.getSize()) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+
+            if (lastModified != entry.getLastModified()) {
+                // The jar was touched, check whenever its content has changed
+                if (!HashUtils.sha256(moduleFile).equals(entry.getSha256())) {
+                    entries.remove(key);
+                    return Optional.empty();
+                }
+
+                entry.setLastModified(lastModified);
+            }
+
+            for (Dependency dependency : entry.getDependencies()) {
+                Path dependencyFile = Path.of(dependency.getFile());
+
+                if (!Files.exists(dependencyFile) || Files.size(dependencyFile) != dependency.getSize()
+                        || Files.getLastModifiedTime(dependencyFile).toMillis() != dependency.getLastModified()) {
+                    entries.remove(key);
+                    return Optional.empty();
+                }
+            }
+
+            return Optional.of(entry);
+        } catch (IOException exception) {
+            log.warn("Failed to validate module startup cache entry of {}, ignoring it.", moduleFile, exception);
+            entries.remove(key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates and stores cache entry for specified module jar. This method is thread-safe.
+     *
+     * @param moduleFile         Non-null {@link Path} to the module jar
+     * @param resolutionSettings Non-null settings the module's dependencies were resolved with
+     * @param moduleInfoJson     Non-null content of the module's module_info.json
+     * @param sigewineIndexJson  Nullable content of the module's sigewine_index.json
+     * @param dependencies       Non-null resolved dependency jars of the module (without the module jar itself)
+     * @param packageNames       Non-null packages contained in the module jar and its dependency jars
+     *
+     * @throws IOException If the module jar or its dependencies could not be read
+     */
+    public void put(@NonNull Path moduleFile, @NonNull String resolutionSettings, @NonNull String moduleInfoJson, String sigewineIndexJson, @NonNull List<Path> dependencies,
+                    @NonNull List<String> packageNames) throws IOException {
+        Entry entry = new Entry();
+        entry.setModuleFile(key(moduleFile));
+        entry.setResolutionSettings(resolutionSettings);
+        entry.setSize(Files.size(moduleFile));
+        entry.setLastModified(Files.getLastModifiedTime(moduleFile).toMillis());
+        entry.setSha256(HashUtils.sha256(moduleFile));
+        entry.setModuleInfo(moduleInfoJson);
+        entry.setSigewineIndex(sigewineIndexJson);
+        entry.setPackageNames(packageNames);
+
+        List<Dependency> cachedDependencies = new ArrayList<>(dependencies.size());
+
+        for (Path dependencyFile : dependencies) {
+            Dependency dependency = new Dependency();
+            dependency.setFile(dependencyFile.toAbsolutePath().normalize().toString());
+            dependency.setSize(Files.size(dependencyFile));
+            dependency.setLastModified(Files.getLastModifiedTime(dependencyFile).toMillis());
+            cachedDependencies.add(dependency);
+        }
+
+        entry.setDependencies(cachedDependencies);
+        entries.put(entry.getModuleFile(), entry);
+    }
+
+    private static String key(Path moduleFile) {
+        return moduleFile.toAbsolutePath().normalize().toString();
+    }
+
+    @Data
+    private static final class CacheFile {
+
+        private int version;
+        private List<Entry> entries;
+    }
+
+    /**
+     * Cached startup data of a module jar
+     */
+    @Data
+    public static final class Entry {
+
+        private String moduleFile;
+        private String resolutionSettings;
+        private long size;
+        private long lastModified;
+        private String sha256;
+        private String moduleInfo;
+        private String sigewineIndex;
+        private List<Dependency> dependencies = new ArrayList<>();
+        private List<String> packageNames = new ArrayList<>();
+
+        /**
+         * Returns paths to the dependency jars
+         *
+         * @return List of {@link Path}
+         */
+        public List<Path> getDependencyFiles() {
+            return dependencies.stream().map(dependency -> Path.of(dependency.getFile())).toList();
+        }
+    }
+
+    /**
+     * Cached dependency jar of a module
+     */
+    @Data
+    public static final class Dependency {
+
+        private String file;
+        private long size;
+        private long lastModified;
+    }
+}
@@ -0,0 +1,123 @@
+package enterprises.iwakura.modularbot.cds;
+
+import enterprises.iwakura.modularbot.ModularBotConstants;
+import enterprises.iwakura.modularbot.ModularBotMain;
+import enterprises.iwakura.modularbot.util.JvmUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+
+/**
+ * Relaunches Modular Bot in a child JVM that uses (or, in a training run, creates) a dynamic AppCDS archive. Classes
+ * from the archive are already parsed and verified, so they are not loaded cold on every start.<br>
+ * The child JVM has Modular Bot's jar and all its Amber dependencies on its class path, because CDS archives only
+ * classes loaded from the class path the JVM was started with. The class path must be the same when the archive is
+ * created and used, otherwise the JVM ignores the archive with a warning.<br>
+ * This JVM waits for the child JVM and exits with its exit code, termination of this JVM (e.g., SIGTERM from a service
+ * manager) is forwarded to the child JVM. With {@code -Dmodularbot.cds.detach=true}, this JVM exits once the child JVM
+ * is started instead, which requires a supervisor that follows the child process. Training runs always wait.<br>
+ * Can be disabled with {@code -Dmodularbot.cds=false}.
+ */
+public final class CdsLauncher {
+
+    public static final String PROPERTY_ENABLED = "modularbot.cds";
+    public static final String PROPERTY_LAUNCHED = "modularbot.cds.launched";
+    public static final String PROPERTY_DETACH = "modularbot.cds.detach";
+
+    private static final String OPTION_SHARED_ARCHIVE_FILE = "-XX:SharedArchiveFile=";
+    private static final String OPTION_ARCHIVE_CLASSES_AT_EXIT = "-XX:ArchiveClassesAtExit=";
+
+    private CdsLauncher() {
+    }
+
+    /**
+     * Relaunches Modular Bot in a child JVM with CDS archive, if applicable. The child is launched if this is a training
+     * run (it then creates the archive) or if the archive exists. Blocks until the child JVM exits, unless detaching is
+     * enabled.
+     *
+     * @param args      Program arguments
+     * @param libraries Modular Bot's dependencies bootstrapped by Amber
+     *
+     * @return Exit code of this JVM, or empty optional if Modular Bot should start in this JVM
+     */
+    public static OptionalInt launch(String[] args, List<Path> libraries) {
+        if (!isApplicable(args)) {
+            return OptionalInt.empty();
+        }
+
+        boolean trainingRun = Arrays.asList(args).contains(ModularBotConstants.ARG_TRAINING_RUN);
+        Path archiveFile = ModularBotConstants.PATH_FILE_CDS_ARCHIVE.toAbsolutePath().normalize();
+        List<String> command;
+
+        try {
+            command = createCommand(args, libraries, archiveFile, trainingRun);
+
+            if (trainingRun) {
+                Files.createDirectories(archiveFile.getParent());
+            }
+        } catch (IOException | URISyntaxException exception) {
+            System.err.println("Failed to prepare CDS launch, starting without CDS archive: " + exception);
+            return OptionalInt.empty();
+        }
+
+        if (trainingRun) {
+            System.out.println("Starting training run, CDS archive will be created at " + archiveFile);
+        } else {
+            System.out.println("Starting Modular Bot with CDS archive " + archiveFile);
+        }
+
+        try {
+            if (shouldDetach(trainingRun)) {
+                Process process = JvmUtils.start(command);
+                System.out.println("Modular Bot is running in child JVM with PID " + process.pid() + ", exiting launcher JVM");
+                return OptionalInt.of(0);
+            }
+
+            return OptionalInt.of(JvmUtils.runAndWait(command));
+        } catch (IOException exception) {
+            System.err.println("Failed to launch JVM with CDS archive, starting without it: " + exception);
+            return OptionalInt.empty();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return OptionalInt.of(1);
+        }
+    }
+
+    /**
+     * Checks whenever {@link #launch(String[], List)} would relaunch Modular Bot in a child JVM - CDS is enabled, this is
+     * not the child JVM and this is a training run or the archive exists
+     *
+     * @param args Program arguments
+     *
+     * @return True if Modular Bot would be relaunched
+     */
+    public static boolean isApplicable(String[] args) {
+        if (Boolean.getBoolean(PROPERTY_LAUNCHED) || "false".equalsIgnoreCase(System.getProperty(PROPERTY_ENABLED))) {
+            return false;
+        }
+
+        return Arrays.asList(args).contains(ModularBotConstants.ARG_TRAINING_RUN)
+                || Files.isRegularFile(ModularBotConstants.PATH_FILE_CDS_ARCHIVE.toAbsolutePath().normalize());
+    }
+
+    private static boolean shouldDetach(boolean trainingRun) {
+        // The training run's exit code tells if the archive was created
+        return !trainingRun && Boolean.getBoolean(PROPERTY_DETACH);
+    }
+
+    private static List<String> createCommand(String[] args, List<Path> libraries, Path archiveFile, boolean trainingRun) throws URISyntaxException {
+        // Keep JVM options (e.g., -Xmx) of this JVM, except for CDS options
+        return JvmUtils.createJavaCommand(
+                argument -> !argument.startsWith(OPTION_SHARED_ARCHIVE_FILE) && !argument.startsWith(OPTION_ARCHIVE_CLASSES_AT_EXIT),
+                List.of((trainingRun ? OPTION_ARCHIVE_CLASSES_AT_EXIT : OPTION_SHARED_ARCHIVE_FILE) + archiveFile, "-D" + PROPERTY_LAUNCHED + "=true"),
+                libraries,
+                ModularBotMain.class.getName(),
+                args
+        );
+    }
+}
@@ -2,11 +2,17 @@ package enterprises.iwakura.modularbot.classloader;
 
 import enterprises.iwakura.modularbot.base.Module;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 /**
  * {@link Module}'s class loader
@@ -17,18 +23,36 @@ public final class ModuleClassLoader extends URLClassLoader {
         ClassLoader.registerAsParallelCapable();
     }
 
-    private final List<ClassLoader> otherClassLoaders;
+    private static final String MULTI_RELEASE_PREFIX = "META-INF/versions/";
+
+    private final ModuleClassLoaderIndex classLoaderIndex;
+    private final Set<String> packageNames;
 
     /**
      * Creates new class loader for specified jar file with specified {@link ClassLoader} as parent
      *
-     * @param jarFiles          Jar Files
-     * @param parent            Parent {@link ClassLoader}
-     * @param otherClassLoaders Other module's {@link ClassLoader}s
+     * @param jarFiles         Jar Files
+     * @param parent           Parent {@link ClassLoader}
+     * @param classLoaderIndex Index of module {@link ClassLoader}s used to resolve other module's classes
+     *
+     * @throws IOException If the jar file could not be converted to URL or could not be read
+     */
+    public ModuleClassLoader(List<Path> jarFiles, ClassLoader parent, ModuleClassLoaderIndex classLoaderIndex) throws IOException {
+        this(jarFiles, parent, classLoaderIndex, scanPackageNames(jarFiles));
+    }
+
+    /**
+     * Creates new class loader for specified jar file with specified {@link ClassLoader} as parent and already known
+     * package names of the jar files (e.g., from module startup cache)
+     *
+     * @param jarFiles         Jar Files
+     * @param parent           Parent {@link ClassLoader}
+     * @param classLoaderIndex Index of module {@link ClassLoader}s used to resolve other module's classes
+     * @param packageNames     Names of packages in the jar files
      *
      * @throws MalformedURLException If the jar file could not be converted to URL
      */
-    public ModuleClassLoader(List<Path> jarFiles, ClassLoader parent, List<ClassLoader> otherClassLoaders) throws MalformedURLException {
+    public ModuleClassLoader(List<Path> jarFiles, ClassLoader parent, ModuleClassLoaderIndex classLoaderIndex, Set<String> packageNames) throws MalformedURLException {
         super(jarFiles.stream().map(path -> {
             try {
                 return path.toUri().toURL();
@@ -36,37 +60,153 @@ public final class ModuleClassLoader extends URLClassLoader {
                 throw new RuntimeException("Failed to convert path %s to URL".formatted(path), e);
             }
         }).toArray(URL[]::new), parent);
-        this.otherClassLoaders = otherClassLoaders;
+        this.classLoaderIndex = classLoaderIndex;
+        this.packageNames = Set.copyOf(packageNames);
+    }
+
+    /**
+     * Lists names of all packages containing classes in specified jar files
+     *
+     * @param jarFiles Jar files
+     *
+     * @return Set of package names
+     *
+     * @throws IOException If any jar file could not be read
+     */
+    public static Set<String> scanPackageNames(List<Path> jarFiles) throws IOException {
+        Set<String> packageNames = new HashSet<>();
+
+        for (Path jarFile : jarFiles) {
+            try (JarFile jar = new JarFile(jarFile.toFile())) {
+                Enumeration<JarEntry> entries = jar.entries();
+
+                while (entries.hasMoreElements()) {
+                    String entryName = entries.nextElement().getName();
+
+                    if (!entryName.endsWith(".class")) {
+                        continue;
+                    }
+
+                    // Multi-release jars, e.g., META-INF/versions/21/com/example/Foo.class
+                    if (entryName.startsWith(MULTI_RELEASE_PREFIX)) {
+                        int versionEnd = entryName.indexOf('/', MULTI_RELEASE_PREFIX.length());
+
+                        if (versionEnd == -1) {
+                            continue;
+                        }
+
+                        entryName = entryName.substring(versionEnd + 1);
+                    }
+
+                    int lastSlash = entryName.lastIndexOf('/');
+                    packageNames.add(lastSlash == -1 ? "" : entryName.substring(0, lastSlash).replace('/', '.'));
+                }
+            }
+        }
+
+        return packageNames;
+    }
+
+    /**
+     * Returns names of all packages that this class loader's jar files contain
+     *
+     * @return Immutable set of package names
+     */
+    public Set<String> getPackageNames() {
+        return packageNames;
     }
 
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        // If the class is loaded by this class loader, e.g., it is module's class, return it
-        try {
-            Class<?> result = super.loadClass(name, resolve);
+        String packageName = getPackageName(name);
+
+        // ModularDiscordBot's class loader first, then module's own classes
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> result = findLoadedClass(name);
+
+            if (result == null) {
+                try {
+                    result = getParent().loadClass(name);
+                } catch (ClassNotFoundException ignored) {
+                }
+            }
+
+            if (result == null && packageNames.contains(packageName)) {
+                result = findOwnClass(name);
+            }
+
+            if (result != null) {
+                if (resolve) {
+                    resolveClass(result);
+                }
 
-            if (result.getClassLoader() == this) {
                 return result;
             }
-        } catch (ClassNotFoundException ignored) {
+        }
+
+        // Already known that no other module has this class. Consulted only after the core and own lookups, so classes
+        // defined at runtime by this class loader (e.g., proxies) are always found.
+        if (classLoaderIndex.isMissing(name)) {
+            throw new ClassNotFoundException(name);
         }
 
         // Load other module's class
-        synchronized (otherClassLoaders) {
-            for (ClassLoader otherClassLoader : otherClassLoaders) {
-                // Skip own class loader to prevent stack overflows
-                if (otherClassLoader == this) {
-                    continue;
-                }
+        List<ModuleClassLoader> otherClassLoaders = classLoaderIndex.getClassLoaders(packageName);
 
-                try {
-                    return otherClassLoader.loadClass(name);
-                } catch (ClassNotFoundException ignored) {
+        for (ModuleClassLoader otherClassLoader : otherClassLoaders) {
+            // Skip own class loader to prevent stack overflows
+            if (otherClassLoader == this) {
+                continue;
+            }
+
+            Class<?> result = otherClassLoader.findModuleClass(name);
+
+            if (result != null) {
+                if (resolve) {
+                    resolveClass(result);
                 }
+
+                return result;
             }
         }
 
-        // Get class from ModularDiscordBot's class loader
-        return getParent().loadClass(name);
+        // Caching names of packages no other module has would only fill the cache, their lookup is free anyway
+        if (!otherClassLoaders.isEmpty()) {
+            classLoaderIndex.markMissing(name);
+        }
+
+        throw new ClassNotFoundException(name);
+    }
+
+    /**
+     * Finds class in this module's jar files without delegating to other class loaders
+     *
+     * @param name Class name
+     *
+     * @return Class or null if this module does not have it
+     */
+    Class<?> findModuleClass(String name) {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> result = findLoadedClass(name);
+
+            if (result == null) {
+                result = findOwnClass(name);
+            }
+
+            return result;
+        }
+    }
+
+    private Class<?> findOwnClass(String name) {
+        try {
+            return findClass(name);
+        } catch (ClassNotFoundException ignored) {
+            return null;
+        }
+    }
+
+    private static String getPackageName(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot == -1 ? "" : className.substring(0, lastDot);
     }
 }
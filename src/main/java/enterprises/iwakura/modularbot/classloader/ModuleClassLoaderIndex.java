@@ -0,0 +1,120 @@
+package enterprises.iwakura.modularbot.classloader;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of {@link ModuleClassLoader}s by the packages their jar files contain. Used to resolve classes of other modules
+ * with a single map lookup instead of probing every module's class loader. Also holds bounded negative-lookup cache of
+ * class names that could not be resolved by any other module.
+ */
+public final class ModuleClassLoaderIndex {
+
+    /**
+     * Maximum amount of cached missing class names, the cache is cleared when it is reached
+     */
+    static final int MAX_MISSING_CLASS_NAMES = 10_000;
+
+    private final Map<String, List<ModuleClassLoader>> classLoadersByPackage = new ConcurrentHashMap<>();
+    private final Set<String> missingClassNames = ConcurrentHashMap.newKeySet();
+    private final Set<ModuleClassLoader> classLoaders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registers specified class loader into the index
+     *
+     * @param classLoader Non-null {@link ModuleClassLoader}
+     */
+    public void register(@NonNull ModuleClassLoader classLoader) {
+        if (!classLoaders.add(classLoader)) {
+            return;
+        }
+
+        for (String packageName : classLoader.getPackageNames()) {
+            classLoadersByPackage.compute(packageName, (key, registered) -> {
+                List<ModuleClassLoader> updated = new ArrayList<>(registered == null ? 1 : registered.size() + 1);
+
+                if (registered != null) {
+                    updated.addAll(registered);
+                }
+
+                updated.add(classLoader);
+                return List.copyOf(updated);
+            });
+        }
+
+        // Newly registered class loader may provide previously missing classes
+        missingClassNames.clear();
+    }
+
+    /**
+     * Unregisters specified class loader from the index
+     *
+     * @param classLoader Non-null {@link ModuleClassLoader}
+     */
+    public void unregister(@NonNull ModuleClassLoader classLoader) {
+        if (!classLoaders.remove(classLoader)) {
+            return;
+        }
+
+        for (String packageName : classLoader.getPackageNames()) {
+            classLoadersByPackage.computeIfPresent(packageName, (key, registered) -> {
+                List<ModuleClassLoader> updated = registered.stream().filter(registeredClassLoader -> registeredClassLoader != classLoader).toList();
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+
+        missingClassNames.clear();
+    }
+
+    /**
+     * Returns class loaders whose jar files contain specified package
+     *
+     * @param packageName Non-null package name
+     *
+     * @return Immutable list of {@link ModuleClassLoader}s, empty if none
+     */
+    public List<ModuleClassLoader> getClassLoaders(@NonNull String packageName) {
+        return classLoadersByPackage.getOrDefault(packageName, List.of());
+    }
+
+    /**
+     * Determines if specified class loader is registered
+     *
+     * @param classLoader Non-null {@link ModuleClassLoader}
+     *
+     * @return True if registered
+     */
+    public boolean isRegistered(@NonNull ModuleClassLoader classLoader) {
+        return classLoaders.contains(classLoader);
+    }
+
+    /**
+     * Determines if specified class name is known to be unresolvable by other modules' class loaders
+     *
+     * @param className Non-null class name
+     *
+     * @return True if the class could not be resolved before
+     */
+    public boolean isMissing(@NonNull String className) {
+        return missingClassNames.contains(className);
+    }
+
+    /**
+     * Marks specified class name as unresolvable by other modules' class loaders
+     *
+     * @param className Non-null class name
+     */
+    public void markMissing(@NonNull String className) {
+        // Bounded, so probing of many unique names (e.g., generated proxy names) does not grow the cache forever
+        if (missingClassNames.size() >= MAX_MISSING_CLASS_NAMES) {
+            missingClassNames.clear();
+        }
+
+        missingClassNames.add(className);
+    }
+}
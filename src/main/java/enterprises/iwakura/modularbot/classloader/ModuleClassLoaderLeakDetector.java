@@ -0,0 +1,127 @@
+package enterprises.iwakura.modularbot.classloader;
+
+import enterprises.iwakura.modularbot.metrics.ModularBotMetrics;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks {@link ModuleClassLoader}s of unloaded modules with weak references and reports whenever they were garbage
+ * collected. A class loader that stays reachable long after its module was unloaded keeps all of its classes in the
+ * metaspace - usually because some object of the module is still referenced from the core or other modules.
+ */
+@Bean
+@Slf4j
+public final class ModuleClassLoaderLeakDetector {
+
+    private final ReferenceQueue<ModuleClassLoader> referenceQueue = new ReferenceQueue<>();
+    private final Map<Reference<? extends ModuleClassLoader>, UnloadedClassLoader> unloadedClassLoaders = new ConcurrentHashMap<>();
+    private final AtomicLong trackedCount = new AtomicLong();
+    private final AtomicLong collectedCount = new AtomicLong();
+
+    /**
+     * Creates new {@link ModuleClassLoaderLeakDetector} and registers its metrics
+     *
+     * @param modularBotMetrics Non-null {@link ModularBotMetrics}
+     */
+    public ModuleClassLoaderLeakDetector(@NonNull ModularBotMetrics modularBotMetrics) {
+        modularBotMetrics.registerGauge("classloaders.unloaded.tracked", trackedCount::get);
+        modularBotMetrics.registerGauge("classloaders.unloaded.collected", () -> {
+            poll();
+            return collectedCount.get();
+        });
+        modularBotMetrics.registerGauge("classloaders.unloaded.uncollected", () -> {
+            poll();
+            return unloadedClassLoaders.size();
+        });
+    }
+
+    /**
+     * Starts tracking specified class loader of an unloaded module
+     *
+     * @param moduleName  Non-null name of the unloaded module
+     * @param classLoader Non-null, already closed {@link ModuleClassLoader}
+     */
+    public void track(@NonNull String moduleName, @NonNull ModuleClassLoader classLoader) {
+        poll();
+
+        var reference = new WeakReference<>(classLoader, referenceQueue);
+        unloadedClassLoaders.put(reference, new UnloadedClassLoader(moduleName, classLoader.toString(), Instant.now()));
+        trackedCount.incrementAndGet();
+    }
+
+    /**
+     * Processes class loaders that were garbage collected since the last call
+     */
+    public void poll() {
+        Reference<? extends ModuleClassLoader> reference;
+
+        while ((reference = referenceQueue.poll()) != null) {
+            UnloadedClassLoader unloadedClassLoader = unloadedClassLoaders.remove(reference);
+
+            if (unloadedClassLoader != null) {
+                collectedCount.incrementAndGet();
+                log.debug("Class loader {} of module {} was garbage collected {}ms after unload",
+                        unloadedClassLoader.description(),
+                        unloadedClassLoader.moduleName(),
+                        Duration.between(unloadedClassLoader.unloadedAt(), Instant.now()).toMillis()
+                );
+            }
+        }
+    }
+
+    /**
+     * Returns class loaders of unloaded modules that were not garbage collected yet, oldest first
+     *
+     * @return List of {@link UnloadedClassLoader}
+     */
+    public List<UnloadedClassLoader> getUncollectedClassLoaders() {
+        poll();
+
+        List<UnloadedClassLoader> uncollected = new ArrayList<>(unloadedClassLoaders.values());
+        uncollected.sort(Comparator.comparing(UnloadedClassLoader::unloadedAt));
+        return uncollected;
+    }
+
+    /**
+     * Returns number of class loaders that were tracked so far
+     *
+     * @return Number of tracked class loaders
+     */
+    public long getTrackedCount() {
+        return trackedCount.get();
+    }
+
+    /**
+     * Returns number of tracked class loaders that were garbage collected
+     *
+     * @return Number of collected class loaders
+     */
+    public long getCollectedCount() {
+        poll();
+        return collectedCount.get();
+    }
+
+    /**
+     * Class loader of an unloaded module
+     *
+     * @param moduleName  Name of the module
+     * @param description Description of the class loader
+     * @param unloadedAt  When was the module unloaded
+     */
+    public record UnloadedClassLoader(String moduleName, String description, Instant unloadedAt) {
+
+    }
+}
@@ -0,0 +1,58 @@
+package enterprises.iwakura.modularbot.classloader;
+
+import lombok.NonNull;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class loader of library jars that are shared between multiple modules. It is the parent of {@link ModuleClassLoader}s,
+ * so classes of identical libraries are loaded only once instead of once per module.
+ */
+public final class SharedLibraryClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final Set<Path> libraries = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates new empty shared library class loader
+     *
+     * @param parent Parent {@link ClassLoader}
+     */
+    public SharedLibraryClassLoader(ClassLoader parent) {
+        super(new URL[0], parent);
+    }
+
+    /**
+     * Adds specified library jar into this class loader
+     *
+     * @param library Non-null {@link Path} to the library jar
+     *
+     * @throws MalformedURLException If the path could not be converted to URL
+     */
+    public synchronized void addLibrary(@NonNull Path library) throws MalformedURLException {
+        Path normalizedLibrary = library.toAbsolutePath().normalize();
+
+        if (!libraries.contains(normalizedLibrary)) {
+            addURL(normalizedLibrary.toUri().toURL());
+            libraries.add(normalizedLibrary);
+        }
+    }
+
+    /**
+     * Returns absolute, normalized paths to libraries in this class loader
+     *
+     * @return Unmodifiable set of {@link Path}s
+     */
+    public Set<Path> getLibraries() {
+        return Collections.unmodifiableSet(libraries);
+    }
+}
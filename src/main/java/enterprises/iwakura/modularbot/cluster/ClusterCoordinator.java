@@ -0,0 +1,501 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of Modular Bot cluster - several Modular Bot processes (nodes) running shards of the same bot. Nodes
+ * connect over TCP and exchange single-line JSON messages (see {@link ClusterMessages}).<br>
+ * The coordinator assigns each node a contiguous range of shards and rebalances the ranges when a node joins or leaves
+ * (disconnects or stops sending heartbeats). A shard is never assigned to a node while it may still run on another
+ * one - a node losing shards must acknowledge it stopped them first, and shards of a node that left are held back for
+ * twice the node timeout after its last heartbeat, since such node stops its shards on its own once it has not heard
+ * from the coordinator for the node timeout.<br>
+ * It also grants identifies, so at most one shard of each identify bucket (shard ID modulo max concurrency) identifies
+ * every {@value #IDENTIFY_DELAY_MILLIS}ms across the whole cluster.<br>
+ * Runs either inside a node (discord#cluster#hostCoordinator) or standalone ({@code coordinator} program argument).
+ */
+@Slf4j
+public final class ClusterCoordinator {
+
+    public static final long IDENTIFY_DELAY_MILLIS = 5000;
+
+    private final ModularBotConfig.Discord.Cluster clusterSettings;
+    private final int totalShards;
+
+    // Guarded by this, in order of registration
+    private final Map<String, NodeConnection> nodes = new LinkedHashMap<>();
+    private final Map<Integer, Fence> fencedShards = new HashMap<>();
+    private final Set<Integer> scheduledIdentifyBuckets = new HashSet<>();
+    private final IdentifyBuckets<NodeConnection> identifyBuckets;
+    private final CountDownLatch stopLatch = new CountDownLatch(1);
+
+    private ServerSocket serverSocket;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pendingRebalance;
+    private int assignmentVersion;
+    private int anonymousNodeCounter;
+
+    /**
+     * Creates new {@link ClusterCoordinator}
+     *
+     * @param clusterSettings Non-null cluster settings
+     * @param totalShards     Total amount of shards of the cluster
+     */
+    public ClusterCoordinator(@NonNull ModularBotConfig.Discord.Cluster clusterSettings, int totalShards) {
+        if (totalShards < 1) {
+            throw new IllegalArgumentException("Cluster requires discord#shardManager#totalShards to be set to a positive number, got " + totalShards);
+        }
+
+        this.clusterSettings = clusterSettings;
+        this.totalShards = totalShards;
+        this.identifyBuckets = new IdentifyBuckets<>(clusterSettings.getMaxConcurrency(), IDENTIFY_DELAY_MILLIS);
+    }
+
+    /**
+     * Runs standalone coordinator with settings from Modular Bot's config. Blocks until the JVM is terminated.
+     *
+     * @param modularBotConfig Non-null {@link ModularBotConfig}
+     */
+    public static void runStandalone(@NonNull ModularBotConfig modularBotConfig) {
+        var discordSettings = modularBotConfig.getDiscord();
+        ClusterCoordinator coordinator;
+
+        try {
+            coordinator = new ClusterCoordinator(discordSettings.getCluster(), discordSettings.getShardManager().getTotalShards());
+            coordinator.start();
+        } catch (IllegalArgumentException | IOException exception) {
+            log.error("Failed to start cluster coordinator!", exception);
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(coordinator::stop));
+
+        try {
+            coordinator.stopLatch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts listening for nodes
+     *
+     * @throws IOException If the coordinator could not bind to its host and port
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            log.warn("Cluster coordinator is already running.");
+            return;
+        }
+
+        serverSocket = new ServerSocket(clusterSettings.getCoordinatorPort(), 50, InetAddress.getByName(clusterSettings.getCoordinatorHost()));
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cluster-coordinator-scheduler").daemon().factory());
+
+        long timeoutCheckIntervalMillis = Math.max(1000, clusterSettings.getNodeTimeoutMillis() / 2);
+        scheduler.scheduleAtFixedRate(this::removeTimedOutNodes, timeoutCheckIntervalMillis, timeoutCheckIntervalMillis, TimeUnit.MILLISECONDS);
+
+        ServerSocket currentServerSocket = serverSocket;
+        Thread.ofPlatform().name("cluster-coordinator").daemon().start(() -> acceptNodes(currentServerSocket));
+
+        log.info("Cluster coordinator is listening on {}:{} ({} shards, max concurrency {})",
+                clusterSettings.getCoordinatorHost(),
+                clusterSettings.getCoordinatorPort(),
+                totalShards,
+                getMaxConcurrency()
+        );
+    }
+
+    /**
+     * Stops the coordinator and disconnects all nodes
+     */
+    public synchronized void stop() {
+        if (serverSocket == null) {
+            return;
+        }
+
+        log.info("Stopping cluster coordinator...");
+
+        try {
+            serverSocket.close();
+        } catch (IOException exception) {
+            log.error("Failed to close cluster coordinator's server socket!", exception);
+        }
+
+        serverSocket = null;
+        scheduler.shutdownNow();
+        nodes.values().forEach(NodeConnection::close);
+        nodes.clear();
+        fencedShards.clear();
+        identifyBuckets.clear();
+        scheduledIdentifyBuckets.clear();
+        stopLatch.countDown();
+    }
+
+    /**
+     * Returns shards assigned to connected nodes
+     *
+     * @return Map of node names and IDs of their shards, in order of registration
+     */
+    public synchronized Map<String, List<Integer>> getNodeShards() {
+        Map<String, List<Integer>> nodeShards = new LinkedHashMap<>();
+        nodes.forEach((name, node) -> nodeShards.put(name, node.shardIds));
+        return nodeShards;
+    }
+
+    private void acceptNodes(ServerSocket currentServerSocket) {
+        while (!currentServerSocket.isClosed()) {
+            try {
+                Socket socket = currentServerSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread.ofVirtual().name("cluster-coordinator-node").start(() -> handleNode(socket));
+            } catch (IOException exception) {
+                if (!currentServerSocket.isClosed()) {
+                    log.error("Failed to accept cluster node!", exception);
+                }
+            }
+        }
+    }
+
+    private void handleNode(Socket socket) {
+        NodeConnection node = null;
+
+        try (socket) {
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            var writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+            node = register(socket, writer, reader.readLine());
+
+            if (node == null) {
+                return;
+            }
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                JsonObject message = JsonParser.parseString(line).getAsJsonObject();
+                node.lastHeartbeatMillis = System.currentTimeMillis();
+
+                switch (message.get("type").getAsString()) {
+                    // Heartbeat time was already updated, the reply lets the node know the coordinator is reachable
+                    case ClusterMessages.TYPE_HEARTBEAT -> node.send(ClusterMessages.heartbeat());
+                    case ClusterMessages.TYPE_IDENTIFY -> requestIdentify(node, message.get("shardId").getAsInt());
+                    case ClusterMessages.TYPE_APPLIED -> applied(node, message.get("version").getAsInt());
+                    default -> log.warn("Cluster node {} sent unknown message: {}", node.name, line);
+                }
+            }
+        } catch (IOException | JsonParseException | IllegalStateException | NullPointerException exception) {
+            if (node != null && !node.closed) {
+                log.warn("Connection to cluster node {} failed: {}", node.name, exception.toString());
+            }
+        } finally {
+            if (node != null) {
+                removeNode(node, "disconnected");
+            }
+        }
+    }
+
+    private NodeConnection register(Socket socket, BufferedWriter writer, String line) {
+        if (line == null) {
+            return null;
+        }
+
+        JsonObject message = JsonParser.parseString(line).getAsJsonObject();
+
+        if (!ClusterMessages.TYPE_REGISTER.equals(message.get("type").getAsString())) {
+            new NodeConnection(null, socket, writer).send(ClusterMessages.error("Expected register message"));
+            return null;
+        }
+
+        String name = message.has("node") ? message.get("node").getAsString() : "";
+        int nodeTotalShards = message.get("totalShards").getAsInt();
+
+        if (nodeTotalShards != totalShards) {
+            new NodeConnection(name, socket, writer).send(ClusterMessages.error("Node has " + nodeTotalShards + " total shards configured, cluster has " + totalShards));
+            log.error("Rejected cluster node {} - it has {} total shards configured, cluster has {}", name, nodeTotalShards, totalShards);
+            return null;
+        }
+
+        synchronized (this) {
+            if (name.isBlank()) {
+                name = "node-" + (++anonymousNodeCounter);
+            }
+
+            if (nodes.containsKey(name)) {
+                new NodeConnection(name, socket, writer).send(ClusterMessages.error("Node with name " + name + " is already connected"));
+                log.error("Rejected cluster node {} - node with the same name is already connected", name);
+                return null;
+            }
+
+            NodeConnection node = new NodeConnection(name, socket, writer);
+
+            // Shards the node kept running while it was disconnected are tracked by the node again
+            String nodeName = name;
+            ClusterMessages.parseShardIds(message).stream().filter(shardId -> shardId >= 0 && shardId < totalShards).forEach(node.runningShardIds::add);
+            fencedShards.values().removeIf(fence -> fence.nodeName().equals(nodeName));
+
+            nodes.put(name, node);
+            log.info("Cluster node {} joined from {} ({} nodes)", name, socket.getRemoteSocketAddress(), nodes.size());
+            scheduleRebalance();
+            return node;
+        }
+    }
+
+    private synchronized void removeNode(NodeConnection node, String reason) {
+        node.close();
+
+        if (nodes.remove(node.name, node)) {
+            log.info("Cluster node {} left - {} ({} nodes)", node.name, reason, nodes.size());
+            fenceShards(node);
+            scheduleRebalance();
+        }
+    }
+
+    /**
+     * Holds back shards the node may still run until it surely stopped them - the node stops its shards once it has
+     * not heard from the coordinator for the node timeout
+     */
+    private void fenceShards(NodeConnection node) {
+        if (node.runningShardIds.isEmpty() || scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+
+        long untilMillis = node.lastHeartbeatMillis + 2 * clusterSettings.getNodeTimeoutMillis();
+        long delayMillis = Math.max(0, untilMillis - System.currentTimeMillis());
+        node.runningShardIds.forEach(shardId -> fencedShards.put(shardId, new Fence(node.name, untilMillis)));
+        log.info("Shards {} of cluster node {} will not be assigned to other nodes for {}ms", node.runningShardIds, node.name, delayMillis);
+        scheduler.schedule(this::distribute, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void applied(NodeConnection node, int version) {
+        // Acknowledgements of outdated assignments are ignored, the node will acknowledge the newest one later
+        if (version != node.assignmentVersion || nodes.get(node.name) != node) {
+            return;
+        }
+
+        node.runningShardIds.clear();
+        node.runningShardIds.addAll(node.shardIds);
+        distribute();
+    }
+
+    private synchronized void removeTimedOutNodes() {
+        long now = System.currentTimeMillis();
+
+        new ArrayList<>(nodes.values()).forEach(node -> {
+            if (now - node.lastHeartbeatMillis > clusterSettings.getNodeTimeoutMillis()) {
+                removeNode(node, "no heartbeat in " + clusterSettings.getNodeTimeoutMillis() + "ms");
+            }
+        });
+    }
+
+    /**
+     * Schedules rebalance, so nodes joining or leaving at the same time cause only one rebalance
+     */
+    private synchronized void scheduleRebalance() {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+
+        if (pendingRebalance != null) {
+            pendingRebalance.cancel(false);
+        }
+
+        pendingRebalance = scheduler.schedule(this::rebalance, clusterSettings.getRebalanceDelayMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Splits shards into contiguous ranges of (almost) equal size, one for each node in order of registration, and
+     * assigns them
+     */
+    private synchronized void rebalance() {
+        pendingRebalance = null;
+
+        if (nodes.isEmpty()) {
+            log.warn("No cluster nodes are connected, {} shards are not running.", totalShards);
+            return;
+        }
+
+        List<NodeConnection> nodeList = new ArrayList<>(nodes.values());
+        List<List<Integer>> ranges = ShardBalancer.split(totalShards, nodeList.size());
+
+        for (int index = 0; index < nodeList.size(); index++) {
+            nodeList.get(index).targetShardIds = ranges.get(index);
+        }
+
+        distribute();
+    }
+
+    /**
+     * Sends each node the part of its target range that is not running on any other node. Nodes losing shards get
+     * their reduced assignment right away, the shards are assigned to other nodes once the losing node acknowledges it
+     * stopped them.
+     */
+    private synchronized void distribute() {
+        if (serverSocket == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        fencedShards.values().removeIf(fence -> fence.untilMillis() <= now);
+
+        for (NodeConnection node : nodes.values()) {
+            Set<Integer> blockedShardIds = new HashSet<>();
+
+            fencedShards.forEach((shardId, fence) -> {
+                if (!fence.nodeName().equals(node.name)) {
+                    blockedShardIds.add(shardId);
+                }
+            });
+
+            nodes.values().forEach(otherNode -> {
+                if (otherNode != node) {
+                    blockedShardIds.addAll(otherNode.runningShardIds);
+                }
+            });
+
+            List<Integer> shardIds = ShardBalancer.getAssignableShards(node.targetShardIds, blockedShardIds);
+
+            if (node.assignmentVersion != 0 && shardIds.equals(node.shardIds)) {
+                continue;
+            }
+
+            if (shardIds.size() < node.targetShardIds.size()) {
+                log.info("Assigning {} shards to cluster node {}: {} ({} shards are waiting for other nodes to stop them)", shardIds.size(), node.name, shardIds, node.targetShardIds.size() - shardIds.size());
+            } else {
+                log.info("Assigning {} shards to cluster node {}: {}", shardIds.size(), node.name, shardIds);
+            }
+
+            node.shardIds = shardIds;
+            node.assignmentVersion = ++assignmentVersion;
+            node.runningShardIds.addAll(shardIds);
+            node.send(ClusterMessages.assign(new ShardAssignment(node.assignmentVersion, totalShards, shardIds)));
+        }
+    }
+
+    private synchronized void requestIdentify(NodeConnection node, int shardId) {
+        if (shardId < 0 || shardId >= totalShards) {
+            log.warn("Cluster node {} requested identify of invalid shard ID {}", node.name, shardId);
+            return;
+        }
+
+        int bucketId = identifyBuckets.add(node, shardId);
+
+        if (!scheduledIdentifyBuckets.contains(bucketId)) {
+            scheduleIdentify(bucketId);
+        }
+    }
+
+    private synchronized void scheduleIdentify(int bucketId) {
+        if (scheduler == null || scheduler.isShutdown()) {
+            return;
+        }
+
+        scheduledIdentifyBuckets.add(bucketId);
+        scheduler.schedule(() -> grantIdentify(bucketId), identifyBuckets.getDelayMillis(bucketId, System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void grantIdentify(int bucketId) {
+        scheduledIdentifyBuckets.remove(bucketId);
+
+        // Skips identifies of nodes that left in the meantime
+        var pendingIdentify = identifyBuckets.grant(bucketId, System.currentTimeMillis(), node -> nodes.get(node.name) == node);
+
+        if (pendingIdentify != null) {
+            pendingIdentify.requester().send(ClusterMessages.identify(pendingIdentify.shardId()));
+        }
+
+        if (identifyBuckets.hasPending(bucketId)) {
+            scheduleIdentify(bucketId);
+        }
+    }
+
+    private int getMaxConcurrency() {
+        return Math.max(1, clusterSettings.getMaxConcurrency());
+    }
+
+    /**
+     * Connection to a cluster node
+     */
+    private static final class NodeConnection {
+
+        private final String name;
+        private final Socket socket;
+        private final BufferedWriter writer;
+
+        private volatile long lastHeartbeatMillis = System.currentTimeMillis();
+        private volatile boolean closed;
+        private volatile List<Integer> shardIds = List.of();
+
+        // Guarded by the coordinator
+        private final Set<Integer> runningShardIds = new HashSet<>();
+        private List<Integer> targetShardIds = List.of();
+        private int assignmentVersion;
+
+        private NodeConnection(String name, Socket socket, BufferedWriter writer) {
+            this.name = name;
+            this.socket = socket;
+            this.writer = writer;
+        }
+
+        private synchronized void send(JsonObject message) {
+            if (closed) {
+                return;
+            }
+
+            try {
+                writer.write(message.toString());
+                writer.newLine();
+                writer.flush();
+            } catch (IOException exception) {
+                log.warn("Failed to send message to cluster node {}: {}", name, exception.toString());
+                close();
+            }
+        }
+
+        private void close() {
+            closed = true;
+
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * Shard of a node that left, which must not be assigned to other nodes until specified time
+     *
+     * @param nodeName    Name of the node that may still run the shard
+     * @param untilMillis Time until the shard is held back
+     */
+    private record Fence(String nodeName, long untilMillis) {
+
+    }
+}
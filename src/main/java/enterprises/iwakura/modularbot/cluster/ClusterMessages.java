@@ -0,0 +1,107 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages of the cluster protocol. Every message is a single-line JSON object with a {@code type} property.
+ */
+final class ClusterMessages {
+
+    /**
+     * Node -> coordinator, first message of a connection ({@code node}, {@code totalShards}, {@code shardIds} the node
+     * is still running from before a reconnect)
+     */
+    static final String TYPE_REGISTER = "register";
+    /**
+     * Node -> coordinator, sent every discord#cluster#heartbeatIntervalMillis, coordinator -> node as its reply
+     */
+    static final String TYPE_HEARTBEAT = "heartbeat";
+    /**
+     * Node -> coordinator requests identify of a shard ({@code shardId}), coordinator -> node grants it
+     */
+    static final String TYPE_IDENTIFY = "identify";
+    /**
+     * Coordinator -> node, shards the node should run ({@code version}, {@code totalShards}, {@code shardIds})
+     */
+    static final String TYPE_ASSIGN = "assign";
+    /**
+     * Node -> coordinator, the node applied an assignment ({@code version}) - it stopped all shards that are not
+     * assigned to it anymore
+     */
+    static final String TYPE_APPLIED = "applied";
+    /**
+     * Coordinator -> node, the node was rejected ({@code message}), the connection is closed afterward
+     */
+    static final String TYPE_ERROR = "error";
+
+    private ClusterMessages() {
+    }
+
+    static JsonObject register(String nodeName, int totalShards, List<Integer> runningShardIds) {
+        JsonObject message = create(TYPE_REGISTER);
+        message.addProperty("node", nodeName);
+        message.addProperty("totalShards", totalShards);
+        message.add("shardIds", toJsonArray(runningShardIds));
+        return message;
+    }
+
+    static List<Integer> parseShardIds(JsonObject message) {
+        List<Integer> shardIds = new ArrayList<>();
+
+        if (message.has("shardIds")) {
+            message.getAsJsonArray("shardIds").forEach(shardId -> shardIds.add(shardId.getAsInt()));
+        }
+
+        return List.copyOf(shardIds);
+    }
+
+    static JsonObject heartbeat() {
+        return create(TYPE_HEARTBEAT);
+    }
+
+    static JsonObject identify(int shardId) {
+        JsonObject message = create(TYPE_IDENTIFY);
+        message.addProperty("shardId", shardId);
+        return message;
+    }
+
+    static JsonObject assign(ShardAssignment assignment) {
+        JsonObject message = create(TYPE_ASSIGN);
+        message.addProperty("version", assignment.version());
+        message.addProperty("totalShards", assignment.totalShards());
+        message.add("shardIds", toJsonArray(assignment.shardIds()));
+        return message;
+    }
+
+    static ShardAssignment parseAssignment(JsonObject message) {
+        return new ShardAssignment(message.get("version").getAsInt(), message.get("totalShards").getAsInt(), parseShardIds(message));
+    }
+
+    static JsonObject applied(int version) {
+        JsonObject message = create(TYPE_APPLIED);
+        message.addProperty("version", version);
+        return message;
+    }
+
+    static JsonObject error(String errorMessage) {
+        JsonObject message = create(TYPE_ERROR);
+        message.addProperty("message", errorMessage);
+        return message;
+    }
+
+    private static JsonArray toJsonArray(List<Integer> shardIds) {
+        JsonArray array = new JsonArray();
+        shardIds.forEach(array::add);
+        return array;
+    }
+
+    private static JsonObject create(String type) {
+        JsonObject message = new JsonObject();
+        message.addProperty("type", type);
+        return message;
+    }
+}
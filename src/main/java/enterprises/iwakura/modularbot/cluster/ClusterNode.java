@@ -0,0 +1,343 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster node - connection of this Modular Bot process to the cluster coordinator. The node runs shards assigned to it
+ * by the coordinator and asks the coordinator for a permission before identifying a shard. When the connection is lost,
+ * the node keeps its shards running and reconnects. If it does not hear from the coordinator for the node timeout, it
+ * stops all its shards, since the coordinator may have assigned them to other nodes in the meantime.
+ */
+@Bean
+@Slf4j
+@RequiredArgsConstructor
+public final class ClusterNode {
+
+    private final ModularBotConfig modularBotConfig;
+
+    private final Map<Integer, CompletableFuture<Void>> pendingIdentifies = new ConcurrentHashMap<>();
+    private final CompletableFuture<ShardAssignment> firstAssignment = new CompletableFuture<>();
+    private final Object assignmentLock = new Object();
+
+    private volatile @Getter String nodeName;
+    private volatile @Getter ShardAssignment assignment;
+    private volatile @Getter boolean connected;
+    private volatile Runnable assignmentListener;
+    private volatile boolean stopped;
+    private volatile long lastCoordinatorMessageMillis;
+
+    private @Getter ClusterCoordinator coordinator;
+    private ScheduledExecutorService scheduler;
+    private Socket socket;
+    private BufferedWriter writer;
+
+    /**
+     * Determines if the cluster mode is enabled
+     *
+     * @return True if discord#cluster#enabled is true
+     */
+    public boolean isEnabled() {
+        return modularBotConfig.getDiscord().getCluster().isEnabled();
+    }
+
+    /**
+     * Joins the cluster - starts the coordinator if this node hosts it, connects to the coordinator and waits until it
+     * assigns shards to this node
+     *
+     * @return First {@link ShardAssignment} of this node
+     *
+     * @throws InterruptedException If interrupted while waiting for the assignment
+     */
+    public ShardAssignment join() throws InterruptedException {
+        var discordSettings = modularBotConfig.getDiscord();
+        var clusterSettings = discordSettings.getCluster();
+
+        if (clusterSettings.isHostCoordinator()) {
+            startCoordinator(clusterSettings, discordSettings.getShardManager().getTotalShards());
+        }
+
+        nodeName = clusterSettings.getNodeName().isBlank() ? createNodeName() : clusterSettings.getNodeName();
+        int totalShards = discordSettings.getShardManager().getTotalShards();
+
+        synchronized (this) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("cluster-node-heartbeat").daemon().factory());
+            scheduler.scheduleAtFixedRate(() -> {
+                send(ClusterMessages.heartbeat());
+                checkCoordinatorTimeout(clusterSettings.getNodeTimeoutMillis());
+            }, clusterSettings.getHeartbeatIntervalMillis(), clusterSettings.getHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        Thread.ofPlatform().name("cluster-node").daemon().start(() -> maintainConnection(clusterSettings, totalShards));
+
+        log.info("Joining cluster as node {}, waiting for shard assignment from coordinator {}:{}...", nodeName, clusterSettings.getCoordinatorHost(), clusterSettings.getCoordinatorPort());
+
+        try {
+            return firstAssignment.get();
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Failed to receive shard assignment", exception.getCause());
+        }
+    }
+
+    /**
+     * Leaves the cluster - disconnects from the coordinator and stops the coordinator if this node hosts it
+     */
+    public void leave() {
+        stopped = true;
+        firstAssignment.cancel(false);
+        pendingIdentifies.values().forEach(future -> future.cancel(false));
+        pendingIdentifies.clear();
+
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+
+            closeSocket();
+        }
+
+        if (coordinator != null) {
+            coordinator.stop();
+        }
+    }
+
+    /**
+     * Sets listener invoked whenever the coordinator changes this node's assignment. The listener is invoked immediately
+     * if the node already has an assignment, so it does not miss assignments received before it was set. The
+     * coordinator is notified the assignment was applied once the listener returns, so the listener must stop shards
+     * that are not assigned anymore before returning.
+     *
+     * @param listener Non-null listener, should read the current assignment using {@link #getAssignment()}
+     */
+    public void setAssignmentListener(@NonNull Runnable listener) {
+        synchronized (assignmentLock) {
+            assignmentListener = listener;
+            ShardAssignment currentAssignment = assignment;
+
+            if (currentAssignment != null) {
+                listener.run();
+                send(ClusterMessages.applied(currentAssignment.version()));
+            }
+        }
+    }
+
+    /**
+     * Waits until the coordinator allows specified shard to identify
+     *
+     * @param shardId Shard ID
+     *
+     * @throws InterruptedException  If interrupted while waiting
+     * @throws CancellationException If the node left the cluster while waiting
+     */
+    public void acquireIdentify(int shardId) throws InterruptedException {
+        CompletableFuture<Void> future = pendingIdentifies.computeIfAbsent(shardId, key -> new CompletableFuture<>());
+
+        // If not connected, the request is sent after reconnecting
+        send(ClusterMessages.identify(shardId));
+
+        try {
+            future.get();
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Failed to acquire identify of shard " + shardId, exception.getCause());
+        }
+    }
+
+    private void startCoordinator(ModularBotConfig.Discord.Cluster clusterSettings, int totalShards) {
+        try {
+            coordinator = new ClusterCoordinator(clusterSettings, totalShards);
+            coordinator.start();
+        } catch (BindException exception) {
+            log.info("Cluster coordinator is already running on port {}, connecting to it.", clusterSettings.getCoordinatorPort());
+            coordinator = null;
+        } catch (IOException exception) {
+            log.error("Failed to start cluster coordinator, connecting to an existing one.", exception);
+            coordinator = null;
+        }
+    }
+
+    private void maintainConnection(ModularBotConfig.Discord.Cluster clusterSettings, int totalShards) {
+        while (!stopped) {
+            try (Socket newSocket = new Socket()) {
+                newSocket.connect(new InetSocketAddress(clusterSettings.getCoordinatorHost(), clusterSettings.getCoordinatorPort()), 5000);
+                newSocket.setTcpNoDelay(true);
+                var reader = new BufferedReader(new InputStreamReader(newSocket.getInputStream(), StandardCharsets.UTF_8));
+
+                synchronized (this) {
+                    socket = newSocket;
+                    writer = new BufferedWriter(new OutputStreamWriter(newSocket.getOutputStream(), StandardCharsets.UTF_8));
+                }
+
+                lastCoordinatorMessageMillis = System.currentTimeMillis();
+                ShardAssignment currentAssignment = assignment;
+                send(ClusterMessages.register(nodeName, totalShards, currentAssignment != null ? currentAssignment.shardIds() : List.of()));
+                pendingIdentifies.keySet().forEach(shardId -> send(ClusterMessages.identify(shardId)));
+                connected = true;
+                log.info("Connected to cluster coordinator {}:{}", clusterSettings.getCoordinatorHost(), clusterSettings.getCoordinatorPort());
+
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    lastCoordinatorMessageMillis = System.currentTimeMillis();
+                    handleMessage(JsonParser.parseString(line).getAsJsonObject());
+                }
+            } catch (IOException | JsonParseException | IllegalStateException exception) {
+                if (!stopped) {
+                    log.warn("Connection to cluster coordinator failed: {}", exception.toString());
+                }
+            } finally {
+                connected = false;
+
+                synchronized (this) {
+                    closeSocket();
+                }
+            }
+
+            if (!stopped) {
+                log.info("Reconnecting to cluster coordinator in {}ms...", clusterSettings.getHeartbeatIntervalMillis());
+
+                try {
+                    Thread.sleep(clusterSettings.getHeartbeatIntervalMillis());
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handleMessage(JsonObject message) {
+        switch (message.get("type").getAsString()) {
+            case ClusterMessages.TYPE_HEARTBEAT -> {
+                // Time of the last message was already updated
+            }
+            case ClusterMessages.TYPE_ASSIGN -> {
+                ShardAssignment newAssignment = ClusterMessages.parseAssignment(message);
+                log.info("Cluster coordinator assigned {} shards to this node: {}", newAssignment.shardIds().size(), newAssignment.shardIds());
+                applyAssignment(newAssignment);
+            }
+            case ClusterMessages.TYPE_IDENTIFY -> {
+                CompletableFuture<Void> future = pendingIdentifies.remove(message.get("shardId").getAsInt());
+
+                if (future != null) {
+                    future.complete(null);
+                }
+            }
+            case ClusterMessages.TYPE_ERROR -> log.error("Cluster coordinator rejected this node: {}", message.get("message").getAsString());
+            default -> log.warn("Cluster coordinator sent unknown message: {}", message);
+        }
+    }
+
+    /**
+     * Applies specified assignment and acknowledges it to the coordinator. Assignment received before the listener is
+     * set is acknowledged once the listener applies it, except for the first one, as no shards are running yet.
+     */
+    private void applyAssignment(ShardAssignment newAssignment) {
+        synchronized (assignmentLock) {
+            assignment = newAssignment;
+
+            if (firstAssignment.complete(newAssignment)) {
+                send(ClusterMessages.applied(newAssignment.version()));
+                return;
+            }
+
+            Runnable listener = assignmentListener;
+
+            if (listener != null) {
+                listener.run();
+                send(ClusterMessages.applied(newAssignment.version()));
+            }
+        }
+    }
+
+    /**
+     * Stops all shards of this node if the coordinator was not heard from for specified time, so they do not run twice
+     * after the coordinator assigns them to other nodes
+     */
+    private void checkCoordinatorTimeout(long nodeTimeoutMillis) {
+        synchronized (assignmentLock) {
+            ShardAssignment currentAssignment = assignment;
+
+            if (currentAssignment == null || currentAssignment.shardIds().isEmpty() || System.currentTimeMillis() - lastCoordinatorMessageMillis <= nodeTimeoutMillis) {
+                return;
+            }
+
+            log.warn("Cluster coordinator was not heard from in {}ms, stopping all {} shards of this node until it assigns them again", nodeTimeoutMillis, currentAssignment.shardIds().size());
+            assignment = new ShardAssignment(currentAssignment.version(), currentAssignment.totalShards(), List.of());
+            Runnable listener = assignmentListener;
+
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    private synchronized void send(JsonObject message) {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.write(message.toString());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException exception) {
+            log.warn("Failed to send message to cluster coordinator: {}", exception.toString());
+            closeSocket();
+        }
+    }
+
+    private void closeSocket() {
+        writer = null;
+
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+
+            socket = null;
+        }
+    }
+
+    private static String createNodeName() {
+        String hostName;
+
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException exception) {
+            hostName = "node";
+        }
+
+        return hostName + "-" + ProcessHandle.current().pid();
+    }
+}
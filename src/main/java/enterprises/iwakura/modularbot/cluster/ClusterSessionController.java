@@ -0,0 +1,58 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.utils.SessionControllerAdapter;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session controller of a cluster node. Instead of the local identify queue, every shard waits until the cluster
+ * coordinator grants its identify, so the identify rate limit is respected across all nodes. Shards of different
+ * identify buckets connect in parallel.
+ */
+@Slf4j
+public final class ClusterSessionController extends SessionControllerAdapter {
+
+    private final ClusterNode clusterNode;
+    private final Set<SessionConnectNode> removedSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates new {@link ClusterSessionController}
+     *
+     * @param clusterNode Non-null {@link ClusterNode}
+     */
+    public ClusterSessionController(@NonNull ClusterNode clusterNode) {
+        this.clusterNode = clusterNode;
+    }
+
+    @Override
+    public void appendSession(@NonNull SessionConnectNode node) {
+        removedSessions.remove(node);
+        int shardId = node.getShardInfo().getShardId();
+
+        Thread.ofVirtual().name("cluster-identify-" + shardId).start(() -> {
+            try {
+                clusterNode.acquireIdentify(shardId);
+
+                if (!removedSessions.remove(node)) {
+                    node.run(false);
+                }
+            } catch (CancellationException ignored) {
+                // Node left the cluster
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } catch (Exception exception) {
+                log.error("Failed to connect shard {}, appending it to the end of the queue", shardId, exception);
+                appendSession(node);
+            }
+        });
+    }
+
+    @Override
+    public void removeSession(@NonNull SessionConnectNode node) {
+        removedSessions.add(node);
+    }
+}
@@ -0,0 +1,134 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Predicate;
+
+/**
+ * Pure identify rate limiting logic of the {@link ClusterCoordinator}. Shards are split into identify buckets by their
+ * ID modulo max concurrency, each bucket grants at most one identify every identify delay. Not thread-safe.
+ *
+ * @param <T> Type of the identify requester
+ */
+final class IdentifyBuckets<T> {
+
+    private final int maxConcurrency;
+    private final long identifyDelayMillis;
+    private final Map<Integer, Bucket<T>> buckets = new HashMap<>();
+
+    /**
+     * Creates new {@link IdentifyBuckets}
+     *
+     * @param maxConcurrency      Max concurrency of the bot, values lower than 1 are treated as 1
+     * @param identifyDelayMillis Minimal delay between identifies of the same bucket
+     */
+    IdentifyBuckets(int maxConcurrency, long identifyDelayMillis) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.identifyDelayMillis = identifyDelayMillis;
+    }
+
+    /**
+     * Returns identify bucket of specified shard
+     *
+     * @param shardId Shard ID
+     *
+     * @return Bucket ID
+     */
+    int getBucketId(int shardId) {
+        return shardId % maxConcurrency;
+    }
+
+    /**
+     * Queues identify request of specified shard
+     *
+     * @param requester Non-null requester
+     * @param shardId   Shard ID
+     *
+     * @return Bucket ID of the shard
+     */
+    int add(T requester, int shardId) {
+        int bucketId = getBucketId(shardId);
+        buckets.computeIfAbsent(bucketId, key -> new Bucket<>()).queue.add(new PendingIdentify<>(requester, shardId));
+        return bucketId;
+    }
+
+    /**
+     * Returns time until specified bucket may grant next identify
+     *
+     * @param bucketId  Bucket ID
+     * @param nowMillis Current time
+     *
+     * @return Delay in milliseconds, zero if the bucket may grant right now
+     */
+    long getDelayMillis(int bucketId, long nowMillis) {
+        Bucket<T> bucket = buckets.get(bucketId);
+        return bucket == null ? 0 : Math.max(0, bucket.nextIdentifyMillis - nowMillis);
+    }
+
+    /**
+     * Grants identify of the first valid request of specified bucket. Invalid requests (e.g., of nodes that left) are
+     * discarded.
+     *
+     * @param bucketId  Bucket ID
+     * @param nowMillis Current time
+     * @param isValid   Non-null predicate determining if the requester is still valid
+     *
+     * @return Granted {@link PendingIdentify} or null if the bucket may not grant yet or has no valid requests
+     */
+    PendingIdentify<T> grant(int bucketId, long nowMillis, Predicate<T> isValid) {
+        Bucket<T> bucket = buckets.get(bucketId);
+
+        if (bucket == null || bucket.nextIdentifyMillis > nowMillis) {
+            return null;
+        }
+
+        PendingIdentify<T> pendingIdentify;
+
+        while ((pendingIdentify = bucket.queue.poll()) != null) {
+            if (isValid.test(pendingIdentify.requester())) {
+                bucket.nextIdentifyMillis = nowMillis + identifyDelayMillis;
+                return pendingIdentify;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines if specified bucket has queued requests
+     *
+     * @param bucketId Bucket ID
+     *
+     * @return True if there are queued requests
+     */
+    boolean hasPending(int bucketId) {
+        Bucket<T> bucket = buckets.get(bucketId);
+        return bucket != null && !bucket.queue.isEmpty();
+    }
+
+    /**
+     * Discards all queued requests and identify times
+     */
+    void clear() {
+        buckets.clear();
+    }
+
+    /**
+     * Queued identify request
+     *
+     * @param requester Requester
+     * @param shardId   Shard ID
+     * @param <T>       Type of the requester
+     */
+    record PendingIdentify<T>(T requester, int shardId) {
+
+    }
+
+    private static final class Bucket<T> {
+
+        private final Queue<PendingIdentify<T>> queue = new ArrayDeque<>();
+        private long nextIdentifyMillis;
+    }
+}
@@ -0,0 +1,14 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import java.util.List;
+
+/**
+ * Shards assigned to a cluster node by the coordinator
+ *
+ * @param version     Version of the assignment, increases with every assignment sent by the coordinator
+ * @param totalShards Total amount of shards of the whole cluster
+ * @param shardIds    Sorted IDs of shards the node should run
+ */
+public record ShardAssignment(int version, int totalShards, List<Integer> shardIds) {
+
+}
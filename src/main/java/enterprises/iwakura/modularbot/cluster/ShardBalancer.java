@@ -0,0 +1,61 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pure shard balancing logic of the {@link ClusterCoordinator}
+ */
+final class ShardBalancer {
+
+    private ShardBalancer() {
+    }
+
+    /**
+     * Splits shards into contiguous ranges of (almost) equal size. Earlier ranges get one extra shard if the shards
+     * cannot be split evenly.
+     *
+     * @param totalShards Total amount of shards
+     * @param nodeCount   Amount of nodes, must be positive
+     *
+     * @return List of immutable sorted shard ID lists, one for each node
+     */
+    static List<List<Integer>> split(int totalShards, int nodeCount) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("Node count must be positive, got " + nodeCount);
+        }
+
+        List<List<Integer>> ranges = new ArrayList<>(nodeCount);
+        int shardsPerNode = totalShards / nodeCount;
+        int remainingShards = totalShards % nodeCount;
+        int nextShardId = 0;
+
+        for (int index = 0; index < nodeCount; index++) {
+            int shardCount = shardsPerNode + (index < remainingShards ? 1 : 0);
+            List<Integer> shardIds = new ArrayList<>(shardCount);
+
+            for (int shardId = nextShardId; shardId < nextShardId + shardCount; shardId++) {
+                shardIds.add(shardId);
+            }
+
+            nextShardId += shardCount;
+            ranges.add(List.copyOf(shardIds));
+        }
+
+        return ranges;
+    }
+
+    /**
+     * Returns shards of the target range that may be started right now - shards that are not running on any other node
+     * (e.g., a node that has not yet acknowledged it stopped them or a disconnected node that may still run them)
+     *
+     * @param targetShardIds  Sorted shard IDs the node should eventually run
+     * @param blockedShardIds Shard IDs that may still run on other nodes
+     *
+     * @return Immutable sorted list of shard IDs
+     */
+    static List<Integer> getAssignableShards(List<Integer> targetShardIds, Collection<Integer> blockedShardIds) {
+        return targetShardIds.stream().filter(shardId -> !blockedShardIds.contains(shardId)).toList();
+    }
+}
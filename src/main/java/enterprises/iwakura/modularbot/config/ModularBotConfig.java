@@ -6,7 +6,10 @@ import enterprises.iwakura.jean.serializer.GsonSerializer;
 import enterprises.iwakura.sigewine.core.annotations.Bean;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.GatewayEncoding;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -57,6 +60,9 @@ public class ModularBotConfig extends Jean {
 
         private ShardManager shardManager = new ShardManager();
         private PresenceActivityCycle presenceActivityCycle = new PresenceActivityCycle();
+        private Cluster cluster = new Cluster();
+        private EventBus eventBus = new EventBus();
+        private CommandRegistration commandRegistration = new CommandRegistration();
 
         @Data
         public static final class ShardManager {
@@ -68,6 +74,92 @@ public class ModularBotConfig extends Jean {
             private List<Integer> shardIds = new LinkedList<>();
             private int minShardId = -1;
             private int maxShardId = -1;
+            private int loginConcurrency = 0;
+            private boolean eventMetrics = false;
+            private Cache cache = new Cache();
+            private Gateway gateway = new Gateway();
+            private Watchdog watchdog = new Watchdog();
+            private Threading threading = new Threading();
+
+            @Data
+            public static final class Watchdog {
+
+                private boolean enabled = false;
+                private long checkIntervalMillis = 10000;
+                private long maxDisconnectedMillis = 300000;
+                private long maxGatewayPingMillis = 10000;
+                private int gatewayPingStrikes = 3;
+                private long maxEventSilenceMillis = 300000;
+                private long initialBackoffMillis = 60000;
+                private long maxBackoffMillis = 1800000;
+            }
+
+            @Data
+            public static final class Gateway {
+
+                private Compression compression = Compression.ZLIB;
+                private GatewayEncoding encoding = GatewayEncoding.JSON;
+                private int maxBufferSize = 0;
+                private int largeThreshold = 0;
+                private boolean recordPayloads = false;
+                private int recordedPayloadsPerShard = 1000;
+            }
+
+            @Data
+            public static final class Cache {
+
+                private List<CacheFlag> enabledCacheFlags = new LinkedList<>();
+                private List<CacheFlag> disabledCacheFlags = new LinkedList<>();
+                private List<MemberCachePolicyType> memberCachePolicies = new LinkedList<>();
+                private ChunkingFilterType chunkingFilter = ChunkingFilterType.BUILDER_DEFAULT;
+                private boolean mergeModuleRequirements = true;
+                private boolean enableRequiredIntents = true;
+
+                /**
+                 * Member cache policies, combined with OR
+                 */
+                public enum MemberCachePolicyType {
+                    NONE,
+                    ALL,
+                    OWNER,
+                    ONLINE,
+                    VOICE,
+                    BOOSTER,
+                    PENDING,
+                    DEFAULT
+                }
+
+                /**
+                 * Chunking filter - the builder's default, no guilds or all guilds
+                 */
+                public enum ChunkingFilterType {
+                    BUILDER_DEFAULT,
+                    NONE,
+                    ALL
+                }
+            }
+
+            @Data
+            public static final class Threading {
+
+                private ExecutorType eventPool = ExecutorType.DEFAULT;
+                private int eventPoolSize = 0;
+                private ExecutorType callbackPool = ExecutorType.DEFAULT;
+                private int callbackPoolSize = 0;
+                private ExecutorType rateLimitElastic = ExecutorType.DEFAULT;
+                private int rateLimitElasticSize = 0;
+                private int rateLimitSchedulerSize = 0;
+
+                /**
+                 * Type of executor - JDA's default, fixed pool of platform threads (size of zero uses the amount of
+                 * available processors) or a virtual thread per task
+                 */
+                public enum ExecutorType {
+                    DEFAULT,
+                    PLATFORM,
+                    VIRTUAL
+                }
+            }
         }
 
         @Data
@@ -75,6 +167,62 @@ public class ModularBotConfig extends Jean {
 
             private boolean enabled = true;
             private long cycleIntervalMillis = 10000;
+            private long shardTimeoutMillis = 5000;
+        }
+
+        @Data
+        public static final class EventBus {
+
+            private boolean enabled = false;
+            private int queueCapacity = 10000;
+            private int threadsPerModule = 1;
+            private boolean virtualThreads = true;
+            private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+            private long blockTimeoutMillis = 1000;
+            private GuildLanes guildLanes = new GuildLanes();
+
+            /**
+             * Lanes keyed by guild ID - events of the same guild are delivered to the module in order, events of
+             * different guilds in parallel. Zero threads means a virtual thread per lane turn when virtualThreads is
+             * enabled, otherwise the amount of available processors.
+             */
+            @Data
+            public static final class GuildLanes {
+
+                private boolean enabled = false;
+                private int threads = 0;
+            }
+
+            /**
+             * What happens with an event when module's queue is full - the event is dropped, the oldest queued event is
+             * dropped or the JDA's event thread waits up to blockTimeoutMillis and then drops the event. BLOCK applies
+             * backpressure to the whole bot, since the event thread is shared by all modules and the core listeners.
+             */
+            public enum OverflowPolicy {
+                DROP_NEWEST,
+                DROP_OLDEST,
+                BLOCK
+            }
+        }
+
+        @Data
+        public static final class CommandRegistration {
+
+            private boolean enabled = false;
+        }
+
+        @Data
+        public static final class Cluster {
+
+            private boolean enabled = false;
+            private boolean hostCoordinator = false;
+            private String coordinatorHost = "127.0.0.1";
+            private int coordinatorPort = 7625;
+            private String nodeName = "";
+            private int maxConcurrency = 1;
+            private long heartbeatIntervalMillis = 5000;
+            private long nodeTimeoutMillis = 15000;
+            private long rebalanceDelayMillis = 3000;
         }
     }
 
@@ -84,6 +232,12 @@ public class ModularBotConfig extends Jean {
         private List<String> moduleDirectories = new ArrayList<>(List.of("./modules"));
         private int amberDownloaderThreads = 64;
         private boolean overrideModuleDependenciesLibraryDirectory = true;
+        private boolean sharedLibraryStore = false;
+        private boolean sharedLibraryClassLoader = false;
         private boolean crashOnModuleLoadFailure = true;
+        private int moduleLoadingThreads = 0;
+        private boolean useStartupCache = true;
+        private boolean watchModuleDirectories = false;
+        private long watchDebounceMillis = 2000;
     }
 }
@@ -2,8 +2,17 @@ package enterprises.iwakura.modularbot.console;
 
 import enterprises.iwakura.modularbot.ModularBot;
 import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.classloader.ModuleClassLoaderLeakDetector;
+import enterprises.iwakura.modularbot.cluster.ClusterNode;
 import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.metrics.ModularBotEventMetrics;
+import enterprises.iwakura.modularbot.metrics.ModularBotMetrics;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
 import enterprises.iwakura.modularbot.objects.ModuleInfo;
+import enterprises.iwakura.modularbot.sharding.GatewayDecodeBenchmark;
+import enterprises.iwakura.modularbot.sharding.GatewayPayloadRecorder;
+import enterprises.iwakura.modularbot.sharding.ShardLoginProgress;
+import enterprises.iwakura.modularbot.sharding.ShardWatchdog;
 import enterprises.iwakura.ganyu.GanyuCommand;
 import enterprises.iwakura.ganyu.annotation.*;
 import enterprises.iwakura.sigewine.core.annotations.Bean;
@@ -14,7 +23,12 @@ import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.sharding.ShardManager;
 import org.apache.logging.log4j.Level;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 @Bean
 @RequiredArgsConstructor
@@ -24,6 +38,13 @@ import java.util.List;
 @Syntax("")
 public final class ModularConsoleCommand implements GanyuCommand {
 
+    private final ModularBotMetrics modularBotMetrics;
+    private final ModuleClassLoaderLeakDetector moduleClassLoaderLeakDetector;
+    private final ModularBotTimings modularBotTimings;
+    private final ClusterNode clusterNode;
+    private final ModularBotEventMetrics modularBotEventMetrics;
+    private final ShardWatchdog shardWatchdog;
+
     @Bean
     private final BeanAccessor<ModularBot> modularBotAccessor = new BeanAccessor<>(ModularBot.class);
 
@@ -31,18 +52,221 @@ public final class ModularConsoleCommand implements GanyuCommand {
     @Description("Shows all modules")
     public void showAllModules() {
         ModuleManager moduleManager = modularBotAccessor.getBeanInstance().getModuleManager();
-        List<Module> modules = moduleManager.getModules();
+        List<Module> modules = moduleManager.getModulesSnapshot();
 
         log.info("== Modules - {} ==", modules.size());
         modules.forEach(module -> {
             ModuleInfo moduleInfo = module.getModuleInfo();
 
-            log.info("- {} @ {} (by {}) [{}]", moduleInfo.getName(), moduleInfo.getVersion(), moduleInfo.getAuthor(), module.getModuleStatus());
+            log.info("- {} @ {} (by {}) [{}{}]", moduleInfo.getName(), moduleInfo.getVersion(), moduleInfo.getAuthor(), module.getModuleStatus(), moduleManager.isDormant(module) ? ", dormant" : "");
         });
 
         log.info("Listing modules done.");
     }
 
+    @SubCommand("enable")
+    @Description("Enables dormant lazy module, along with modules it depends on")
+    @Syntax("<name>")
+    public void enableModule(
+            @Description("Name of the module to enable") String name
+    ) {
+        ModuleManager moduleManager = modularBotAccessor.getBeanInstance().getModuleManager();
+        var optionalModule = moduleManager.getModuleByName(name);
+
+        if (optionalModule.isEmpty()) {
+            log.warn("Module {} is not loaded.", name);
+            return;
+        }
+
+        if (!moduleManager.isDormant(optionalModule.get())) {
+            log.warn("Module {} is not a dormant lazy module.", name);
+            return;
+        }
+
+        if (moduleManager.activateLazyModule(optionalModule.get())) {
+            log.info("Module {} enabled successfully.", name);
+        } else {
+            log.error("Failed to enable module {}, see the log above.", name);
+        }
+    }
+
+    @SubCommand("reload")
+    @Description("Reloads module from its jar file, along with modules depending on it")
+    @Syntax("<name>")
+    public void reloadModule(
+            @Description("Name of the module to reload") String name
+    ) {
+        ModuleManager moduleManager = modularBotAccessor.getBeanInstance().getModuleManager();
+
+        if (moduleManager.getModuleByName(name).isEmpty()) {
+            log.warn("Module {} is not loaded.", name);
+            return;
+        }
+
+        if (moduleManager.reloadModule(name)) {
+            log.info("Module {} reloaded successfully.", name);
+        } else {
+            log.error("Failed to reload module {}, see the log above.", name);
+        }
+    }
+
+    @SubCommand("classloaders")
+    @Description("Shows class loaders of unloaded modules that were not garbage collected yet")
+    @Syntax("[gc]")
+    public void showClassLoaders(
+            @OptionalArg @Description("Whenever should request garbage collection before checking the class loaders") Boolean gc
+    ) {
+        if (Boolean.TRUE.equals(gc)) {
+            log.info("Requesting garbage collection...");
+            System.gc();
+        }
+
+        var uncollectedClassLoaders = moduleClassLoaderLeakDetector.getUncollectedClassLoaders();
+
+        log.info("== Unloaded class loaders ==");
+        log.info("Tracked: {}, collected: {}, uncollected: {}",
+                moduleClassLoaderLeakDetector.getTrackedCount(),
+                moduleClassLoaderLeakDetector.getCollectedCount(),
+                uncollectedClassLoaders.size()
+        );
+
+        uncollectedClassLoaders.forEach(unloadedClassLoader -> {
+            log.warn("- {} ({}) unloaded {}s ago",
+                    unloadedClassLoader.moduleName(),
+                    unloadedClassLoader.description(),
+                    Duration.between(unloadedClassLoader.unloadedAt(), Instant.now()).toSeconds()
+            );
+        });
+    }
+
+    @SubCommand("metrics")
+    @Description("Shows Modular Bot's metrics")
+    public void showMetrics() {
+        var values = modularBotMetrics.getValues();
+
+        log.info("== Metrics - {} ==", values.size());
+        values.forEach((name, value) -> log.info("{} = {}", name, value));
+    }
+
+    @SubCommand("timings")
+    @Description("Shows timings of startup phases and modules' lifecycle steps")
+    @Syntax("[json]")
+    public void showTimings(
+            @OptionalArg @Description("Whenever should print the timings as JSON") Boolean json
+    ) {
+        if (Boolean.TRUE.equals(json)) {
+            log.info(modularBotTimings.toJson());
+            return;
+        }
+
+        var timings = modularBotTimings.getTimings();
+
+        log.info("== Timings - {} (startup took {}ms) ==", timings.size(), modularBotTimings.getStartupMillis());
+        log.info("! [start] category/subject/step -> duration (thread)");
+        timings.forEach(timing -> {
+            log.info("[{}ms] {}/{}/{} -> {}ms ({})",
+                    String.format("%.1f", timing.startMicros() / 1000.0),
+                    timing.category(),
+                    timing.subject() != null ? timing.subject() : "-",
+                    timing.step(),
+                    String.format("%.2f", timing.durationMicros() / 1000.0),
+                    timing.thread()
+            );
+        });
+    }
+
+    @SubCommand("events")
+    @Description("Shows how long modules' event listeners handle events, per module and event")
+    @Syntax("[reset]")
+    public void showEvents(
+            @OptionalArg @Description("Whenever should reset the metrics and start a new interval after showing them") Boolean reset
+    ) {
+        var snapshots = modularBotEventMetrics.getSnapshots();
+
+        log.info("== Events - {} (interval {}s) ==", snapshots.size(), TimeUnit.NANOSECONDS.toSeconds(modularBotEventMetrics.getIntervalNanos()));
+        log.info("! module/event -> count (events/s, errors) avg / p50 / p99 / max");
+        snapshots.forEach(snapshot -> {
+            log.info("{}/{} -> {} ({}/s, {} errors) {}ms / {}ms / {}ms / {}ms",
+                    snapshot.moduleName(),
+                    snapshot.eventName(),
+                    snapshot.count(),
+                    String.format("%.1f", snapshot.eventsPerSecond()),
+                    snapshot.errors(),
+                    String.format("%.3f", snapshot.averageNanos() / 1_000_000.0),
+                    String.format("%.3f", snapshot.p50Nanos() / 1_000_000.0),
+                    String.format("%.3f", snapshot.p99Nanos() / 1_000_000.0),
+                    String.format("%.3f", snapshot.maxNanos() / 1_000_000.0)
+            );
+        });
+
+        if (Boolean.TRUE.equals(reset)) {
+            modularBotEventMetrics.reset();
+            log.info("Event metrics were reset, new interval started.");
+        }
+    }
+
+    @SubCommand("lanes")
+    @Description("Shows the deepest guild lanes of modules' event dispatchers")
+    @Syntax("[limit]")
+    public void showGuildLanes(
+            @OptionalArg @Description("Maximum amount of shown lanes per module, defaults to 10") Integer limit
+    ) {
+        List<Module> modules = modularBotAccessor.getBeanInstance().getModuleManager().getModulesSnapshot();
+
+        log.info("== Guild Lanes ==");
+        log.info("! module -> [guild ID] queued events");
+        modules.forEach(module -> {
+            var deepestLanes = module.getModuleEventListeners().getDeepestGuildLanes(limit != null ? limit : 10);
+
+            deepestLanes.forEach(laneDepth -> log.info("{} -> [{}] {}", module.getModuleInfo().getName(), laneDepth.laneKey(), laneDepth.depth()));
+        });
+    }
+
+    @SubCommand("benchmark")
+    @Description("Measures gateway payload decode throughput of each shard for each encoding and compression, using recorded payloads")
+    @Syntax("[iterations]")
+    public void benchmarkGatewayDecoding(
+            @OptionalArg @Description("How many times should the recorded payloads be decoded (defaults to 10)") Integer iterations
+    ) {
+        GatewayPayloadRecorder gatewayPayloadRecorder = modularBotAccessor.getBeanInstance().getModularBotShardManager().getGatewayPayloadRecorder();
+
+        if (gatewayPayloadRecorder == null) {
+            log.warn("Gateway payloads are not recorded, enable discord#shardManager#gateway#recordPayloads and restart Modular Bot.");
+            return;
+        }
+
+        var payloads = gatewayPayloadRecorder.getPayloads();
+
+        if (payloads.isEmpty()) {
+            log.warn("No gateway payloads were recorded yet.");
+            return;
+        }
+
+        log.info("Running gateway decode benchmark on {} shards...", payloads.size());
+        List<GatewayDecodeBenchmark.Result> results;
+
+        try {
+            results = GatewayDecodeBenchmark.run(payloads, iterations != null ? iterations : 10);
+        } catch (Exception exception) {
+            log.error("Gateway decode benchmark failed!", exception);
+            return;
+        }
+
+        log.info("== Gateway Decode Benchmark - {} results ==", results.size());
+        log.info("! [shard] encoding/compression -> payloads/s, MB/s (payloads, time)");
+        results.forEach(result -> {
+            log.info("[{}] {}/{} -> {}/s, {} MB/s ({} payloads, {}ms)",
+                    result.shardId(),
+                    result.encoding(),
+                    result.compression(),
+                    String.format("%.0f", result.payloadsPerSecond()),
+                    String.format("%.2f", result.megabytesPerSecond()),
+                    result.payloads(),
+                    TimeUnit.NANOSECONDS.toMillis(result.nanos())
+            );
+        });
+    }
+
     @SubCommand("shards")
     @Description("Shows information about shards")
     @Syntax("[verbose]")
@@ -51,8 +275,25 @@ public final class ModularConsoleCommand implements GanyuCommand {
     ) {
         ShardManager shardManager = modularBotAccessor.getBeanInstance().getModularBotShardManager().get();
 
+        ShardLoginProgress shardLoginProgress = modularBotAccessor.getBeanInstance().getModularBotShardManager().getShardLoginProgress();
+        int localShardCount = shardLoginProgress.getLocalShardCount();
+        long connectedShardCount = shardLoginProgress.count(ShardLoginProgress.ShardLoginState.CONNECTED);
+
         log.info("== Shard Info ==");
         log.info("Total shards: {}", shardManager.getShardsTotal());
+        log.info("Login: {}/{} local shards connected ({}%), {} identifying, {} queued, {} reconnecting",
+                connectedShardCount,
+                localShardCount,
+                localShardCount != 0 ? connectedShardCount * 100 / localShardCount : 0,
+                shardLoginProgress.count(ShardLoginProgress.ShardLoginState.IDENTIFYING),
+                shardLoginProgress.count(ShardLoginProgress.ShardLoginState.QUEUED),
+                shardLoginProgress.count(ShardLoginProgress.ShardLoginState.RECONNECTING)
+        );
+        log.info("Readiness: {} ({}ms), identify concurrency {}",
+                shardLoginProgress.getReadiness().isDone() ? "all local shards connected" : "in progress",
+                shardLoginProgress.getElapsed().toMillis(),
+                shardLoginProgress.getConcurrency()
+        );
 
         if (!Boolean.TRUE.equals(verbose)) {
             return;
@@ -60,6 +301,18 @@ public final class ModularConsoleCommand implements GanyuCommand {
 
         log.info("Running shards: {}", shardManager.getShardsRunning());
 
+        Map<Integer, Integer> connectedPerBucket = new TreeMap<>();
+        Map<Integer, Integer> totalPerBucket = new TreeMap<>();
+        shardLoginProgress.getStates().forEach((shardId, state) -> {
+            int bucket = shardId % shardLoginProgress.getConcurrency();
+            totalPerBucket.merge(bucket, 1, Integer::sum);
+            connectedPerBucket.merge(bucket, state == ShardLoginProgress.ShardLoginState.CONNECTED ? 1 : 0, Integer::sum);
+        });
+
+        log.info("");
+        log.info("! Identify bucket -> connected/total");
+        totalPerBucket.forEach((bucket, total) -> log.info("Bucket {} -> {}/{}", bucket, connectedPerBucket.get(bucket), total));
+
         log.info("");
         log.info("! [ID] -> Status (x guilds, y users)");
         log.info("");
@@ -80,4 +333,60 @@ public final class ModularConsoleCommand implements GanyuCommand {
             );
         });
     }
+
+    @SubCommand("cluster")
+    @Description("Shows information about the cluster")
+    public void showCluster() {
+        if (!clusterNode.isEnabled()) {
+            log.info("Cluster mode is disabled.");
+            return;
+        }
+
+        var assignment = clusterNode.getAssignment();
+
+        log.info("== Cluster Info ==");
+        log.info("Node: {} ({})", clusterNode.getNodeName(), clusterNode.isConnected() ? "connected to coordinator" : "not connected to coordinator");
+        log.info("Assigned shards: {}", assignment != null ? assignment.shardIds() : "none");
+
+        var coordinator = clusterNode.getCoordinator();
+
+        if (coordinator == null) {
+            return;
+        }
+
+        var nodeShards = coordinator.getNodeShards();
+
+        log.info("");
+        log.info("This node hosts the coordinator, connected nodes - {}", nodeShards.size());
+        log.info("! name -> shards");
+        nodeShards.forEach((name, shardIds) -> log.info("{} -> {}", name, shardIds));
+    }
+
+    @SubCommand("watchdog")
+    @Description("Shows health of local shards and restarts decided by the shard watchdog")
+    public void showWatchdog() {
+        log.info("== Shard Watchdog ==");
+        log.info("! [ID] -> Status (gateway ping, since last event, restarts, backoff left)");
+        log.info("");
+        shardWatchdog.getHealths().forEach((shardId, health) -> {
+            log.log(health.status() == JDA.Status.CONNECTED ? Level.INFO : Level.WARN, "[{}] -> {} ({}ms, {}ms, {}, {}ms)",
+                    shardId,
+                    health.status(),
+                    health.gatewayPingMillis(),
+                    health.millisSinceEvent(),
+                    health.restarts(),
+                    health.millisUntilRestart()
+            );
+        });
+
+        List<ShardWatchdog.Decision> decisions = shardWatchdog.getDecisions();
+
+        if (decisions.isEmpty()) {
+            return;
+        }
+
+        log.info("");
+        log.info("! Latest restarts: time -> [ID] reason (backoff)");
+        decisions.forEach(decision -> log.info("{} -> [{}] {} ({}ms)", decision.time(), decision.shardId(), decision.reason(), decision.backoffMillis()));
+    }
 }
@@ -0,0 +1,251 @@
+package enterprises.iwakura.modularbot.events;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.automod.AutoModExecutionEvent;
+import net.dv8tion.jda.api.events.automod.GenericAutoModRuleEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.emoji.GenericEmojiEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.api.events.guild.scheduledevent.GenericScheduledEventGatewayEvent;
+import net.dv8tion.jda.api.events.interaction.GenericInteractionCreateEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.role.GenericRoleEvent;
+import net.dv8tion.jda.api.events.thread.GenericThreadEvent;
+import net.dv8tion.jda.api.events.user.UserTypingEvent;
+import net.dv8tion.jda.api.events.user.update.GenericUserPresenceEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor with lanes keyed by guild ID. Tasks of the same lane run one after another in the order they were submitted,
+ * tasks of different lanes run in parallel on the underlying executor. A lane exists only while it has queued tasks, so
+ * idle guilds cost nothing. The amount of queued tasks is bounded - submitting blocks while the executor is full.
+ */
+@Slf4j
+public final class GuildLaneExecutor {
+
+    /**
+     * Lane of events that do not belong to any guild, e.g., direct messages
+     */
+    public static final long NO_GUILD_LANE = 0;
+
+    /**
+     * How many tasks a lane runs before yielding the thread to other lanes
+     */
+    private static final int TASKS_PER_TURN = 32;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxQueuedTasks;
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    /**
+     * Creates new {@link GuildLaneExecutor}
+     *
+     * @param executor       Non-null {@link ExecutorService} running the lanes, shut down with this executor
+     * @param maxQueuedTasks Maximum amount of queued tasks of all lanes
+     */
+    public GuildLaneExecutor(@NonNull ExecutorService executor, int maxQueuedTasks) {
+        this.executor = executor;
+        this.maxQueuedTasks = Math.max(1, maxQueuedTasks);
+        this.permits = new Semaphore(this.maxQueuedTasks);
+    }
+
+    /**
+     * Returns ID of the guild specified event belongs to
+     *
+     * @param event Non-null event
+     *
+     * @return Guild ID or {@link #NO_GUILD_LANE} if the event does not belong to any guild
+     */
+    public static long getGuildId(@NonNull GenericEvent event) {
+        // Specific events go first, some of them may extend the generic ones
+        Guild guild = switch (event) {
+            case GenericScheduledEventGatewayEvent scheduledEvent -> scheduledEvent.getScheduledEvent().getGuild();
+            case GenericAutoModRuleEvent autoModRuleEvent -> autoModRuleEvent.getRule().getGuild();
+            case AutoModExecutionEvent autoModExecutionEvent -> autoModExecutionEvent.getGuild();
+            case GenericRoleEvent roleEvent -> roleEvent.getGuild();
+            case GenericEmojiEvent emojiEvent -> emojiEvent.getGuild();
+            case GenericThreadEvent threadEvent -> threadEvent.getGuild();
+            case GenericUserPresenceEvent presenceEvent -> presenceEvent.getGuild();
+            case UserTypingEvent typingEvent -> typingEvent.getGuild();
+            case GenericGuildEvent guildEvent -> guildEvent.getGuild();
+            case GenericMessageEvent messageEvent -> messageEvent.isFromGuild() ? messageEvent.getGuild() : null;
+            case GenericChannelEvent channelEvent -> channelEvent.isFromGuild() ? channelEvent.getGuild() : null;
+            case GenericInteractionCreateEvent interactionEvent -> interactionEvent.getGuild();
+            default -> null;
+        };
+
+        return guild != null ? guild.getIdLong() : NO_GUILD_LANE;
+    }
+
+    /**
+     * Queues task into specified lane. Blocks while the amount of queued tasks is at its maximum.
+     *
+     * @param laneKey Lane key, e.g., guild ID
+     * @param task    Non-null task
+     *
+     * @throws InterruptedException       If interrupted while waiting for space
+     * @throws RejectedExecutionException If the executor was shut down
+     */
+    public void execute(long laneKey, @NonNull Runnable task) throws InterruptedException {
+        if (shutdown) {
+            throw new RejectedExecutionException("Guild lane executor was shut down");
+        }
+
+        permits.acquire();
+        boolean[] schedule = new boolean[1];
+
+        // Computing under the lane's key makes adding a task and removing an empty lane atomic, so a guild never has
+        // two lanes at once
+        Lane lane = lanes.compute(laneKey, (key, currentLane) -> {
+            Lane computedLane = currentLane != null ? currentLane : new Lane(key);
+            computedLane.tasks.add(task);
+
+            if (!computedLane.scheduled) {
+                computedLane.scheduled = true;
+                schedule[0] = true;
+            }
+
+            return computedLane;
+        });
+
+        if (schedule[0]) {
+            schedule(lane);
+        }
+    }
+
+    /**
+     * Stops running queued tasks. Tasks that are already running are interrupted.
+     */
+    public void shutdown() {
+        shutdown = true;
+        executor.shutdownNow();
+        lanes.clear();
+    }
+
+    /**
+     * Returns amount of lanes with queued or running tasks
+     *
+     * @return Lane count
+     */
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    /**
+     * Returns amount of queued tasks of all lanes, including running ones
+     *
+     * @return Task count
+     */
+    public int getQueuedTasks() {
+        return maxQueuedTasks - permits.availablePermits();
+    }
+
+    /**
+     * Returns depths of the deepest lanes
+     *
+     * @param limit Maximum amount of returned lanes
+     *
+     * @return List of {@link LaneDepth}, the deepest first
+     */
+    public List<LaneDepth> getDeepestLanes(int limit) {
+        List<LaneDepth> depths = new ArrayList<>();
+
+        lanes.forEach((key, lane) -> depths.add(new LaneDepth(key, lane.tasks.size())));
+
+        depths.sort(Comparator.comparingInt(LaneDepth::depth).reversed());
+        return depths.size() > limit ? depths.subList(0, limit) : depths;
+    }
+
+    private void schedule(Lane lane) {
+        try {
+            executor.execute(() -> run(lane));
+        } catch (RejectedExecutionException exception) {
+            if (!shutdown) {
+                log.error("Failed to schedule lane {}", lane.key, exception);
+            }
+        }
+    }
+
+    private void run(Lane lane) {
+        for (int index = 0; index < TASKS_PER_TURN && !shutdown; index++) {
+            Runnable task = lane.tasks.poll();
+
+            if (task == null) {
+                break;
+            }
+
+            try {
+                task.run();
+            } catch (Throwable throwable) {
+                log.error("Task of lane {} failed", lane.key, throwable);
+            } finally {
+                permits.release();
+            }
+        }
+
+        if (shutdown) {
+            return;
+        }
+
+        boolean[] reschedule = new boolean[1];
+
+        lanes.computeIfPresent(lane.key, (key, currentLane) -> {
+            if (currentLane != lane) {
+                return currentLane;
+            }
+
+            if (lane.tasks.isEmpty()) {
+                lane.scheduled = false;
+                return null;
+            }
+
+            reschedule[0] = true;
+            return lane;
+        });
+
+        // Lets other lanes run before continuing with the rest of this lane
+        if (reschedule[0]) {
+            schedule(lane);
+        }
+    }
+
+    /**
+     * Depth of a lane
+     *
+     * @param laneKey Lane key, e.g., guild ID
+     * @param depth   Amount of queued tasks
+     */
+    public record LaneDepth(long laneKey, int depth) {
+
+    }
+
+    /**
+     * Queued tasks of a lane. Tasks are added and the lane is removed under the lane map's lock of the lane key, while
+     * only the thread running the lane polls them. The scheduled flag is accessed under the same lock.
+     */
+    private static final class Lane {
+
+        private final long key;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private boolean scheduled;
+
+        private Lane(long key) {
+            this.key = key;
+        }
+    }
+}
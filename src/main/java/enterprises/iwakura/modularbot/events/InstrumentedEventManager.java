@@ -0,0 +1,40 @@
+package enterprises.iwakura.modularbot.events;
+
+import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.metrics.ModularBotEventMetrics;
+import lombok.NonNull;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+/**
+ * {@link LazyModuleEventManager} that measures how long each listener handles each event and records it, along with
+ * errors, into {@link ModularBotEventMetrics} under the module that loaded the listener's class.
+ */
+public final class InstrumentedEventManager extends LazyModuleEventManager {
+
+    private final ModularBotEventMetrics modularBotEventMetrics;
+
+    /**
+     * Creates new {@link InstrumentedEventManager}
+     *
+     * @param moduleManager          Non-null {@link ModuleManager}
+     * @param modularBotEventMetrics Non-null {@link ModularBotEventMetrics}
+     */
+    public InstrumentedEventManager(@NonNull ModuleManager moduleManager, @NonNull ModularBotEventMetrics modularBotEventMetrics) {
+        super(moduleManager);
+        this.modularBotEventMetrics = modularBotEventMetrics;
+    }
+
+    @Override
+    protected boolean dispatch(@NonNull EventListener listener, @NonNull GenericEvent event) {
+        long startNanos = System.nanoTime();
+        boolean handled = false;
+
+        try {
+            handled = super.dispatch(listener, event);
+            return handled;
+        } finally {
+            modularBotEventMetrics.record(modularBotEventMetrics.getModuleName(listener), event.getClass(), System.nanoTime() - startNanos, !handled);
+        }
+    }
+}
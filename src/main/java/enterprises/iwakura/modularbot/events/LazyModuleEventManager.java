@@ -0,0 +1,59 @@
+package enterprises.iwakura.modularbot.events;
+
+import enterprises.iwakura.modularbot.managers.ModuleManager;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.InterfacedEventManager;
+
+/**
+ * {@link InterfacedEventManager} that does not dispatch events to listeners of dormant lazy modules. Their listeners
+ * are registered with the shard manager like any other, but receive events only after the module is activated.
+ */
+@Slf4j
+public class LazyModuleEventManager extends InterfacedEventManager {
+
+    private final ModuleManager moduleManager;
+
+    /**
+     * Creates new {@link LazyModuleEventManager}
+     *
+     * @param moduleManager Non-null {@link ModuleManager}
+     */
+    public LazyModuleEventManager(@NonNull ModuleManager moduleManager) {
+        this.moduleManager = moduleManager;
+    }
+
+    @Override
+    public void handle(@NonNull GenericEvent event) {
+        for (Object listener : getRegisteredListeners()) {
+            if (!moduleManager.isListenerOfDormantModule(listener)) {
+                dispatch((EventListener) listener, event);
+            }
+        }
+    }
+
+    /**
+     * Dispatches specified event to specified listener
+     *
+     * @param listener Non-null listener
+     * @param event    Non-null event
+     *
+     * @return True if the listener handled the event, false if it threw an exception
+     */
+    protected boolean dispatch(@NonNull EventListener listener, @NonNull GenericEvent event) {
+        try {
+            listener.onEvent(event);
+            return true;
+        } catch (Throwable throwable) {
+            log.error("One of the EventListeners had an uncaught exception", throwable);
+
+            if (throwable instanceof Error error) {
+                throw error;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package enterprises.iwakura.modularbot.events;
+
+import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.metrics.ModularBotEventMetrics;
+import enterprises.iwakura.modularbot.metrics.ModularBotMetrics;
+import enterprises.iwakura.modularbot.objects.ModuleStatus;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+/**
+ * Core event bus - receives every JDA event once and fans it out to enabled modules. Each module has its own bounded
+ * queue and worker threads (see discord#eventBus), so a slow module only slows itself down. Modules register their
+ * listeners using {@link Module#getModuleEventListeners()}, e.g., in
+ * {@link Module#onEventListenerRegistration(ModuleEventListeners)}.
+ */
+@Bean
+@RequiredArgsConstructor
+public final class ModuleEventBus implements EventListener {
+
+    private final ModularBotConfig modularBotConfig;
+    private final ModuleManager moduleManager;
+    private final ModularBotMetrics modularBotMetrics;
+    private final ModularBotEventMetrics modularBotEventMetrics;
+
+    /**
+     * Determines if the event bus is enabled
+     *
+     * @return True if discord#eventBus#enabled is true
+     */
+    public boolean isEnabled() {
+        return modularBotConfig.getDiscord().getEventBus().isEnabled();
+    }
+
+    @Override
+    public void onEvent(@NonNull GenericEvent event) {
+        for (Module module : moduleManager.getModulesSnapshot()) {
+            ModuleEventListeners moduleEventListeners = module.getModuleEventListeners();
+
+            if (module.getModuleStatus() != ModuleStatus.ENABLED || moduleEventListeners.getListeners().isEmpty()) {
+                continue;
+            }
+
+            ModuleEventDispatcher dispatcher = moduleEventListeners.getOrCreateDispatcher(this::createDispatcher);
+
+            if (dispatcher != null) {
+                dispatcher.submit(event);
+            }
+        }
+    }
+
+    private ModuleEventDispatcher createDispatcher(ModuleEventListeners moduleEventListeners) {
+        var discordSettings = modularBotConfig.getDiscord();
+        return new ModuleEventDispatcher(moduleEventListeners, discordSettings.getEventBus(), modularBotMetrics, modularBotEventMetrics,
+                discordSettings.getShardManager().isEventMetrics());
+    }
+}
@@ -0,0 +1,230 @@
+package enterprises.iwakura.modularbot.events;
+
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.metrics.ModularBotEventMetrics;
+import enterprises.iwakura.modularbot.metrics.ModularBotMetrics;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatches events to listeners of a single module - bounded queue of events and the module's worker threads. When the
+ * queue is full, the overflow policy decides which event is dropped. With a single worker thread, events are delivered
+ * in the order they were received. With guild lanes enabled, a single worker routes events into a
+ * {@link GuildLaneExecutor}, so events of the same guild are delivered in order and different guilds in parallel.
+ */
+@Slf4j
+final class ModuleEventDispatcher {
+
+    private final ModuleEventListeners moduleEventListeners;
+    private final String moduleName;
+    private final ModularBotConfig.Discord.EventBus eventBusSettings;
+    private final ModularBotMetrics modularBotMetrics;
+    private final ModularBotEventMetrics modularBotEventMetrics;
+    private final boolean recordEventMetrics;
+    private final BlockingQueue<GenericEvent> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final GuildLaneExecutor guildLaneExecutor;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean shutdown;
+
+    ModuleEventDispatcher(ModuleEventListeners moduleEventListeners, ModularBotConfig.Discord.EventBus eventBusSettings, ModularBotMetrics modularBotMetrics,
+                          ModularBotEventMetrics modularBotEventMetrics, boolean recordEventMetrics) {
+        this.moduleEventListeners = moduleEventListeners;
+        this.moduleName = moduleEventListeners.getModule().getModuleInfo().getName();
+        this.eventBusSettings = eventBusSettings;
+        this.modularBotMetrics = modularBotMetrics;
+        this.modularBotEventMetrics = modularBotEventMetrics;
+        this.recordEventMetrics = recordEventMetrics;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, eventBusSettings.getQueueCapacity()));
+
+        var threadBuilder = eventBusSettings.isVirtualThreads()
+                ? Thread.ofVirtual().name("event-bus-" + moduleName + "-", 0)
+                : Thread.ofPlatform().name("event-bus-" + moduleName + "-", 0).daemon();
+        ClassLoader moduleClassLoader = moduleEventListeners.getModule().getClass().getClassLoader();
+        var guildLanesSettings = eventBusSettings.getGuildLanes();
+        int workerCount = Math.max(1, eventBusSettings.getThreadsPerModule());
+
+        if (guildLanesSettings.isEnabled()) {
+            guildLaneExecutor = new GuildLaneExecutor(createLaneExecutor(guildLanesSettings, moduleClassLoader), eventBusSettings.getQueueCapacity());
+            // More routing workers would reorder events before they reach their lanes
+            workerCount = 1;
+        } else {
+            guildLaneExecutor = null;
+        }
+
+        for (int index = 0; index < workerCount; index++) {
+            Thread worker = threadBuilder.unstarted(this::work);
+            worker.setContextClassLoader(moduleClassLoader);
+            workers.add(worker);
+            worker.start();
+        }
+
+        String metricPrefix = getMetricPrefix();
+        modularBotMetrics.registerGauge(metricPrefix + "queueDepth", queue::size);
+        modularBotMetrics.registerGauge(metricPrefix + "dispatched", dispatched::sum);
+        modularBotMetrics.registerGauge(metricPrefix + "dropped", dropped::sum);
+        modularBotMetrics.registerGauge(metricPrefix + "failed", failed::sum);
+
+        if (guildLaneExecutor != null) {
+            modularBotMetrics.registerGauge(metricPrefix + "lanes", guildLaneExecutor::getLaneCount);
+            modularBotMetrics.registerGauge(metricPrefix + "laneQueueDepth", guildLaneExecutor::getQueuedTasks);
+            modularBotMetrics.registerGauge(metricPrefix + "maxLaneDepth", () -> {
+                var deepestLanes = guildLaneExecutor.getDeepestLanes(1);
+                return deepestLanes.isEmpty() ? 0 : deepestLanes.getFirst().depth();
+            });
+        }
+    }
+
+    /**
+     * Enqueues event for the module's listeners. Applies the overflow policy if the queue is full.
+     *
+     * @param event Event
+     */
+    void submit(GenericEvent event) {
+        if (shutdown) {
+            return;
+        }
+
+        switch (eventBusSettings.getOverflowPolicy()) {
+            case DROP_NEWEST -> {
+                if (!queue.offer(event)) {
+                    onDropped();
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        onDropped();
+                    }
+                }
+            }
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(event, eventBusSettings.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                        onDropped();
+                    }
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    onDropped();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads and unregisters the metrics
+     */
+    void shutdown() {
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+        queue.clear();
+
+        if (guildLaneExecutor != null) {
+            guildLaneExecutor.shutdown();
+            modularBotMetrics.unregisterGauge(getMetricPrefix() + "lanes");
+            modularBotMetrics.unregisterGauge(getMetricPrefix() + "laneQueueDepth");
+            modularBotMetrics.unregisterGauge(getMetricPrefix() + "maxLaneDepth");
+        }
+
+        String metricPrefix = getMetricPrefix();
+        modularBotMetrics.unregisterGauge(metricPrefix + "queueDepth");
+        modularBotMetrics.unregisterGauge(metricPrefix + "dispatched");
+        modularBotMetrics.unregisterGauge(metricPrefix + "dropped");
+        modularBotMetrics.unregisterGauge(metricPrefix + "failed");
+    }
+
+    /**
+     * Returns the module's guild lane executor
+     *
+     * @return {@link GuildLaneExecutor} or null if guild lanes are disabled
+     */
+    GuildLaneExecutor getGuildLaneExecutor() {
+        return guildLaneExecutor;
+    }
+
+    private void work() {
+        while (!shutdown) {
+            GenericEvent event;
+
+            try {
+                event = queue.take();
+
+                if (guildLaneExecutor != null) {
+                    guildLaneExecutor.execute(GuildLaneExecutor.getGuildId(event), () -> deliver(event));
+                    continue;
+                }
+            } catch (InterruptedException | RejectedExecutionException exception) {
+                return;
+            }
+
+            deliver(event);
+        }
+    }
+
+    private void deliver(GenericEvent event) {
+        for (EventListener listener : moduleEventListeners.getListeners()) {
+            long startNanos = System.nanoTime();
+            boolean listenerFailed = false;
+
+            try {
+                listener.onEvent(event);
+            } catch (Throwable throwable) {
+                listenerFailed = true;
+                failed.increment();
+                log.error("Event listener {} of module {} failed to handle {}", listener.getClass().getName(), moduleName, event.getClass().getSimpleName(), throwable);
+            }
+
+            if (recordEventMetrics) {
+                modularBotEventMetrics.record(moduleName, event.getClass(), System.nanoTime() - startNanos, listenerFailed);
+            }
+        }
+
+        dispatched.increment();
+    }
+
+    private ExecutorService createLaneExecutor(ModularBotConfig.Discord.EventBus.GuildLanes guildLanesSettings, ClassLoader moduleClassLoader) {
+        var threadFactory = eventBusSettings.isVirtualThreads()
+                ? Thread.ofVirtual().name("guild-lane-" + moduleName + "-", 0).factory()
+                : Thread.ofPlatform().name("guild-lane-" + moduleName + "-", 0).daemon().factory();
+        ThreadFactory moduleThreadFactory = runnable -> {
+            Thread thread = threadFactory.newThread(runnable);
+            thread.setContextClassLoader(moduleClassLoader);
+            return thread;
+        };
+
+        if (eventBusSettings.isVirtualThreads() && guildLanesSettings.getThreads() <= 0) {
+            return Executors.newThreadPerTaskExecutor(moduleThreadFactory);
+        }
+
+        int threads = guildLanesSettings.getThreads() > 0 ? guildLanesSettings.getThreads() : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, moduleThreadFactory);
+    }
+
+    private void onDropped() {
+        dropped.increment();
+
+        // Logs only the first drop and then every 1000th, so a full queue does not flood the log
+        if (dropped.sum() % 1000 == 1) {
+            log.warn("Event queue of module {} is full ({} events), {} events were dropped so far", moduleName, queue.remainingCapacity() + queue.size(), dropped.sum());
+        }
+    }
+
+    private String getMetricPrefix() {
+        return "eventBus." + moduleName + ".";
+    }
+}
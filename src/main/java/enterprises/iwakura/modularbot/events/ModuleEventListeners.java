@@ -0,0 +1,139 @@
+package enterprises.iwakura.modularbot.events;
+
+import enterprises.iwakura.modularbot.base.Module;
+import lombok.NonNull;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Manages Module's event listeners registered to the {@link ModuleEventBus}. Events are delivered to them from the
+ * module's own bounded queue on the module's own threads, so a slow module does not delay other modules.
+ */
+public final class ModuleEventListeners {
+
+    private final Object lock = new Object();
+    private final Module module;
+    private volatile List<EventListener> listeners = List.of();
+    private volatile ModuleEventDispatcher dispatcher;
+    private volatile boolean closed;
+
+    /**
+     * Creates new {@link ModuleEventListeners}
+     *
+     * @param module Non-null {@link Module}
+     */
+    public ModuleEventListeners(@NonNull Module module) {
+        this.module = module;
+    }
+
+    /**
+     * Registers event listener, e.g., {@link net.dv8tion.jda.api.hooks.ListenerAdapter}
+     *
+     * @param listener Non-null {@link EventListener}
+     */
+    public void register(@NonNull EventListener listener) {
+        synchronized (lock) {
+            List<EventListener> newListeners = new ArrayList<>(listeners);
+            newListeners.add(listener);
+            listeners = List.copyOf(newListeners);
+        }
+    }
+
+    /**
+     * Unregisters event listener
+     *
+     * @param listener Non-null {@link EventListener}
+     *
+     * @return True if the listener was registered
+     */
+    public boolean unregister(@NonNull EventListener listener) {
+        synchronized (lock) {
+            List<EventListener> newListeners = listeners.stream().filter(registered -> registered != listener).toList();
+
+            if (newListeners.size() == listeners.size()) {
+                return false;
+            }
+
+            listeners = newListeners;
+            return true;
+        }
+    }
+
+    /**
+     * Returns unmodifiable snapshot of registered event listeners
+     *
+     * @return List of {@link EventListener}
+     */
+    public List<EventListener> getListeners() {
+        return listeners;
+    }
+
+    /**
+     * Returns depths of the module's deepest guild lanes
+     *
+     * @param limit Maximum amount of returned lanes
+     *
+     * @return List of {@link GuildLaneExecutor.LaneDepth}, empty if guild lanes are disabled or no events were
+     * dispatched to the module yet
+     */
+    public List<GuildLaneExecutor.LaneDepth> getDeepestGuildLanes(int limit) {
+        ModuleEventDispatcher currentDispatcher = dispatcher;
+
+        if (currentDispatcher == null || currentDispatcher.getGuildLaneExecutor() == null) {
+            return List.of();
+        }
+
+        return currentDispatcher.getGuildLaneExecutor().getDeepestLanes(limit);
+    }
+
+    /**
+     * Unregisters all event listeners and stops the module's event dispatcher. Events still in the module's queue are
+     * discarded. Called by Modular Bot after the module is disabled.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            listeners = List.of();
+
+            if (dispatcher != null) {
+                dispatcher.shutdown();
+                dispatcher = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the module
+     *
+     * @return {@link Module}
+     */
+    Module getModule() {
+        return module;
+    }
+
+    /**
+     * Returns the module's event dispatcher, creating it if it does not exist yet
+     *
+     * @param dispatcherFactory Creates new dispatcher
+     *
+     * @return {@link ModuleEventDispatcher} or null if the listeners were already closed
+     */
+    ModuleEventDispatcher getOrCreateDispatcher(Function<ModuleEventListeners, ModuleEventDispatcher> dispatcherFactory) {
+        ModuleEventDispatcher currentDispatcher = dispatcher;
+
+        if (currentDispatcher != null) {
+            return currentDispatcher;
+        }
+
+        synchronized (lock) {
+            if (dispatcher == null && !closed) {
+                dispatcher = dispatcherFactory.apply(this);
+            }
+
+            return dispatcher;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package enterprises.iwakura.modularbot.listeners;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.jagrosh.jdautilities.command.CommandClient;
+import com.jagrosh.jdautilities.command.ContextMenu;
+import com.jagrosh.jdautilities.command.SlashCommand;
+import enterprises.iwakura.modularbot.cache.CommandManifest;
+import enterprises.iwakura.modularbot.util.HashUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.events.session.SessionRecreateEvent;
+import net.dv8tion.jda.api.events.session.SessionResumeEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.interactions.commands.Command;
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.restaction.interactions.CommandListUpdateAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Registers application commands of the command client by diffing them against the {@link CommandManifest}, instead of
+ * upserting the whole command set on every start. Global commands are registered when shard 0 is ready (or its session
+ * is resumed or recreated), commands of the command client's forced guild when the shard with the guild is. Scopes are
+ * keyed by the application ID, so a manifest of one bot is never applied to another one. If the scope's hash matches
+ * the manifest, no request is made. Otherwise, only added and changed commands are upserted and removed commands are
+ * deleted. A scope missing from the manifest is overwritten with a single bulk request.
+ */
+@Slf4j
+public final class CommandRegistrationListener extends ListenerAdapter {
+
+    public static final String GLOBAL_SCOPE = "global";
+
+    private final CommandClient commandClient;
+    private final CommandManifest commandManifest;
+
+    /**
+     * Creates new {@link CommandRegistrationListener}
+     *
+     * @param commandClient   Non-null {@link CommandClient} with manual upsert enabled
+     * @param commandManifest Non-null loaded {@link CommandManifest}
+     */
+    public CommandRegistrationListener(@NonNull CommandClient commandClient, @NonNull CommandManifest commandManifest) {
+        this.commandClient = commandClient;
+        this.commandManifest = commandManifest;
+    }
+
+    @Override
+    public void onReady(@NonNull ReadyEvent event) {
+        startRegistration(event.getJDA());
+    }
+
+    @Override
+    public void onSessionResume(@NonNull SessionResumeEvent event) {
+        startRegistration(event.getJDA());
+    }
+
+    @Override
+    public void onSessionRecreate(@NonNull SessionRecreateEvent event) {
+        startRegistration(event.getJDA());
+    }
+
+    /**
+     * Registers commands again, e.g., after a module was reloaded. Does nothing if the shard responsible for the
+     * commands does not run in this process.
+     *
+     * @param shardManager Non-null {@link ShardManager}
+     */
+    public void refresh(@NonNull ShardManager shardManager) {
+        String forcedGuildId = commandClient.forcedGuildId();
+        JDA jda = forcedGuildId == null || forcedGuildId.isEmpty()
+                ? shardManager.getShardById(0)
+                : Optional.ofNullable(shardManager.getGuildById(forcedGuildId)).map(Guild::getJDA).orElse(null);
+
+        if (jda != null) {
+            startRegistration(jda);
+        }
+    }
+
+    private void startRegistration(JDA jda) {
+        String forcedGuildId = commandClient.forcedGuildId();
+        String applicationId = jda.getSelfUser().getApplicationId();
+        Scope scope;
+
+        if (forcedGuildId == null || forcedGuildId.isEmpty()) {
+            if (jda.getShardInfo().getShardId() != 0) {
+                return;
+            }
+
+            scope = new Scope(GLOBAL_SCOPE + ":" + applicationId, jda::updateCommands, jda::upsertCommand, jda::deleteCommandById);
+        } else {
+            Guild guild = jda.getGuildById(forcedGuildId);
+
+            if (guild == null) {
+                return;
+            }
+
+            scope = new Scope("guild:" + applicationId + ":" + forcedGuildId, guild::updateCommands, guild::upsertCommand, guild::deleteCommandById);
+        }
+
+        // Requests are completed one after another, which must not block the event thread
+        Thread.ofVirtual().name("command-registration-" + scope.name()).start(() -> register(scope));
+    }
+
+    private synchronized void register(Scope scope) {
+        Map<String, CommandData> commands = new TreeMap<>();
+        Map<String, String> commandHashes = new TreeMap<>();
+
+        commandClient.getSlashCommands().stream().map(SlashCommand::buildCommandData).forEach(data -> commands.put(key(data), data));
+        commandClient.getContextMenus().stream().map(ContextMenu::buildCommandData).forEach(data -> commands.put(key(data), data));
+        commands.forEach((key, data) -> commandHashes.put(key, hash(data)));
+
+        String scopeHash = HashUtils.sha256(commandHashes.toString());
+        CommandManifest.Scope storedScope = commandManifest.get(scope.name()).orElse(null);
+
+        if (storedScope != null && scopeHash.equals(storedScope.getHash())) {
+            log.info("Commands of scope {} are unchanged ({} commands), skipping registration", scope.name(), commands.size());
+            return;
+        }
+
+        CommandManifest.Scope newScope = new CommandManifest.Scope();
+        newScope.setHash(scopeHash);
+
+        try {
+            if (storedScope == null) {
+                log.info("Scope {} is not in the command manifest, overwriting its {} commands", scope.name(), commands.size());
+                List<Command> registeredCommands = scope.update().get().addCommands(commands.values()).complete();
+                registeredCommands.forEach(command -> newScope.getCommands().put(key(command.getType(), command.getName()), createEntry(command.getId(), commandHashes.get(key(command.getType(), command.getName())))));
+            } else {
+                CommandDiff commandDiff = diff(commandHashes, storedScope);
+
+                for (String unchangedKey : commandDiff.unchanged()) {
+                    newScope.getCommands().put(unchangedKey, storedScope.getCommands().get(unchangedKey));
+                }
+
+                for (String upsertedKey : commandDiff.upserted()) {
+                    Command command = scope.upsert().apply(commands.get(upsertedKey)).complete();
+                    newScope.getCommands().put(upsertedKey, createEntry(command.getId(), commandHashes.get(upsertedKey)));
+                }
+
+                for (String deletedKey : commandDiff.deleted()) {
+                    scope.delete().apply(storedScope.getCommands().get(deletedKey).getId()).complete();
+                }
+
+                log.info("Registered commands of scope {} - {} upserted, {} deleted, {} unchanged", scope.name(), commandDiff.upserted().size(), commandDiff.deleted().size(), commandDiff.unchanged().size());
+            }
+
+            commandManifest.put(scope.name(), newScope);
+        } catch (RuntimeException exception) {
+            log.error("Failed to register commands of scope {}, they will be overwritten at the next start", scope.name(), exception);
+            commandManifest.remove(scope.name());
+        }
+
+        commandManifest.save();
+    }
+
+    /**
+     * Diffs current commands against the stored scope
+     *
+     * @param commandHashes Non-null hashes of current commands by their keys
+     * @param storedScope   Non-null stored {@link CommandManifest.Scope}
+     *
+     * @return {@link CommandDiff} with sorted command keys
+     */
+    static CommandDiff diff(Map<String, String> commandHashes, CommandManifest.Scope storedScope) {
+        List<String> upserted = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+
+        new TreeMap<>(commandHashes).forEach((key, hash) -> {
+            CommandManifest.Command storedCommand = storedScope.getCommands().get(key);
+
+            if (storedCommand != null && hash.equals(storedCommand.getHash())) {
+                unchanged.add(key);
+            } else {
+                upserted.add(key);
+            }
+        });
+
+        List<String> deleted = storedScope.getCommands().keySet().stream()
+                .filter(key -> !commandHashes.containsKey(key))
+                .sorted()
+                .toList();
+
+        return new CommandDiff(List.copyOf(upserted), deleted, List.copyOf(unchanged));
+    }
+
+    private static CommandManifest.Command createEntry(String id, String hash) {
+        CommandManifest.Command entry = new CommandManifest.Command();
+        entry.setId(id);
+        entry.setHash(hash);
+        return entry;
+    }
+
+    private static String key(CommandData data) {
+        return key(data.getType(), data.getName());
+    }
+
+    private static String key(Command.Type type, String name) {
+        return type + ":" + name;
+    }
+
+    /**
+     * Hashes command data serialized as JSON with sorted object keys, so the hash does not depend on map ordering
+     */
+    private static String hash(CommandData data) {
+        return HashUtils.sha256(canonicalize(JsonParser.parseString(data.toData().toString())).toString());
+    }
+
+    private static JsonElement canonicalize(JsonElement element) {
+        if (element.isJsonObject()) {
+            JsonObject sortedObject = new JsonObject();
+            element.getAsJsonObject().entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> sortedObject.add(entry.getKey(), canonicalize(entry.getValue())));
+            return sortedObject;
+        }
+
+        if (element.isJsonArray()) {
+            JsonArray array = new JsonArray();
+            element.getAsJsonArray().forEach(value -> array.add(canonicalize(value)));
+            return array;
+        }
+
+        return element;
+    }
+
+    /**
+     * Result of diffing commands against the manifest
+     *
+     * @param upserted  Keys of added or changed commands
+     * @param deleted   Keys of removed commands
+     * @param unchanged Keys of unchanged commands
+     */
+    record CommandDiff(List<String> upserted, List<String> deleted, List<String> unchanged) {
+
+    }
+
+    /**
+     * Scope of commands - global or a guild
+     *
+     * @param name   Name of the scope in the manifest
+     * @param update Creates request overwriting all commands of the scope
+     * @param upsert Creates request upserting a command
+     * @param delete Creates request deleting a command by its ID
+     */
+    private record Scope(String name, Supplier<CommandListUpdateAction> update, Function<CommandData, RestAction<Command>> upsert,
+                         Function<String, RestAction<Void>> delete) {
+
+    }
+}
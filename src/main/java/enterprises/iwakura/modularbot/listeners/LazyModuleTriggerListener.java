@@ -0,0 +1,189 @@
+package enterprises.iwakura.modularbot.listeners;
+
+import com.jagrosh.jdautilities.command.Command;
+import com.jagrosh.jdautilities.command.CommandClient;
+import com.jagrosh.jdautilities.command.ContextMenu;
+import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.modularbot.objects.ModuleInfo;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.GenericCommandInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Activates dormant lazy modules when one of their triggers fires - a JDA event of the type listed in triggerEvents,
+ * a slash / prefix command listed in triggerCommands or any command the module registered into the command client. It
+ * is registered as the first event listener and blocks until the module is enabled, so the triggering event reaches
+ * the module's listeners and commands afterward.
+ */
+@Bean
+@Slf4j
+@RequiredArgsConstructor
+public final class LazyModuleTriggerListener implements EventListener {
+
+    /**
+     * Names of event classes, their superclasses and interfaces
+     */
+    private static final ClassValue<Set<String>> EVENT_TYPE_NAMES = new ClassValue<>() {
+        @Override
+        protected Set<String> computeValue(Class<?> type) {
+            Set<String> typeNames = new HashSet<>();
+            collectTypeNames(type, typeNames);
+            return Set.copyOf(typeNames);
+        }
+    };
+
+    private final ModuleManager moduleManager;
+
+    /**
+     * Command client whose prefixes are used to match prefix command triggers
+     */
+    private volatile @Setter CommandClient commandClient;
+
+    @Override
+    public void onEvent(@NonNull GenericEvent event) {
+        Set<Module> dormantModules = moduleManager.getDormantModules();
+
+        if (dormantModules.isEmpty()) {
+            return;
+        }
+
+        String commandName = getCommandName(event);
+
+        for (Module module : dormantModules.toArray(Module[]::new)) {
+            if (isTriggeredBy(module.getModuleInfo(), event, commandName) || isCommandOf(module, commandName)) {
+                log.info("Lazy module {} was triggered by {}", module.getModuleInfo().getName(), commandName != null ? "command " + commandName : event.getClass().getSimpleName());
+                moduleManager.activateLazyModule(module);
+            }
+        }
+    }
+
+    private boolean isTriggeredBy(ModuleInfo moduleInfo, GenericEvent event, String commandName) {
+        if (commandName != null) {
+            for (String triggerCommand : moduleInfo.getTriggerCommands()) {
+                if (triggerCommand.equalsIgnoreCase(commandName)) {
+                    return true;
+                }
+            }
+        }
+
+        if (moduleInfo.getTriggerEvents().length != 0) {
+            Set<String> eventTypeNames = EVENT_TYPE_NAMES.get(event.getClass());
+
+            for (String triggerEvent : moduleInfo.getTriggerEvents()) {
+                if (eventTypeNames.contains(triggerEvent)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whenever specified module registered the command with specified name into the command client
+     *
+     * @param module      Module
+     * @param commandName Name of the invoked command or null
+     *
+     * @return True if the command belongs to the module, false otherwise
+     */
+    private boolean isCommandOf(Module module, String commandName) {
+        CommandClient currentCommandClient = commandClient;
+
+        if (commandName == null || currentCommandClient == null) {
+            return false;
+        }
+
+        ClassLoader moduleClassLoader = module.getClass().getClassLoader();
+        Stream<Command> commands = Stream.concat(currentCommandClient.getCommands().stream(), currentCommandClient.getSlashCommands().stream());
+
+        boolean isCommand = commands.anyMatch(command -> command.getClass().getClassLoader() == moduleClassLoader && isNamed(command, commandName));
+
+        return isCommand || currentCommandClient.getContextMenus().stream()
+                .filter(contextMenu -> contextMenu.getClass().getClassLoader() == moduleClassLoader)
+                .map(ContextMenu::getName)
+                .anyMatch(commandName::equalsIgnoreCase);
+    }
+
+    private static boolean isNamed(Command command, String commandName) {
+        if (commandName.equalsIgnoreCase(command.getName())) {
+            return true;
+        }
+
+        for (String alias : command.getAliases()) {
+            if (commandName.equalsIgnoreCase(alias)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns name of the slash or prefix command invoked by specified event
+     *
+     * @param event Event
+     *
+     * @return Name of the command or null if the event does not invoke any command
+     */
+    private String getCommandName(GenericEvent event) {
+        if (event instanceof GenericCommandInteractionEvent commandInteractionEvent) {
+            return commandInteractionEvent.getName();
+        }
+
+        if (event instanceof CommandAutoCompleteInteractionEvent autoCompleteEvent) {
+            return autoCompleteEvent.getName();
+        }
+
+        CommandClient currentCommandClient = commandClient;
+
+        if (!(event instanceof MessageReceivedEvent messageReceivedEvent) || currentCommandClient == null || messageReceivedEvent.getAuthor().isBot()) {
+            return null;
+        }
+
+        String content = messageReceivedEvent.getMessage().getContentRaw();
+        String contentWithoutPrefix = stripPrefix(content, currentCommandClient.getPrefix());
+
+        if (contentWithoutPrefix == null) {
+            contentWithoutPrefix = stripPrefix(content, currentCommandClient.getAltPrefix());
+        }
+
+        if (contentWithoutPrefix == null || contentWithoutPrefix.isBlank()) {
+            return null;
+        }
+
+        return contentWithoutPrefix.trim().split("\\s+", 2)[0];
+    }
+
+    private static String stripPrefix(String content, String prefix) {
+        if (prefix == null || prefix.isEmpty() || !content.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return null;
+        }
+
+        return content.substring(prefix.length());
+    }
+
+    private static void collectTypeNames(Class<?> type, Set<String> typeNames) {
+        if (type == null || !typeNames.add(type.getName())) {
+            return;
+        }
+
+        collectTypeNames(type.getSuperclass(), typeNames);
+
+        for (Class<?> interfaceType : type.getInterfaces()) {
+            collectTypeNames(interfaceType, typeNames);
+        }
+    }
+}
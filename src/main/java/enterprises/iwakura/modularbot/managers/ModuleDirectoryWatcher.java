@@ -0,0 +1,144 @@
+package enterprises.iwakura.modularbot.managers;
+
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches module directories and hot reloads modules whose jar files were changed. New jar files are loaded and
+ * enabled. Changes of a file are debounced, so a jar that is still being copied is not loaded.
+ */
+@Bean
+@Slf4j
+@RequiredArgsConstructor
+public final class ModuleDirectoryWatcher {
+
+    private final ModularBotConfig modularBotConfig;
+    private final ModuleManager moduleManager;
+
+    private final Map<Path, ScheduledFuture<?>> pendingReloads = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private WatchService watchService;
+
+    /**
+     * Starts watching module directories if modules#watchModuleDirectories is enabled
+     */
+    public synchronized void start() {
+        if (!modularBotConfig.getModules().isWatchModuleDirectories()) {
+            log.debug("Module directory watcher is disabled, skipping.");
+            return;
+        }
+
+        if (watchService != null) {
+            log.warn("Module directory watcher is already running.");
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+
+            for (Path moduleDirectory : moduleManager.getModuleDirectories()) {
+                moduleDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                log.info("Watching module directory {} for changes", moduleDirectory);
+            }
+        } catch (IOException exception) {
+            log.error("Failed to start module directory watcher!", exception);
+            stop();
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("module-reloader").daemon().factory());
+        Thread.ofPlatform().name("module-directory-watcher").daemon().start(this::watch);
+    }
+
+    /**
+     * Stops watching module directories
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException exception) {
+                log.error("Failed to close module directory watcher!", exception);
+            }
+            watchService = null;
+        }
+    }
+
+    private void watch() {
+        WatchService currentWatchService = watchService;
+
+        try {
+            while (true) {
+                WatchKey watchKey = currentWatchService.take();
+                Path directory = (Path) watchKey.watchable();
+
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+
+                    Path moduleFile = directory.resolve((Path) event.context());
+
+                    if (moduleFile.getFileName().toString().endsWith(".jar")) {
+                        scheduleReload(moduleFile);
+                    }
+                }
+
+                if (!watchKey.reset()) {
+                    log.warn("Module directory {} is no longer accessible, it won't be watched anymore.", directory);
+                }
+            }
+        } catch (ClosedWatchServiceException ignored) {
+            // Stopped
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void scheduleReload(Path moduleFile) {
+        if (scheduler == null) {
+            return;
+        }
+
+        long debounceMillis = modularBotConfig.getModules().getWatchDebounceMillis();
+
+        pendingReloads.compute(moduleFile, (path, pendingReload) -> {
+            if (pendingReload != null) {
+                pendingReload.cancel(false);
+            }
+
+            return scheduler.schedule(() -> {
+                pendingReloads.remove(path);
+                log.info("Module file {} has changed, (re)loading...", path.getFileName());
+
+                try {
+                    moduleManager.loadOrReloadModuleFile(path);
+                } catch (Exception exception) {
+                    log.error("Failed to (re)load module file {}!", path.getFileName(), exception);
+                }
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+}
@@ -5,19 +5,32 @@ import com.jagrosh.jdautilities.command.CommandClientBuilder;
 import enterprises.iwakura.amber.Amber;
 import enterprises.iwakura.amber.BootstrapOptions;
 import enterprises.iwakura.ganyu.Ganyu;
+import enterprises.iwakura.modularbot.ModularBot;
+import enterprises.iwakura.modularbot.ModularBotShardManager;
 import enterprises.iwakura.modularbot.config.ModularBotConfig;
 import enterprises.iwakura.modularbot.ModularBotConstants;
 import enterprises.iwakura.modularbot.amber.ModuleAmberLogger;
+import enterprises.iwakura.modularbot.amber.SharedLibraryStore;
 import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.cache.DependencyLockfile;
+import enterprises.iwakura.modularbot.cache.ModuleStartupCache;
 import enterprises.iwakura.modularbot.classloader.ModuleClassLoader;
+import enterprises.iwakura.modularbot.classloader.ModuleClassLoaderIndex;
+import enterprises.iwakura.modularbot.classloader.ModuleClassLoaderLeakDetector;
+import enterprises.iwakura.modularbot.classloader.SharedLibraryClassLoader;
+import enterprises.iwakura.modularbot.metrics.ModularBotTimings;
+import enterprises.iwakura.modularbot.objects.ModuleDependencyGraph;
 import enterprises.iwakura.modularbot.objects.ModuleInfo;
 import enterprises.iwakura.modularbot.objects.ModuleStatus;
+import enterprises.iwakura.modularbot.objects.SigewineIndex;
 import enterprises.iwakura.modularbot.util.InputStreamUtils;
 import enterprises.iwakura.sigewine.core.Sigewine;
 import enterprises.iwakura.sigewine.core.annotations.Bean;
+import enterprises.iwakura.sigewine.core.utils.BeanAccessor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import org.apache.commons.collections4.ListUtils;
 
 import java.io.IOException;
@@ -27,6 +40,16 @@ import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.zip.ZipFile;
 
@@ -38,17 +61,54 @@ public final class ModuleManager {
 
     private final ModularBotConfig modularBotConfig;
     private final Sigewine sigewine;
-
-    private final List<ClassLoader> moduleClassLoaders = Collections.synchronizedList(new LinkedList<>());
-    private final List<Module> modules = Collections.synchronizedList(new LinkedList<>());
+    private final ModuleClassLoaderLeakDetector moduleClassLoaderLeakDetector;
+    private final ModularBotTimings modularBotTimings;
+
+    private final ModuleClassLoaderIndex moduleClassLoaderIndex = new ModuleClassLoaderIndex();
+    private final Map<Module, ModuleClassLoader> moduleClassLoaders = new ConcurrentHashMap<>();
+    private final ModuleRegistry moduleRegistry = new ModuleRegistry();
+    private final Object reloadLock = new Object();
+    private final Set<Module> dormantModules = ConcurrentHashMap.newKeySet();
+    private final Map<Module, CompletableFuture<Boolean>> lazyActivations = new ConcurrentHashMap<>();
+    private final Map<Path, Lock> amberBootstrapLocks = new ConcurrentHashMap<>();
+    private volatile ModuleStartupCache moduleStartupCache;
+    private volatile DependencyLockfile dependencyLockfile;
+    private volatile SharedLibraryStore sharedLibraryStore;
+    private volatile SharedLibraryClassLoader sharedLibraryClassLoader;
+
+    @Bean
+    private final BeanAccessor<ModularBot> modularBotAccessor = new BeanAccessor<>(ModularBot.class);
 
     /**
-     * Returns list of loaded modules in memory.
+     * Returns list of loaded modules in memory. The list is synchronized, iterating it requires synchronizing on it.
+     * Changes made directly to the list are not reflected by {@link #getModuleByName(String)}.
      *
      * @return List of modules
+     *
+     * @deprecated Use {@link #getModulesSnapshot()} for iteration or {@link #getModuleRegistry()} for lookups
      */
+    @Deprecated
     public List<Module> getModules() {
-        return modules;
+        return moduleRegistry.list();
+    }
+
+    /**
+     * Returns list of loaded modules in memory. The list is an immutable snapshot, it is safe to iterate it without
+     * any locking, and it won't reflect later changes.
+     *
+     * @return Immutable list of modules
+     */
+    public List<Module> getModulesSnapshot() {
+        return moduleRegistry.snapshot();
+    }
+
+    /**
+     * Returns {@link ModuleRegistry} holding the loaded modules
+     *
+     * @return {@link ModuleRegistry}
+     */
+    public ModuleRegistry getModuleRegistry() {
+        return moduleRegistry;
     }
 
     /**
@@ -59,43 +119,67 @@ public final class ModuleManager {
      * @return Optional of {@link Module}
      */
     public Optional<Module> getModuleByName(String name) {
-        return modules.stream().filter(module -> module.getModuleInfo().getName().equalsIgnoreCase(name)).findFirst();
+        return moduleRegistry.get(name);
     }
 
     /**
-     * Loads all modules from the modules directories.
+     * Returns existing module directories from the configuration, without duplicates
      *
-     * @return True if modules were loaded successfully, false otherwise.
+     * @return List of module directories
      */
-    public boolean loadModules() {
-        log.info("Loading modules...");
-
-        if (!modules.isEmpty()) {
-            log.warn("Some modules are loaded - unloading them...");
-            unloadModules();
-        }
-
-        List<Path> loadedModuleDirectories = new ArrayList<>();
+    public List<Path> getModuleDirectories() {
+        List<Path> moduleDirectories = new ArrayList<>();
         var directories = ListUtils.emptyIfNull(modularBotConfig.getModules().getModuleDirectories());
 
         for (String directory : directories) {
             Path moduleDirectoryPath = Path.of(directory);
 
             if (Files.exists(moduleDirectoryPath) && Files.isDirectory(moduleDirectoryPath)) {
-                if (loadedModuleDirectories.contains(moduleDirectoryPath)) {
+                if (moduleDirectories.contains(moduleDirectoryPath)) {
                     log.warn("Module directory {} is already loaded, skipping...", moduleDirectoryPath);
                     continue;
                 }
 
-                loadedModuleDirectories.add(moduleDirectoryPath);
+                moduleDirectories.add(moduleDirectoryPath);
             } else {
                 log.warn("Module directory {} does not exist or is not a directory, skipping...", moduleDirectoryPath);
             }
         }
 
+        return moduleDirectories;
+    }
+
+    /**
+     * Loads all modules from the modules directories.
+     *
+     * @return True if modules were loaded successfully, false otherwise.
+     */
+    public boolean loadModules() {
+        log.info("Loading modules...");
+
+        if (!moduleRegistry.isEmpty()) {
+            log.warn("Some modules are loaded - unloading them...");
+            unloadModules();
+        }
+
         List<Path> moduleFiles = new ArrayList<>();
 
-        for (Path moduleDirectory : loadedModuleDirectories) {
+        if (!listModuleFiles(moduleFiles)) {
+            return false;
+        }
+
+        return loadModuleFiles(moduleFiles, new ArrayList<>());
+    }
+
+    /**
+     * Lists module files (jar files) in the modules directories
+     *
+     * @param moduleFiles List to which the module files will be added
+     *
+     * @return True if the modules directories were listed successfully, false otherwise
+     */
+    private boolean listModuleFiles(List<Path> moduleFiles) {
+        for (Path moduleDirectory : getModuleDirectories()) {
             if (!Files.exists(moduleDirectory)) {
                 try {
                     Files.createDirectories(moduleDirectory);
@@ -120,261 +204,1222 @@ public final class ModuleManager {
             }
         }
 
-        for (Path moduleFile : moduleFiles) {
-            Optional<Module> optionalModule = loadModuleFile(moduleFile);
+        return true;
+    }
+
+    /**
+     * Resolves and downloads dependencies of all module files in the modules directories without loading the modules.
+     * Their startup data are stored into the module startup cache (even if modules#useStartupCache is disabled), so the
+     * next start does not have to resolve them.
+     *
+     * @param moduleDependencies Map to which module files and their resolved dependency jars will be put
+     *
+     * @return True if all module files were resolved successfully, false otherwise
+     */
+    public boolean resolveModuleDependencies(Map<Path, List<Path>> moduleDependencies) {
+        List<Path> moduleFiles = new ArrayList<>();
+
+        if (!listModuleFiles(moduleFiles)) {
+            return false;
+        }
+
+        if (moduleStartupCache == null) {
+            moduleStartupCache = new ModuleStartupCache(ModularBotConstants.PATH_FILE_MODULE_STARTUP_CACHE);
+            moduleStartupCache.load();
+        }
+
+        initializeSharedLibraryStore();
+
+        log.info("Resolving dependencies of {} module files...", moduleFiles.size());
+        List<ResolvedModuleFile> resolvedModuleFiles = new ArrayList<>();
+        int downloaderThreads = getAmberDownloaderThreads(moduleFiles.size());
+        boolean success = runConcurrently(moduleFiles, moduleFile -> resolveModuleFile(moduleFile, downloaderThreads), resolvedModuleFiles);
+
+        for (ResolvedModuleFile resolvedModuleFile : resolvedModuleFiles) {
+            if (resolvedModuleFile.packageNames() == null) {
+                try {
+                    cacheModuleStartupData(resolvedModuleFile);
+                } catch (IOException exception) {
+                    log.error("Failed to read jar files of module {}!", resolvedModuleFile.moduleInfo().getName(), exception);
+                    success = false;
+                    continue;
+                }
+            }
+
+            moduleDependencies.put(resolvedModuleFile.moduleFile(), resolvedModuleFile.dependencies());
+        }
+
+        moduleStartupCache.save();
+
+        if (sharedLibraryStore != null) {
+            sharedLibraryStore.save();
+        }
+
+        return success;
+    }
+
+    /**
+     * Prepares, registers and loads specified module files
+     *
+     * @param moduleFiles   Module files to load
+     * @param loadedModules List to which successfully loaded modules will be added, in dependency order
+     *
+     * @return True if all module files were loaded successfully, false otherwise
+     */
+    private boolean loadModuleFiles(List<Path> moduleFiles, List<Module> loadedModules) {
+        if (moduleStartupCache == null && modularBotConfig.getModules().isUseStartupCache()) {
+            moduleStartupCache = new ModuleStartupCache(ModularBotConstants.PATH_FILE_MODULE_STARTUP_CACHE);
+            moduleStartupCache.load();
+        }
+
+        List<PreparedModuleFile> preparedModuleFiles = new ArrayList<>();
+        boolean loadedAll = prepareModuleFiles(moduleFiles, preparedModuleFiles);
+
+        if (moduleStartupCache != null) {
+            moduleStartupCache.save();
+        }
+
+        if (!loadedAll && modularBotConfig.getModules().isCrashOnModuleLoadFailure()) {
+            closePreparedModuleFiles(preparedModuleFiles);
+            return false;
+        }
+
+        if (!rejectDuplicateModuleFiles(preparedModuleFiles)) {
+            if (modularBotConfig.getModules().isCrashOnModuleLoadFailure()) {
+                closePreparedModuleFiles(preparedModuleFiles);
+                return false;
+            }
+            loadedAll = false;
+        }
+
+        // Register modules in dependency order so their Sigewine beans and classes are available to dependent modules
+        List<PreparedModuleFile> order = ModuleDependencyGraph.of(preparedModuleFiles, PreparedModuleFile::moduleInfo).getOrder();
 
-            // Could not load module, error logged
+        for (int index = 0; index < order.size(); index++) {
+            Optional<Module> optionalModule = registerModuleFile(order.get(index));
+
+            // Could not load module, error logged. The module's class loader was already closed.
             if (optionalModule.isEmpty()) {
                 if (modularBotConfig.getModules().isCrashOnModuleLoadFailure()) {
+                    closePreparedModuleFiles(order.subList(index + 1, order.size()));
                     return false;
                 }
+                loadedAll = false;
                 continue;
             }
 
             Module module = optionalModule.get();
 
             // Load the module
-            if (!loadModule(module) && modularBotConfig.getModules().isCrashOnModuleLoadFailure()) {
+            if (!loadModule(module)) {
+                if (modularBotConfig.getModules().isCrashOnModuleLoadFailure()) {
+                    closePreparedModuleFiles(order.subList(index + 1, order.size()));
+                    return false;
+                }
+                loadedAll = false;
+                continue;
+            }
+
+            loadedModules.add(module);
+        }
+
+        return loadedAll;
+    }
+
+    /**
+     * Removes prepared module files whose module name (case-insensitive) is used by other prepared module file or an
+     * already loaded module and closes their class loaders. All module files with a duplicate name are rejected, as it
+     * is not known which one should be loaded.
+     *
+     * @param preparedModuleFiles Mutable list of prepared module files
+     *
+     * @return True if there were no duplicates, false otherwise
+     */
+    private boolean rejectDuplicateModuleFiles(List<PreparedModuleFile> preparedModuleFiles) {
+        Map<String, List<PreparedModuleFile>> moduleFilesByName = new LinkedHashMap<>();
+        preparedModuleFiles.forEach(preparedModuleFile -> moduleFilesByName.computeIfAbsent(preparedModuleFile.moduleInfo().getName().toLowerCase(Locale.ROOT), key -> new ArrayList<>()).add(preparedModuleFile));
+
+        List<PreparedModuleFile> duplicates = new ArrayList<>();
+
+        moduleFilesByName.values().forEach(moduleFiles -> {
+            String moduleName = moduleFiles.get(0).moduleInfo().getName();
+
+            if (moduleFiles.size() > 1) {
+                log.error("Module files {} have the same module name {}! None of them will be loaded.", moduleFiles.stream().map(PreparedModuleFile::moduleFile).toList(), moduleName);
+                duplicates.addAll(moduleFiles);
+            } else if (moduleRegistry.get(moduleName).isPresent()) {
+                log.error("Module file {} has module name {}, but other module with the same name is already loaded! It won't be loaded.", moduleFiles.get(0).moduleFile(), moduleName);
+                duplicates.addAll(moduleFiles);
+            }
+        });
+
+        if (duplicates.isEmpty()) {
+            return true;
+        }
+
+        preparedModuleFiles.removeAll(duplicates);
+        closePreparedModuleFiles(duplicates);
+        return false;
+    }
+
+    /**
+     * Closes class loaders of prepared module files that will not be registered, so their jar files are released
+     *
+     * @param preparedModuleFiles Prepared module files
+     */
+    private void closePreparedModuleFiles(List<PreparedModuleFile> preparedModuleFiles) {
+        for (PreparedModuleFile preparedModuleFile : preparedModuleFiles) {
+            try {
+                preparedModuleFile.classLoader().close();
+            } catch (IOException exception) {
+                log.error("Failed to close class loader of module {}!", preparedModuleFile.moduleInfo().getName(), exception);
+            }
+        }
+    }
+
+    /**
+     * Prepares module files concurrently - reads their module info, resolves their dependencies with Amber and creates
+     * their class loaders. Steps that must be ordered (Sigewine registration, class loader registration) are done
+     * afterward in {@link #registerModuleFile(PreparedModuleFile)}.
+     *
+     * @param moduleFiles         Module files to prepare
+     * @param preparedModuleFiles List to which successfully prepared module files will be added, in order of the module files
+     *
+     * @return True if all module files were prepared successfully, false otherwise
+     */
+    private boolean prepareModuleFiles(List<Path> moduleFiles, List<PreparedModuleFile> preparedModuleFiles) {
+        log.info("Preparing {} module files...", moduleFiles.size());
+        long startNanos = System.nanoTime();
+
+        initializeSharedLibraryStore();
+
+        if (dependencyLockfile == null && Files.exists(ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE)) {
+            var lockfile = new DependencyLockfile(ModularBotConstants.PATH_FILE_DEPENDENCY_LOCKFILE);
+            lockfile.load();
+            dependencyLockfile = lockfile;
+        }
+
+        List<ResolvedModuleFile> resolvedModuleFiles = new ArrayList<>();
+        int downloaderThreads = getAmberDownloaderThreads(moduleFiles.size());
+        boolean success = runConcurrently(moduleFiles, moduleFile -> resolveModuleFile(moduleFile, downloaderThreads), resolvedModuleFiles);
+
+        if (sharedLibraryStore != null) {
+            sharedLibraryStore.save();
+        }
+
+        Set<Path> sharedLibraries = selectSharedLibraries(resolvedModuleFiles);
+        success &= runConcurrently(resolvedModuleFiles, resolvedModuleFile -> createModuleClassLoader(resolvedModuleFile, sharedLibraries), preparedModuleFiles);
+
+        log.info("Prepared {}/{} module files in {}ms", preparedModuleFiles.size(), moduleFiles.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return success;
+    }
+
+    /**
+     * Creates and loads shared library store if modules#sharedLibraryStore is enabled and it was not created yet
+     */
+    private void initializeSharedLibraryStore() {
+        if (sharedLibraryStore == null && modularBotConfig.getModules().isSharedLibraryStore()) {
+            sharedLibraryStore = new SharedLibraryStore(ModularBotConstants.PATH_FOLDER_SHARED_LIBRARIES);
+            sharedLibraryStore.load();
+        }
+    }
+
+    /**
+     * Runs specified task for all inputs concurrently on the module executor
+     *
+     * @param inputs  Inputs
+     * @param task    Task returning an empty optional on failure (the failure is expected to be logged by the task)
+     * @param results List to which results will be added, in order of the inputs
+     * @param <T>     Type of the input
+     * @param <R>     Type of the result
+     *
+     * @return True if the task succeeded for all inputs, false otherwise
+     */
+    private <T, R> boolean runConcurrently(List<T> inputs, Function<T, Optional<R>> task, List<R> results) {
+        List<Future<Optional<R>>> futures = new ArrayList<>(inputs.size());
+
+        try (ExecutorService executor = createModuleExecutor()) {
+            for (T input : inputs) {
+                futures.add(executor.submit(() -> task.apply(input)));
+            }
+        }
+
+        boolean success = true;
+
+        for (Future<Optional<R>> future : futures) {
+            try {
+                Optional<R> optionalResult = future.get();
+
+                if (optionalResult.isPresent()) {
+                    results.add(optionalResult.get());
+                } else {
+                    success = false;
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while preparing module files!", exception);
                 return false;
+            } catch (ExecutionException exception) {
+                log.error("Failed to prepare module file!", exception.getCause());
+                success = false;
             }
         }
 
-        return true;
+        return success;
+    }
+
+    /**
+     * Creates executor for preparing and enabling modules. Uses virtual threads if modules#moduleLoadingThreads is 0 or
+     * lower, otherwise fixed thread pool of the specified size.
+     *
+     * @return {@link ExecutorService}
+     */
+    private ExecutorService createModuleExecutor() {
+        int threads = modularBotConfig.getModules().getModuleLoadingThreads();
+
+        if (threads <= 0) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("module-worker-", 0).factory());
+        }
+
+        return Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("module-worker-", 0).daemon().factory());
     }
 
     /**
-     * Loads {@link Module} from specified {@link Path}
+     * Returns settings that determine where dependencies of modules are resolved into, so startup cache and lockfile
+     * entries resolved with other settings are not used
+     *
+     * @return Settings as a string
+     */
+    public String getDependencyResolutionSettings() {
+        var modulesSettings = modularBotConfig.getModules();
+        return "overrideModuleDependenciesLibraryDirectory=" + modulesSettings.isOverrideModuleDependenciesLibraryDirectory()
+                + ",sharedLibraryStore=" + modulesSettings.isSharedLibraryStore();
+    }
+
+    /**
+     * Returns directory into which Amber bootstraps dependencies of specified module file
      *
      * @param moduleFile {@link Path} to the module file
      *
-     * @return Optional of {@link Module}
+     * @return {@link Path} to the library directory
      */
-    private Optional<Module> loadModuleFile(Path moduleFile) {
+    public Path getLibraryDirectory(Path moduleFile) {
+        var modulesSettings = modularBotConfig.getModules();
+
+        if (modulesSettings.isSharedLibraryStore()) {
+            return ModularBotConstants.PATH_FOLDER_SHARED_LIBRARIES.toAbsolutePath().normalize();
+        }
+
+        if (modulesSettings.isOverrideModuleDependenciesLibraryDirectory()) {
+            return ModularBotConstants.PATH_FOLDER_AMBER_LIBRARIES.resolve("modules").resolve(moduleFile.getFileName().toString());
+        }
+
+        return ModularBotConstants.PATH_FOLDER_AMBER_LIBRARIES;
+    }
+
+    /**
+     * Resolves module file - reads its module info and bootstraps its dependencies with Amber. Uses module startup cache
+     * or dependency lockfile written by the prepare mode, if possible. This method is thread-safe.
+     *
+     * @param moduleFile        {@link Path} to the module file
+     * @param downloaderThreads Amber downloader threads of the module's bootstrap
+     *
+     * @return Optional of {@link ResolvedModuleFile}
+     */
+    private Optional<ResolvedModuleFile> resolveModuleFile(Path moduleFile, int downloaderThreads) {
         log.info("Loading module: {}", moduleFile.getFileName());
-        ModuleClassLoader moduleClassLoader;
+        long startNanos = System.nanoTime();
 
-        log.info("Bootstrapping module with Amber...");
-        Amber amber = Amber.jarFiles(List.of(moduleFile), new ModuleAmberLogger());
-        List<Path> moduleJarDependencies = new ArrayList<>();
-        moduleJarDependencies.add(moduleFile);
+        if (moduleStartupCache != null) {
+            var optionalCacheEntry = moduleStartupCache.get(moduleFile, getDependencyResolutionSettings());
 
-        try {
-            var bootstrapOptions = BootstrapOptions.builder()
-                    .downloaderThreadCount(modularBotConfig.getModules().getAmberDownloaderThreads())
-                    .build();
+            if (optionalCacheEntry.isPresent()) {
+                var cacheEntry = optionalCacheEntry.get();
 
-            if (modularBotConfig.getModules().isOverrideModuleDependenciesLibraryDirectory()) {
-                bootstrapOptions.setLibraryDirectoryOverride(Path.of("amber-lib", "modules", moduleFile.getFileName().toString()));
+                try {
+                    ModuleInfo moduleInfo = ModuleInfo.loadFromJsonObject(JsonParser.parseString(cacheEntry.getModuleInfo()).getAsJsonObject());
+                    modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "resolveFromStartupCache", startNanos);
+                    log.info("Resolved module {} from startup cache in {}ms", moduleInfo.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+                    return Optional.of(new ResolvedModuleFile(
+                            moduleFile,
+                            moduleInfo,
+                            cacheEntry.getModuleInfo(),
+                            cacheEntry.getDependencyFiles(),
+                            Set.copyOf(cacheEntry.getPackageNames()),
+                            cacheEntry.getSigewineIndex(),
+                            parseSigewineIndex(cacheEntry.getSigewineIndex(), moduleInfo)
+                    ));
+                } catch (Exception exception) {
+                    log.warn("Failed to use startup cache of module {}, resolving it again.", moduleFile.getFileName(), exception);
+                }
             }
+        }
+
+        ModuleInfo moduleInfo;
+        String moduleInfoFileContent;
+        String sigewineIndexFileContent = null;
 
-            moduleJarDependencies.addAll(amber.bootstrap(bootstrapOptions));
+        try (ZipFile zipFile = new ZipFile(moduleFile.toFile())) {
+            InputStream moduleInfoInputStream = InputStreamUtils.openFileAsInputStream(zipFile, ModularBotConstants.FILE_NAME_MODULE_INFO);
+
+            if (moduleInfoInputStream == null) {
+                log.warn("Module {} does not contain module_info.json! It won't be loaded.", moduleFile.getFileName());
+                return Optional.empty();
+            }
+
+            moduleInfoFileContent = InputStreamUtils.readStreamAsString(moduleInfoInputStream);
+            moduleInfo = ModuleInfo.loadFromJsonObject(JsonParser.parseString(moduleInfoFileContent).getAsJsonObject());
+
+            InputStream sigewineIndexInputStream = InputStreamUtils.openFileAsInputStream(zipFile, ModularBotConstants.FILE_NAME_SIGEWINE_INDEX);
+
+            if (sigewineIndexInputStream != null) {
+                sigewineIndexFileContent = InputStreamUtils.readStreamAsString(sigewineIndexInputStream);
+            }
+        } catch (Exception exception) {
+            log.error("Failed to read module info of module: {}", moduleFile.getFileName(), exception);
+            return Optional.empty();
+        }
+
+        long moduleInfoNanos = System.nanoTime();
+        List<Path> moduleJarDependencies;
+        var optionalLockedDependencies = dependencyLockfile != null
+                ? dependencyLockfile.getModuleDependencies(moduleFile, getDependencyResolutionSettings())
+                : Optional.<List<Path>>empty();
+
+        if (optionalLockedDependencies.isPresent()) {
+            modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "readModuleInfo", startNanos, moduleInfoNanos);
+            log.info("Resolved module {} from dependency lockfile in {}ms", moduleInfo.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+            return Optional.of(new ResolvedModuleFile(
+                    moduleFile,
+                    moduleInfo,
+                    moduleInfoFileContent,
+                    optionalLockedDependencies.get(),
+                    null,
+                    sigewineIndexFileContent,
+                    parseSigewineIndex(sigewineIndexFileContent, moduleInfo)
+            ));
+        }
+
+        try {
+            moduleJarDependencies = bootstrapModuleFile(moduleFile, moduleInfo, downloaderThreads);
         } catch (Exception exception) {
             log.error("Failed to bootstrap module: {}", moduleFile.getFileName(), exception);
             return Optional.empty();
         }
 
+        long endNanos = System.nanoTime();
+        modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "readModuleInfo", startNanos, moduleInfoNanos);
+        modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "amberBootstrap", moduleInfoNanos, endNanos);
+
+        log.info("Resolved module {} in {}ms (module info {}ms, Amber bootstrap {}ms)",
+                moduleInfo.getName(),
+                TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos),
+                TimeUnit.NANOSECONDS.toMillis(moduleInfoNanos - startNanos),
+                TimeUnit.NANOSECONDS.toMillis(endNanos - moduleInfoNanos)
+        );
+
+        return Optional.of(new ResolvedModuleFile(
+                moduleFile,
+                moduleInfo,
+                moduleInfoFileContent,
+                moduleJarDependencies,
+                null,
+                sigewineIndexFileContent,
+                parseSigewineIndex(sigewineIndexFileContent, moduleInfo)
+        ));
+    }
+
+    /**
+     * Parses module's Sigewine index
+     *
+     * @param sigewineIndexJson Content of the module's sigewine_index.json or null if the module does not have it
+     * @param moduleInfo        Module info of the module
+     *
+     * @return {@link SigewineIndex} or null if the module does not have it or it is invalid
+     */
+    private SigewineIndex parseSigewineIndex(String sigewineIndexJson, ModuleInfo moduleInfo) {
+        if (sigewineIndexJson == null) {
+            return null;
+        }
+
         try {
-            moduleClassLoader = new ModuleClassLoader(moduleJarDependencies, ModuleManager.class.getClassLoader(), moduleClassLoaders);
-        } catch (MalformedURLException exception) {
+            return SigewineIndex.loadFromJsonObject(JsonParser.parseString(sigewineIndexJson).getAsJsonObject());
+        } catch (Exception exception) {
+            log.warn("Module {} has invalid {}, its whole package will be scanned by Sigewine.", moduleInfo.getName(), ModularBotConstants.FILE_NAME_SIGEWINE_INDEX, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Bootstraps module's dependencies with Amber. If shared library store is enabled, the dependencies are stored in it
+     * and their checksums are verified - corrupted jars are evicted and downloaded again.
+     *
+     * @param moduleFile        {@link Path} to the module file
+     * @param moduleInfo        Module info of the module
+     * @param downloaderThreads Amber downloader threads of the bootstrap
+     *
+     * @return Resolved dependency jars (without the module jar itself)
+     *
+     * @throws Exception If the bootstrap failed
+     */
+    private List<Path> bootstrapModuleFile(Path moduleFile, ModuleInfo moduleInfo, int downloaderThreads) throws Exception {
+        log.info("Bootstrapping module {} with Amber...", moduleInfo.getName());
+        Amber amber = Amber.jarFiles(List.of(moduleFile), new ModuleAmberLogger());
+
+        var bootstrapOptions = BootstrapOptions.builder()
+                .downloaderThreadCount(downloaderThreads)
+                .build();
+
+        Path libraryDirectory = getLibraryDirectory(moduleFile);
+
+        if (sharedLibraryStore != null) {
+            bootstrapOptions.setLibraryDirectoryOverride(libraryDirectory);
+            List<Path> dependencies = bootstrap(amber, bootstrapOptions, libraryDirectory);
+            List<Path> corruptedDependencies = sharedLibraryStore.verify(dependencies);
+
+            if (corruptedDependencies.isEmpty()) {
+                return dependencies;
+            }
+
+            log.warn("Module {} has {} corrupted shared libraries, downloading them again...", moduleInfo.getName(), corruptedDependencies.size());
+            sharedLibraryStore.evict(corruptedDependencies);
+            dependencies = bootstrap(amber, bootstrapOptions, libraryDirectory);
+            corruptedDependencies = sharedLibraryStore.verify(dependencies);
+
+            if (!corruptedDependencies.isEmpty()) {
+                throw new IOException("Shared libraries " + corruptedDependencies + " are corrupted even after downloading them again!");
+            }
+
+            return dependencies;
+        }
+
+        if (modularBotConfig.getModules().isOverrideModuleDependenciesLibraryDirectory()) {
+            bootstrapOptions.setLibraryDirectoryOverride(libraryDirectory);
+        }
+
+        return bootstrap(amber, bootstrapOptions, libraryDirectory);
+    }
+
+    /**
+     * Bootstraps dependencies into specified library directory. Bootstraps writing into the same directory (the shared
+     * library store, Amber's default one or module files with the same file name) run one after another, so an artifact
+     * is never downloaded twice and a bootstrap never sees an artifact that is still being written. Each bootstrap
+     * downloads only the artifacts missing from the directory.
+     *
+     * @param amber            {@link Amber} of the module
+     * @param bootstrapOptions Bootstrap options
+     * @param libraryDirectory Library directory the bootstrap writes into
+     *
+     * @return Resolved dependency jars
+     *
+     * @throws Exception If the bootstrap failed
+     */
+    private List<Path> bootstrap(Amber amber, BootstrapOptions bootstrapOptions, Path libraryDirectory) throws Exception {
+        Lock bootstrapLock = amberBootstrapLocks.computeIfAbsent(libraryDirectory.toAbsolutePath().normalize(), key -> new ReentrantLock());
+        bootstrapLock.lock();
+
+        try {
+            return amber.bootstrap(bootstrapOptions);
+        } finally {
+            bootstrapLock.unlock();
+        }
+    }
+
+    /**
+     * Returns Amber downloader threads of a single bootstrap, so bootstraps running concurrently do not use more than
+     * modules#amberDownloaderThreads threads in total. Bootstraps writing into the same directory run one after another,
+     * so they may use all of them.
+     *
+     * @param moduleFileCount Amount of module files being bootstrapped
+     *
+     * @return Downloader thread count, at least 1
+     */
+    private int getAmberDownloaderThreads(int moduleFileCount) {
+        var modulesSettings = modularBotConfig.getModules();
+        int totalThreads = Math.max(1, modulesSettings.getAmberDownloaderThreads());
+
+        if (sharedLibraryStore != null || !modulesSettings.isOverrideModuleDependenciesLibraryDirectory()) {
+            return totalThreads;
+        }
+
+        int concurrentBootstraps = modulesSettings.getModuleLoadingThreads() > 0
+                ? Math.min(modulesSettings.getModuleLoadingThreads(), moduleFileCount)
+                : moduleFileCount;
+
+        return Math.max(1, totalThreads / Math.max(1, concurrentBootstraps));
+    }
+
+    /**
+     * Selects libraries that will be loaded by the shared library class loader instead of the modules' class loaders.
+     * A library is shared if it is used by at least two modules and no module uses other version of the same artifact
+     * (same group and artifact ID). Libraries that are already in the shared library class loader stay shared.
+     *
+     * @param resolvedModuleFiles Resolved module files
+     *
+     * @return Set of absolute, normalized paths to shared libraries
+     */
+    private Set<Path> selectSharedLibraries(List<ResolvedModuleFile> resolvedModuleFiles) {
+        if (!modularBotConfig.getModules().isSharedLibraryClassLoader()) {
+            return Set.of();
+        }
+
+        if (sharedLibraryStore == null) {
+            log.warn("modules#sharedLibraryClassLoader requires modules#sharedLibraryStore to be enabled, libraries won't be shared.");
+            return Set.of();
+        }
+
+        if (sharedLibraryClassLoader == null) {
+            sharedLibraryClassLoader = new SharedLibraryClassLoader(ModuleManager.class.getClassLoader());
+        }
+
+        Map<Path, Integer> usages = new HashMap<>();
+        Map<String, Set<Path>> versions = new HashMap<>();
+
+        sharedLibraryClassLoader.getLibraries().forEach(library -> versions.computeIfAbsent(sharedLibraryStore.getArtifactKey(library), key -> new HashSet<>()).add(library));
+
+        for (ResolvedModuleFile resolvedModuleFile : resolvedModuleFiles) {
+            for (Path dependency : resolvedModuleFile.dependencies()) {
+                Path normalizedDependency = dependency.toAbsolutePath().normalize();
+                usages.merge(normalizedDependency, 1, Integer::sum);
+                versions.computeIfAbsent(sharedLibraryStore.getArtifactKey(normalizedDependency), key -> new HashSet<>()).add(normalizedDependency);
+            }
+        }
+
+        Set<Path> sharedLibraries = new HashSet<>(sharedLibraryClassLoader.getLibraries());
+
+        usages.forEach((library, usageCount) -> {
+            if (usageCount < 2 || sharedLibraries.contains(library)) {
+                return;
+            }
+
+            if (versions.get(sharedLibraryStore.getArtifactKey(library)).size() != 1) {
+                log.debug("Library {} is used in multiple versions, it won't be shared.", library.getFileName());
+                return;
+            }
+
+            try {
+                sharedLibraryClassLoader.addLibrary(library);
+                sharedLibraries.add(library);
+            } catch (MalformedURLException exception) {
+                log.warn("Failed to add library {} to the shared library class loader", library, exception);
+            }
+        });
+
+        log.info("Sharing {} libraries between modules", sharedLibraries.size());
+        return sharedLibraries;
+    }
+
+    /**
+     * Determines if the module uses an artifact that is in the shared library class loader in other version
+     *
+     * @param resolvedModuleFile Resolved module file
+     *
+     * @return True if any of the module's dependencies conflicts with a shared library
+     */
+    private boolean conflictsWithSharedLibraries(ResolvedModuleFile resolvedModuleFile) {
+        Map<String, Path> sharedArtifacts = new HashMap<>();
+        sharedLibraryClassLoader.getLibraries().forEach(library -> sharedArtifacts.put(sharedLibraryStore.getArtifactKey(library), library));
+
+        for (Path dependency : resolvedModuleFile.dependencies()) {
+            Path normalizedDependency = dependency.toAbsolutePath().normalize();
+            Path sharedLibrary = sharedArtifacts.get(sharedLibraryStore.getArtifactKey(normalizedDependency));
+
+            if (sharedLibrary != null && !sharedLibrary.equals(normalizedDependency)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates class loader for resolved module file. Shared libraries are excluded from the module's class loader. A
+     * module that uses other version of a shared artifact does not use the shared library class loader at all, because
+     * its parent-first delegation would shadow the module's version. Stores the module's startup data into the module startup cache, if it was not loaded from it. This method is
+     * thread-safe.
+     *
+     * @param resolvedModuleFile Resolved module file
+     * @param sharedLibraries    Absolute, normalized paths to shared libraries
+     *
+     * @return Optional of {@link PreparedModuleFile}
+     */
+    private Optional<PreparedModuleFile> createModuleClassLoader(ResolvedModuleFile resolvedModuleFile, Set<Path> sharedLibraries) {
+        Path moduleFile = resolvedModuleFile.moduleFile();
+        ModuleInfo moduleInfo = resolvedModuleFile.moduleInfo();
+        long startNanos = System.nanoTime();
+
+        boolean useSharedLibraries = sharedLibraryClassLoader != null;
+
+        if (useSharedLibraries && conflictsWithSharedLibraries(resolvedModuleFile)) {
+            log.warn("Module {} uses other versions of shared libraries, it won't use the shared library class loader.", moduleInfo.getName());
+            useSharedLibraries = false;
+        }
+
+        List<Path> moduleJarFiles = new ArrayList<>();
+        moduleJarFiles.add(moduleFile);
+
+        if (useSharedLibraries) {
+            resolvedModuleFile.dependencies().stream()
+                    .filter(dependency -> !sharedLibraries.contains(dependency.toAbsolutePath().normalize()))
+                    .forEach(moduleJarFiles::add);
+        } else {
+            moduleJarFiles.addAll(resolvedModuleFile.dependencies());
+        }
+
+        ClassLoader parentClassLoader = useSharedLibraries ? sharedLibraryClassLoader : ModuleManager.class.getClassLoader();
+        ModuleClassLoader moduleClassLoader;
+
+        try {
+            Set<String> packageNames = resolvedModuleFile.packageNames();
+
+            if (packageNames == null) {
+                packageNames = cacheModuleStartupData(resolvedModuleFile);
+            }
+
+            moduleClassLoader = new ModuleClassLoader(moduleJarFiles, parentClassLoader, moduleClassLoaderIndex, packageNames);
+        } catch (IOException exception) {
             log.error("Failed to create class loader for module: {}", moduleFile.getFileName(), exception);
             return Optional.empty();
         }
 
+        modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "createClassLoader", startNanos);
+        log.info("Created class loader for module {} with {} jars in {}ms",
+                moduleInfo.getName(),
+                moduleJarFiles.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)
+        );
+
+        return Optional.of(new PreparedModuleFile(moduleFile, moduleInfo, moduleClassLoader, resolvedModuleFile.sigewineIndex()));
+    }
+
+    /**
+     * Scans packages of resolved module file's jars and stores its startup data into the module startup cache, if
+     * enabled. This method is thread-safe.
+     *
+     * @param resolvedModuleFile Resolved module file that was not loaded from the module startup cache
+     *
+     * @return Packages of the module jar and its dependencies
+     *
+     * @throws IOException If any jar file could not be read
+     */
+    private Set<String> cacheModuleStartupData(ResolvedModuleFile resolvedModuleFile) throws IOException {
+        // Packages of all jars, including shared ones, so the cache entry stays valid if sharing changes
+        List<Path> allJarFiles = new ArrayList<>();
+        allJarFiles.add(resolvedModuleFile.moduleFile());
+        allJarFiles.addAll(resolvedModuleFile.dependencies());
+        Set<String> packageNames = ModuleClassLoader.scanPackageNames(allJarFiles);
+
+        if (moduleStartupCache != null) {
+            try {
+                moduleStartupCache.put(
+                        resolvedModuleFile.moduleFile(),
+                        getDependencyResolutionSettings(),
+                        resolvedModuleFile.moduleInfoJson(),
+                        resolvedModuleFile.sigewineIndexJson(),
+                        resolvedModuleFile.dependencies(),
+                        new ArrayList<>(packageNames)
+                );
+            } catch (IOException exception) {
+                log.warn("Failed to cache startup data of module {}", resolvedModuleFile.moduleInfo().getName(), exception);
+            }
+        }
+
+        return packageNames;
+    }
+
+    /**
+     * Registers prepared module file - adds its class loader to the list of module class loaders, scans it with
+     * Sigewine (if required) and creates the {@link Module} instance. Must not be called concurrently.
+     *
+     * @param preparedModuleFile Prepared module file
+     *
+     * @return Optional of {@link Module}
+     */
+    private Optional<Module> registerModuleFile(PreparedModuleFile preparedModuleFile) {
+        Path moduleFile = preparedModuleFile.moduleFile();
+        ModuleInfo moduleInfo = preparedModuleFile.moduleInfo();
+        ModuleClassLoader moduleClassLoader = preparedModuleFile.classLoader();
+        long startNanos = System.nanoTime();
+
+        // Register the module's class loader into the index, so modules depending on it can see its classes
+        moduleClassLoaderIndex.register(moduleClassLoader);
+
         var lastThreadClassLoader = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(moduleClassLoader);
 
-        try (ZipFile zipFile = new ZipFile(moduleFile.toFile())) {
-            InputStream moduleInfoInputStream = InputStreamUtils.openFileAsInputStream(zipFile, ModularBotConstants.FILE_NAME_MODULE_INFO);
+        try {
+            Module module;
 
-            if (moduleInfoInputStream == null) {
-                log.warn("Module {} does not contain module_info.json! However, it will be loaded in classpath.", moduleFile.getFileName());
-                return Optional.empty();
+            // Load module with sigewine
+            if (moduleInfo.isSigewineRequired()) {
+                var mainClass = moduleClassLoader.loadClass(moduleInfo.getMainClass());
+
+                SigewineIndex sigewineIndex = preparedModuleFile.sigewineIndex();
+
+                if (sigewineIndex != null) {
+                    // Scan only packages with beans instead of the module's whole package tree
+                    List<String> scanPackages = sigewineIndex.getScanPackages();
+                    log.info("Module {} requires Sigewine, treating its indexed packages {} (class loader {})...", moduleInfo.getName(), scanPackages, mainClass.getClassLoader());
+
+                    for (String scanPackage : scanPackages) {
+                        sigewine.scan(scanPackage, moduleClassLoader);
+                    }
+                } else {
+                    var modulePackagePath = Optional.ofNullable(moduleInfo.getSigewinePackagePath()).orElse(mainClass.getPackageName());
+                    log.info("Module {} requires Sigewine, treating its package {} (class loader {})...", moduleInfo.getName(), modulePackagePath, mainClass.getClassLoader());
+                    sigewine.scan(modulePackagePath, moduleClassLoader);
+                }
+
+                log.info("Syringing main class {} for module {}...", mainClass.getCanonicalName(), moduleInfo.getName());
+                module = (Module) sigewine.inject(mainClass);
+            } else {
+                // Just create new instance of the module, w/o sigewine
+                module = (Module) moduleClassLoader.loadClass(moduleInfo.getMainClass()).getConstructor().newInstance();
             }
 
-            String moduleInfoFileContent = InputStreamUtils.readStreamAsString(moduleInfoInputStream);
-            ModuleInfo moduleInfo = ModuleInfo.loadFromJsonObject(JsonParser.parseString(moduleInfoFileContent).getAsJsonObject());
+            module.setModuleInfo(moduleInfo);
+            module.setModuleStatus(ModuleStatus.NOT_LOADED);
+            module.setModuleFilePath(moduleFile);
+            module.setModuleDirectoryPath(moduleFile.getParent().resolve(moduleInfo.getName()));
+
+            // Make sure module directory exists
+            Files.createDirectories(module.getModuleDirectoryPath());
+
+            moduleClassLoaders.put(module, moduleClassLoader);
+
+            modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "register", startNanos);
+            log.info("Registered module {} in {}ms", moduleInfo.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return Optional.of(module);
+        } catch (IOException exception) {
+            log.error("Failed to read module: {}", moduleFile.getFileName(), exception);
+        } catch (ClassNotFoundException exception) {
+            log.error("Could not find main class for module: {}", moduleFile.getFileName(), exception);
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException | NoSuchMethodException exception) {
+            log.error("Could not create module instance for module: {} (does the main class have public no-args constructor?)", moduleFile.getFileName(), exception);
+        } catch (Throwable exception) {
+            log.error("Failed to load module: {}", moduleFile.getFileName(), exception);
+        } finally {
+            Thread.currentThread().setContextClassLoader(lastThreadClassLoader);
+        }
+
+        // Failed to register, remove the module's beans and class loader from the index and release its jar files
+        unregisterSigewineBeans(moduleClassLoader);
+        moduleClassLoaderIndex.unregister(moduleClassLoader);
+
+        try {
+            moduleClassLoader.close();
+        } catch (IOException exception) {
+            log.error("Failed to close class loader of module {}!", moduleInfo.getName(), exception);
+        }
+
+        moduleClassLoaderLeakDetector.track(moduleInfo.getName(), moduleClassLoader);
+
+        return Optional.empty();
+    }
+
+    /**
+     * Loads specified module into memory.
+     *
+     * @param module Module to load
+     */
+    public boolean loadModule(Module module) {
+        String moduleName = module.getModuleInfo().getName();
+
+        if (module.getModuleStatus() != ModuleStatus.NOT_LOADED) {
+            log.warn("Tried loading module {}, which does not have status of NOT_LOADED!", moduleName);
+            return false;
+        }
+
+        if (moduleRegistry.get(moduleName).isPresent()) {
+            log.error("Tried loading module {}, but other module with the same name is already loaded!", moduleName);
+            module.setModuleStatus(ModuleStatus.FAILED);
+            releaseModuleClassLoader(module);
+            return false;
+        }
+
+        log.info("Loading module {}...", moduleName);
+        module.setModuleStatus(ModuleStatus.LOADING);
+        long startNanos = System.nanoTime();
+
+        try {
+            module.onLoad();
+        } catch (Exception exception) {
+            log.error("Exception occurred while loading module {}!", moduleName, exception);
+            module.setModuleStatus(ModuleStatus.FAILED);
+
+            // Remove the module's class loader from the index
+            releaseModuleClassLoader(module);
+            return false;
+        } finally {
+            modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleName, "onLoad", startNanos);
+        }
+
+        log.info("Module {} loaded successfully.", moduleName);
+        module.setModuleStatus(ModuleStatus.LOADED);
+        moduleRegistry.register(module);
+        return true;
+    }
+
+    /**
+     * Enables all loaded modules in memory. Modules are enabled in topological layers of their dependency graph, modules
+     * within the same layer are enabled concurrently. Lazy modules that no eager module (transitively) depends on stay
+     * dormant until one of their triggers fires, see {@link #activateLazyModule(Module)}.
+     */
+    public boolean enableModules() {
+        List<Module> loadedModules = moduleRegistry.snapshot();
+        Set<Module> modulesToEnable = getDependencyClosure(loadedModules.stream()
+                .filter(module -> !module.getModuleInfo().isLazy())
+                .toList());
+
+        loadedModules.stream()
+                .filter(module -> !modulesToEnable.contains(module))
+                .forEach(dormantModules::add);
+
+        log.info("Enabling {} modules ({} lazy modules stay dormant)...", modulesToEnable.size(), dormantModules.size());
+
+        boolean enabledAll = enableModulesInLayers(modulesToEnable);
+
+        log.debug("Unloading modules that failed to enable, if any...");
+        for (Module module : modulesToEnable) {
+            if (module.getModuleStatus() != ModuleStatus.ENABLED) {
+                if (module.getModuleStatus() != ModuleStatus.NOT_LOADED) {
+                    unloadModule(module);
+                }
+                enabledAll = false;
+            }
+        }
+
+        if (!enabledAll) {
+            return false;
+        }
+
+        log.info("Enabled {} modules successfully.", modulesToEnable.size());
+        return true;
+    }
+
+    /**
+     * Enables specified module, including the modules it depends and soft-depends on.
+     *
+     * @param module Module to enable
+     */
+    public void enableModule(Module module) {
+        if (module.getModuleStatus() == ModuleStatus.ENABLED) {
+            return;
+        }
+
+        enableModulesInLayers(getDependencyClosure(List.of(module)));
+    }
+
+    /**
+     * Returns specified modules and all loaded modules they (transitively) depend or soft-depend on, which are not
+     * enabled yet
+     *
+     * @param modules Modules
+     *
+     * @return Set of modules
+     */
+    private Set<Module> getDependencyClosure(Collection<Module> modules) {
+        Set<Module> closure = new LinkedHashSet<>();
+        Deque<Module> queue = new ArrayDeque<>(modules);
+
+        while (!queue.isEmpty()) {
+            Module current = queue.poll();
+
+            if (!closure.add(current)) {
+                continue;
+            }
+
+            ModuleInfo moduleInfo = current.getModuleInfo();
+            Stream.concat(Arrays.stream(moduleInfo.getDepend()), Arrays.stream(moduleInfo.getSoftDepend()))
+                    .map(this::getModuleByName)
+                    .flatMap(Optional::stream)
+                    .filter(dependency -> dependency.getModuleStatus() != ModuleStatus.ENABLED)
+                    .forEach(queue::add);
+        }
+
+        return closure;
+    }
+
+    /**
+     * Returns lazy modules that were loaded but not enabled yet, as none of their triggers fired
+     *
+     * @return Unmodifiable set of dormant modules
+     */
+    public Set<Module> getDormantModules() {
+        return Collections.unmodifiableSet(dormantModules);
+    }
 
-            Module module;
+    /**
+     * Checks whenever specified module is a dormant lazy module
+     *
+     * @param module Module
+     *
+     * @return True if the module is dormant, false otherwise
+     */
+    public boolean isDormant(Module module) {
+        return dormantModules.contains(module);
+    }
 
-            // Load module with sigewine
-            if (moduleInfo.isSigewineRequired()) {
-                var mainClass = moduleClassLoader.loadClass(moduleInfo.getMainClass());
+    /**
+     * Checks whenever specified JDA event listener was loaded by a dormant lazy module. Such listeners must not receive
+     * events until the module is activated.
+     *
+     * @param listener Non-null event listener
+     *
+     * @return True if the listener belongs to a dormant module, false otherwise
+     */
+    public boolean isListenerOfDormantModule(Object listener) {
+        if (dormantModules.isEmpty()) {
+            return false;
+        }
 
-                var modulePackagePath = Optional.ofNullable(moduleInfo.getSigewinePackagePath()).orElse(mainClass.getPackageName());
-                log.info("Module {} requires Sigewine, treating its package {} (class loader {})...", moduleInfo.getName(), modulePackagePath, mainClass.getClassLoader());
-                sigewine.scan(modulePackagePath, moduleClassLoader);
+        ClassLoader classLoader = listener.getClass().getClassLoader();
 
-                log.info("Syringing main class {} for module {}...", mainClass.getCanonicalName(), moduleInfo.getName());
-                module = (Module) sigewine.inject(mainClass);
-            } else {
-                // Just create new instance of the module, w/o sigewine
-                module = (Module) moduleClassLoader.loadClass(moduleInfo.getMainClass()).getConstructor().newInstance();
+        for (Module module : dormantModules) {
+            if (module.getClass().getClassLoader() == classLoader) {
+                return true;
             }
+        }
 
-            module.setModuleInfo(moduleInfo);
-            module.setModuleStatus(ModuleStatus.NOT_LOADED);
-            module.setModuleFilePath(moduleFile);
-            module.setModuleDirectoryPath(moduleFile.getParent().resolve(moduleInfo.getName()));
+        return false;
+    }
 
-            // Make sure module directory exists
-            Files.createDirectories(module.getModuleDirectoryPath());
+    /**
+     * Enables specified dormant lazy module, including the dormant modules it depends and soft-depends on. Blocks until
+     * the module is enabled, so the event that triggered the activation can be dispatched to it afterward. Concurrent
+     * activations of the same module wait for the first one, activations of unrelated modules do not block each other.
+     * This method is thread-safe.
+     *
+     * @param module Dormant module
+     *
+     * @return True if the module is enabled, false otherwise
+     */
+    public boolean activateLazyModule(Module module) {
+        if (!dormantModules.contains(module)) {
+            return module.getModuleStatus() == ModuleStatus.ENABLED;
+        }
 
-            // Add the module's class loader to the list of class loaders
-            synchronized (moduleClassLoaders) {
-                moduleClassLoaders.add(moduleClassLoader);
-            }
+        CompletableFuture<Boolean> activation = new CompletableFuture<>();
+        CompletableFuture<Boolean> runningActivation = lazyActivations.putIfAbsent(module, activation);
 
-            return Optional.of(module);
-        } catch (IOException exception) {
-            log.error("Failed to read module: {}", moduleFile.getFileName(), exception);
-        } catch (ClassNotFoundException exception) {
-            log.error("Could not find main class for module: {}", moduleFile.getFileName(), exception);
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException | NoSuchMethodException exception) {
-            log.error("Could not create module instance for module: {} (does the main class have public no-args constructor?)", moduleFile.getFileName(), exception);
-        } catch (Throwable exception) {
-            log.error("Failed to load module: {}", moduleFile.getFileName(), exception);
-        } finally {
-            Thread.currentThread().setContextClassLoader(lastThreadClassLoader);
+        if (runningActivation != null) {
+            return runningActivation.join();
         }
 
-        return Optional.empty();
+        try {
+            boolean enabled = activateDormantModule(module);
+            activation.complete(enabled);
+            return enabled;
+        } catch (RuntimeException exception) {
+            activation.complete(false);
+            throw exception;
+        }
     }
 
     /**
-     * Loads specified module into memory.
+     * Activates dormant dependencies of specified module and enables it. Failed activation is not retried, the module
+     * stays dormant.
      *
-     * @param module Module to load
+     * @param module Dormant module
+     *
+     * @return True if the module was enabled, false otherwise
      */
-    public boolean loadModule(Module module) {
+    private boolean activateDormantModule(Module module) {
         String moduleName = module.getModuleInfo().getName();
 
-        if (module.getModuleStatus() != ModuleStatus.NOT_LOADED) {
-            log.warn("Tried loading module {}, which does not have status of NOT_LOADED!", moduleName);
+        // Modules in a dependency cycle would wait for each other's activation forever
+        if (ModuleDependencyGraph.of(getDependencyClosure(List.of(module)), Module::getModuleInfo).getUnresolvable().contains(module)) {
+            log.error("Cannot activate lazy module {} because it is part of or depends on a dependency cycle!", moduleName);
             return false;
         }
 
-        log.info("Loading module {}...", moduleName);
-        module.setModuleStatus(ModuleStatus.LOADING);
+        log.info("Activating lazy module {}...", moduleName);
+        long startNanos = System.nanoTime();
+        ModuleInfo moduleInfo = module.getModuleInfo();
 
-        try {
-            module.onLoad();
-        } catch (Exception exception) {
-            log.error("Exception occurred while loading module {}!", moduleName, exception);
-            module.setModuleStatus(ModuleStatus.FAILED);
+        Stream.concat(Arrays.stream(moduleInfo.getDepend()), Arrays.stream(moduleInfo.getSoftDepend()))
+                .map(this::getModuleByName)
+                .flatMap(Optional::stream)
+                .filter(dormantModules::contains)
+                .forEach(this::activateLazyModule);
 
-            // Remove the module's class loader from the list of class loaders
-            synchronized (moduleClassLoaders) {
-                moduleClassLoaders.remove(module.getClass().getClassLoader());
-            }
+        boolean enabled = canEnableModule(module) && enableSingleModule(module);
+        modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleName, "lazyActivation", startNanos);
+
+        if (!enabled) {
+            log.error("Failed to activate lazy module {}!", moduleName);
             return false;
         }
 
-        log.info("Module {} loaded successfully.", moduleName);
-        module.setModuleStatus(ModuleStatus.LOADED);
-        modules.add(module);
+        dormantModules.remove(module);
         return true;
     }
 
     /**
-     * Enables all loaded modules in memory.
+     * Enables specified modules in topological layers. Reports dependency cycles up front and skips modules whose hard
+     * dependencies are missing or failed to enable.
+     *
+     * @param modulesToEnable Modules to enable
+     *
+     * @return True if all modules were enabled, false otherwise
      */
-    public boolean enableModules() {
-        log.info("Enabling {} modules...", modules.size());
+    private boolean enableModulesInLayers(Collection<Module> modulesToEnable) {
+        var dependencyGraph = ModuleDependencyGraph.of(modulesToEnable, Module::getModuleInfo);
+        boolean enabledAll = true;
 
-        for (Module module : modules) {
-            try {
-                enableModule(module);
-            } catch (StackOverflowError stackOverflowError) {
-                String moduleName = module.getModuleInfo().getName();
-                String depend = Arrays.toString(module.getModuleInfo().getDepend());
-                String softDepend = Arrays.toString(module.getModuleInfo().getSoftDepend());
+        for (List<String> cycle : dependencyGraph.getCycles()) {
+            log.error("Found dependency cycle between modules: {} -> {}", String.join(" -> ", cycle), cycle.get(0));
+        }
 
-                log.error("StackOverflowError occurred while loading module {}! It depends on {}, soft-depends on {}", moduleName, depend, softDepend);
-                unloadModule(module);
-                return false;
-            }
+        for (Module module : dependencyGraph.getUnresolvable()) {
+            log.error("Module {} cannot be enabled because it is part of or depends on a dependency cycle! It depends on {}, soft-depends on {}, loads before {}",
+                    module.getModuleInfo().getName(),
+                    Arrays.toString(module.getModuleInfo().getDepend()),
+                    Arrays.toString(module.getModuleInfo().getSoftDepend()),
+                    Arrays.toString(module.getModuleInfo().getLoadBefore())
+            );
+            enabledAll = false;
         }
 
-        log.debug("Unloading modules that failed to enable, if any...");
-        boolean unloadedAnyModule = false;
-        for (Module module : modules) {
-            if (module.getModuleStatus() != ModuleStatus.ENABLED) {
-                unloadModule(module);
-                unloadedAnyModule = true;
+        List<List<Module>> layers = dependencyGraph.getLayers();
+
+        for (int layerIndex = 0; layerIndex < layers.size(); layerIndex++) {
+            List<Module> pendingModules = layers.get(layerIndex).stream()
+                    .filter(module -> module.getModuleStatus() != ModuleStatus.ENABLED)
+                    .toList();
+            List<Module> layer = pendingModules.stream().filter(this::canEnableModule).toList();
+
+            if (layer.size() != pendingModules.size()) {
+                enabledAll = false;
             }
-        }
 
-        if (unloadedAnyModule) {
-            return false;
+            if (layer.isEmpty()) {
+                continue;
+            }
+
+            log.debug("Enabling layer {}/{} with {} modules...", layerIndex + 1, layers.size(), layer.size());
+
+            if (layer.size() == 1) {
+                enabledAll &= enableSingleModule(layer.get(0));
+                continue;
+            }
+
+            List<Future<Boolean>> futures = new ArrayList<>(layer.size());
+
+            try (ExecutorService executor = createModuleExecutor()) {
+                for (Module module : layer) {
+                    futures.add(executor.submit(() -> enableSingleModule(module)));
+                }
+            }
+
+            for (Future<Boolean> future : futures) {
+                try {
+                    enabledAll &= future.get();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    log.error("Interrupted while enabling modules!", exception);
+                    return false;
+                } catch (ExecutionException exception) {
+                    log.error("Failed to enable module!", exception.getCause());
+                    enabledAll = false;
+                }
+            }
         }
 
-        log.info("Enabled {} modules successfully.", modules.size());
-        return true;
+        return enabledAll;
     }
 
     /**
-     * Enables specified module.
+     * Checks whenever all hard dependencies of specified module are loaded and enabled
      *
-     * @param module Module to enable
+     * @param module Module to check
+     *
+     * @return True if the module can be enabled, false otherwise
      */
-    public void enableModule(Module module) {
-        if (module.getModuleStatus() == ModuleStatus.ENABLED) {
-            return;
-        }
-
+    private boolean canEnableModule(Module module) {
         ModuleInfo moduleInfo = module.getModuleInfo();
 
-        // Depend
         for (String dependentName : moduleInfo.getDepend()) {
             Optional<Module> optionalDependentModule = getModuleByName(dependentName);
 
             if (optionalDependentModule.isEmpty()) {
                 log.error("Module {} specified {} as dependent but the module is not loaded!", moduleInfo.getName(), dependentName);
-                return;
+                return false;
             }
 
-            enableModule(optionalDependentModule.get());
+            if (optionalDependentModule.get().getModuleStatus() != ModuleStatus.ENABLED) {
+                log.error("Module {} specified {} as dependent but the module failed to enable!", moduleInfo.getName(), dependentName);
+                return false;
+            }
         }
 
-        // Soft-depend
         for (String dependentModule : moduleInfo.getSoftDepend()) {
-            Optional<Module> optionalDependentModule = getModuleByName(dependentModule);
-
-            if (optionalDependentModule.isEmpty()) {
+            if (getModuleByName(dependentModule).isEmpty()) {
                 log.warn("Module {} specified {} as soft-dependent but the module is not loaded.", moduleInfo.getName(), dependentModule);
-                continue;
             }
-
-            enableModule(optionalDependentModule.get());
         }
 
+        return true;
+    }
+
+    /**
+     * Enables specified module without enabling its dependencies. This method is thread-safe as long as it is not
+     * called concurrently for the same module.
+     *
+     * @param module Module to enable
+     *
+     * @return True if the module was enabled, false otherwise
+     */
+    private boolean enableSingleModule(Module module) {
+        ModuleInfo moduleInfo = module.getModuleInfo();
+
         log.info("Enabling module {}...", moduleInfo.getName());
         module.setModuleStatus(ModuleStatus.ENABLING);
+        long startNanos = System.nanoTime();
 
         try {
             module.onEnable();
         } catch (Exception exception) {
             log.error("Failed to enable module {}!", moduleInfo.getName(), exception);
+            modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "onEnable", startNanos);
             unloadModule(module);
-            // TODO: Shutdown the bot
-            return;
+            return false;
         }
 
-        log.info("Module {} enabled successfully.", moduleInfo.getName());
+        modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleInfo.getName(), "onEnable", startNanos);
+
+        try {
+            module.onEventListenerRegistration(module.getModuleEventListeners());
+        } catch (Exception exception) {
+            log.error("Exception occurred while registering event listeners of module {}!", moduleInfo.getName(), exception);
+        }
+
+        log.info("Module {} enabled successfully in {}ms.", moduleInfo.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
         module.setModuleStatus(ModuleStatus.ENABLED);
+        return true;
     }
 
     /**
      * Unloads all loaded modules in memory.
      */
     public void unloadModules() {
-        if (modules.isEmpty()) {
+        List<Module> modulesToUnload = moduleRegistry.snapshot();
+
+        if (modulesToUnload.isEmpty()) {
             return;
         }
 
-        modules.forEach(this::unloadModule);
+        // Unload dependent modules before their dependencies, as unloading closes the module's class loader
+        modulesToUnload.reversed().forEach(module -> {
+            if (module.getModuleStatus() != ModuleStatus.NOT_LOADED) {
+                unloadModule(module);
+            }
+        });
+        moduleRegistry.clear();
 
-        log.info("Unloaded {} modules successfully.", modules.size());
+        log.info("Unloaded {} modules successfully.", modulesToUnload.size());
     }
 
     /**
@@ -384,12 +1429,15 @@ public final class ModuleManager {
      */
     public void unloadModule(Module module) {
         String moduleName = module.getModuleInfo().getName();
+        dormantModules.remove(module);
+        lazyActivations.remove(module);
 
         switch (module.getModuleStatus()) {
             case NOT_LOADED -> log.warn("Tried unloading module ({}) which is not loaded!", moduleName);
             case LOADED, ENABLING, DISABLED -> {
                 log.info("Unloading module {}...", moduleName);
                 module.setModuleStatus(ModuleStatus.UNLOADING);
+                long startNanos = System.nanoTime();
 
                 try {
                     module.onUnload();
@@ -397,13 +1445,17 @@ public final class ModuleManager {
                     log.error("Exception occurred while unloading module {}!", moduleName, unloadException);
                 }
 
+                modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleName, "onUnload", startNanos);
+
                 module.setModuleStatus(ModuleStatus.NOT_LOADED);
+                releaseModuleClassLoader(module);
 
                 log.info("Module {} unloaded successfully.", moduleName);
             }
             case ENABLED -> {
                 log.info("Disabling module {}...", moduleName);
                 module.setModuleStatus(ModuleStatus.DISABLING);
+                long startNanos = System.nanoTime();
 
                 try {
                     module.onDisable();
@@ -411,6 +1463,9 @@ public final class ModuleManager {
                     log.error("Exception occurred while disabling module {}!", moduleName, disableException);
                 }
 
+                modularBotTimings.record(ModularBotTimings.CATEGORY_MODULE, moduleName, "onDisable", startNanos);
+                module.getModuleEventListeners().close();
+
                 module.setModuleStatus(ModuleStatus.DISABLED);
                 log.info("Module {} disabled successfully.", moduleName);
 
@@ -419,13 +1474,233 @@ public final class ModuleManager {
         }
     }
 
+    /**
+     * Reloads specified module from its jar file without restarting Modular Bot. The module and all modules that
+     * (transitively) depend or soft-depend on it are disabled, unloaded and their class loaders are closed. Then their
+     * jar files are loaded again and the modules are enabled. If Modular Bot is already connected to Discord, the event
+     * listeners of the old modules are removed from the shards and {@link Module#onHotReload(ShardManager)} is called
+     * on the new ones. Chewtils commands of the old modules are replaced by the commands of the new ones and registered
+     * with Discord again.<br>
+     * Console commands registered by the old modules are not re-registered.
+     *
+     * @param name Name of the module to reload
+     *
+     * @return True if the module and its dependents were reloaded successfully, false otherwise
+     */
+    public boolean reloadModule(String name) {
+        Optional<Module> optionalModule = getModuleByName(name);
+
+        if (optionalModule.isEmpty()) {
+            log.warn("Cannot reload module {} as it is not loaded!", name);
+            return false;
+        }
+
+        synchronized (reloadLock) {
+            Module module = optionalModule.get();
+            List<Module> modulesToReload = getDependentModules(module);
+            log.info("Reloading module {} along with {} dependent modules...", module.getModuleInfo().getName(), modulesToReload.size() - 1);
+
+            List<Path> moduleFiles = unloadModulesForReload(modulesToReload);
+            return loadAndEnableModuleFiles(moduleFiles);
+        }
+    }
+
+    /**
+     * Loads new module from specified jar file and enables it. If the jar file belongs to an already loaded module,
+     * the module is reloaded instead.
+     *
+     * @param moduleFile Path to the module jar file
+     *
+     * @return True if the module was loaded and enabled successfully, false otherwise
+     */
+    public boolean loadOrReloadModuleFile(Path moduleFile) {
+        Path normalizedModuleFile = moduleFile.toAbsolutePath().normalize();
+        Optional<Module> loadedModule = moduleRegistry.snapshot().stream()
+                .filter(module -> module.getModuleFilePath().toAbsolutePath().normalize().equals(normalizedModuleFile))
+                .findFirst();
+
+        if (loadedModule.isPresent()) {
+            return reloadModule(loadedModule.get().getModuleInfo().getName());
+        }
+
+        synchronized (reloadLock) {
+            log.info("Loading new module file {}...", moduleFile.getFileName());
+            return loadAndEnableModuleFiles(List.of(moduleFile));
+        }
+    }
+
+    /**
+     * Returns specified module and all loaded modules that (transitively) depend or soft-depend on it, in dependency order
+     *
+     * @param module Module
+     *
+     * @return List of modules, the specified module being first
+     */
+    private List<Module> getDependentModules(Module module) {
+        Set<Module> dependentModules = new LinkedHashSet<>(List.of(module));
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (Module loadedModule : moduleRegistry.snapshot()) {
+                if (dependentModules.contains(loadedModule)) {
+                    continue;
+                }
+
+                ModuleInfo moduleInfo = loadedModule.getModuleInfo();
+                boolean dependsOnAny = Stream.concat(Arrays.stream(moduleInfo.getDepend()), Arrays.stream(moduleInfo.getSoftDepend()))
+                        .anyMatch(dependencyName -> dependentModules.stream().anyMatch(dependent -> dependent.getModuleInfo().getName().equalsIgnoreCase(dependencyName)));
+
+                if (dependsOnAny) {
+                    dependentModules.add(loadedModule);
+                    changed = true;
+                }
+            }
+        }
+
+        return ModuleDependencyGraph.of(dependentModules, Module::getModuleInfo).getOrder();
+    }
+
+    /**
+     * Unloads specified modules in reverse dependency order and removes them from the registry
+     *
+     * @param modulesToUnload Modules to unload, in dependency order
+     *
+     * @return Jar files of the unloaded modules
+     */
+    private List<Path> unloadModulesForReload(List<Module> modulesToUnload) {
+        List<Path> moduleFiles = new ArrayList<>();
+        var shardManager = getConnectedModularBotShardManager();
+
+        for (Module module : modulesToUnload.reversed()) {
+            ModuleClassLoader moduleClassLoader = moduleClassLoaders.get(module);
+            moduleFiles.add(0, module.getModuleFilePath());
+
+            if (moduleClassLoader != null) {
+                shardManager.ifPresent(modularBotShardManager -> {
+                    modularBotShardManager.removeEventListeners(moduleClassLoader);
+                    modularBotShardManager.removeCommands(moduleClassLoader);
+                });
+            }
+
+            if (module.getModuleStatus() != ModuleStatus.NOT_LOADED) {
+                unloadModule(module);
+            }
+
+            moduleRegistry.unregister(module);
+        }
+
+        return moduleFiles;
+    }
+
+    /**
+     * Loads and enables specified module files, and notifies the new modules about the running shard manager, if any
+     *
+     * @param moduleFiles Module files
+     *
+     * @return True if all modules were loaded and enabled, false otherwise
+     */
+    private boolean loadAndEnableModuleFiles(List<Path> moduleFiles) {
+        List<Module> loadedModules = new ArrayList<>();
+        boolean success = loadModuleFiles(moduleFiles, loadedModules);
+        success &= enableModulesInLayers(loadedModules);
+
+        var shardManager = getConnectedModularBotShardManager();
+
+        for (Module module : loadedModules) {
+            if (module.getModuleStatus() != ModuleStatus.ENABLED) {
+                if (module.getModuleStatus() != ModuleStatus.NOT_LOADED) {
+                    unloadModule(module);
+                }
+                continue;
+            }
+
+            shardManager.ifPresent(modularBotShardManager -> {
+                try {
+                    modularBotShardManager.addCommands(module);
+                    module.onHotReload(modularBotShardManager.get());
+                } catch (Exception exception) {
+                    log.error("Exception occurred while processing hot reload of module {}!", module.getModuleInfo().getName(), exception);
+                }
+            });
+        }
+
+        shardManager.ifPresent(ModularBotShardManager::refreshCommands);
+
+        log.info("Loaded and enabled {}/{} module files", loadedModules.stream().filter(module -> module.getModuleStatus() == ModuleStatus.ENABLED).count(), moduleFiles.size());
+        return success;
+    }
+
+    /**
+     * Returns {@link ModularBotShardManager} if Modular Bot has already built its shard manager
+     *
+     * @return Optional of {@link ModularBotShardManager}
+     */
+    private Optional<ModularBotShardManager> getConnectedModularBotShardManager() {
+        return Optional.ofNullable(modularBotAccessor.getBeanInstance())
+                .map(ModularBot::getModularBotShardManager)
+                .filter(modularBotShardManager -> modularBotShardManager.get() != null);
+    }
+
+    /**
+     * Removes the class loader of specified module from the class loader index, so other modules no longer resolve
+     * classes from it, closes it to release its jar files and starts tracking whenever it gets garbage collected
+     *
+     * @param module Module whose class loader to release
+     */
+    private void releaseModuleClassLoader(Module module) {
+        ModuleClassLoader moduleClassLoader = moduleClassLoaders.remove(module);
+
+        if (moduleClassLoader == null) {
+            return;
+        }
+
+        unregisterSigewineBeans(moduleClassLoader);
+        moduleClassLoaderIndex.unregister(moduleClassLoader);
+
+        try {
+            moduleClassLoader.close();
+        } catch (IOException exception) {
+            log.error("Failed to close class loader of module {}!", module.getModuleInfo().getName(), exception);
+        }
+
+        moduleClassLoaderLeakDetector.track(module.getModuleInfo().getName(), moduleClassLoader);
+    }
+
+    /**
+     * Removes Sigewine singleton beans whose classes (or superclasses, in case of proxies) were loaded by specified
+     * class loader, so they are neither injected into other beans nor keep the class loader reachable
+     *
+     * @param moduleClassLoader Module's class loader
+     */
+    private void unregisterSigewineBeans(ModuleClassLoader moduleClassLoader) {
+        int beanCount = sigewine.getSingletonBeans().size();
+        sigewine.getSingletonBeans().values().removeIf(bean -> bean != null && isLoadedBy(bean, moduleClassLoader));
+        int removedBeans = beanCount - sigewine.getSingletonBeans().size();
+
+        if (removedBeans != 0) {
+            log.debug("Unregistered {} Sigewine beans of class loader {}", removedBeans, moduleClassLoader);
+        }
+    }
+
+    private static boolean isLoadedBy(Object bean, ClassLoader classLoader) {
+        for (Class<?> type = bean.getClass(); type != null; type = type.getSuperclass()) {
+            if (type.getClassLoader() == classLoader) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Processes all modules with specified {@link CommandClientBuilder}
      *
      * @param commandClientBuilder Non-null {@link CommandClientBuilder}
      */
     public void processCommandClientBuilder(CommandClientBuilder commandClientBuilder) {
-        modules.forEach(module -> module.onCommandClientBuilderInitialization(commandClientBuilder));
+        moduleRegistry.snapshot().forEach(module -> module.onCommandClientBuilderInitialization(commandClientBuilder));
     }
 
     /**
@@ -434,7 +1709,7 @@ public final class ModuleManager {
      * @param ganyu Non-null {@link Ganyu}
      */
     public void processGanyu(Ganyu ganyu) {
-        modules.forEach(module -> module.onConsoleCommandRegistration(ganyu));
+        moduleRegistry.snapshot().forEach(module -> module.onConsoleCommandRegistration(ganyu));
     }
 
     /**
@@ -443,7 +1718,7 @@ public final class ModuleManager {
      * @param shardManagerBuilder Non-null {@link DefaultShardManagerBuilder}
      */
     public void processShardBuilder(DefaultShardManagerBuilder shardManagerBuilder) {
-        modules.forEach(module -> module.onShardManagerBuilderInitialization(shardManagerBuilder));
+        moduleRegistry.snapshot().forEach(module -> module.onShardManagerBuilderInitialization(shardManagerBuilder));
     }
 
     /**
@@ -452,7 +1727,7 @@ public final class ModuleManager {
      * @param throwable Non-null {@link Throwable}
      */
     public void processException(Throwable throwable) {
-        modules.forEach(module -> {
+        moduleRegistry.snapshot().forEach(module -> {
             try {
                 for (var stackTraceElement : throwable.getStackTrace()) {
                     for (String packageName : module.getModuleInfo().getExceptionHandlingPackages()) {
@@ -467,4 +1742,32 @@ public final class ModuleManager {
             }
         });
     }
+
+    /**
+     * Module file that has been prepared (bootstrapped and with created class loader) but not yet registered
+     *
+     * @param moduleFile    Path to the module file
+     * @param moduleInfo    Module info read from the module file
+     * @param classLoader   Module's class loader
+     * @param sigewineIndex Module's Sigewine index or null if the module does not have it
+     */
+    private record PreparedModuleFile(Path moduleFile, ModuleInfo moduleInfo, ModuleClassLoader classLoader, SigewineIndex sigewineIndex) {
+
+    }
+
+    /**
+     * Module file whose module info was read and dependencies resolved, but without class loader yet
+     *
+     * @param moduleFile        Path to the module file
+     * @param moduleInfo        Module info read from the module file
+     * @param moduleInfoJson    Content of the module_info.json
+     * @param dependencies      Resolved dependency jars, without the module jar itself
+     * @param packageNames      Packages of the module jar and its dependencies if known from module startup cache, null otherwise
+     * @param sigewineIndexJson Content of the sigewine_index.json or null if the module does not have it
+     * @param sigewineIndex     Module's Sigewine index or null if the module does not have it or it is invalid
+     */
+    private record ResolvedModuleFile(Path moduleFile, ModuleInfo moduleInfo, String moduleInfoJson, List<Path> dependencies, Set<String> packageNames,
+                                      String sigewineIndexJson, SigewineIndex sigewineIndex) {
+
+    }
 }
@@ -0,0 +1,124 @@
+package enterprises.iwakura.modularbot.managers;
+
+import enterprises.iwakura.modularbot.base.Module;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of loaded {@link Module}s. Lookups by name are case-insensitive and lock-free, iteration is done over an
+ * immutable copy-on-write snapshot. Only writes are serialized. A mutable synchronized list of the modules is kept for
+ * backwards compatibility of {@link ModuleManager#getModules()}.
+ */
+public final class ModuleRegistry {
+
+    private final Map<String, Module> modulesByName = new ConcurrentHashMap<>();
+    private final List<Module> modules = Collections.synchronizedList(new LinkedList<>());
+    private volatile List<Module> snapshot = List.of();
+
+    /**
+     * Registers specified module
+     *
+     * @param module Non-null {@link Module}
+     *
+     * @return True if the module was registered, false if other module with the same name is already registered
+     */
+    public synchronized boolean register(@NonNull Module module) {
+        if (modulesByName.putIfAbsent(key(module.getModuleInfo().getName()), module) != null) {
+            return false;
+        }
+
+        List<Module> newSnapshot = new ArrayList<>(snapshot.size() + 1);
+        newSnapshot.addAll(snapshot);
+        newSnapshot.add(module);
+        snapshot = List.copyOf(newSnapshot);
+        modules.add(module);
+        return true;
+    }
+
+    /**
+     * Unregisters specified module
+     *
+     * @param module Non-null {@link Module}
+     *
+     * @return True if the module was unregistered, false if it was not registered
+     */
+    public synchronized boolean unregister(@NonNull Module module) {
+        if (!modulesByName.remove(key(module.getModuleInfo().getName()), module)) {
+            return false;
+        }
+
+        snapshot = snapshot.stream().filter(registeredModule -> registeredModule != module).toList();
+        modules.remove(module);
+        return true;
+    }
+
+    /**
+     * Unregisters all modules
+     */
+    public synchronized void clear() {
+        modulesByName.clear();
+        snapshot = List.of();
+        modules.clear();
+    }
+
+    /**
+     * Returns module by its name (case-insensitive)
+     *
+     * @param name Non-null name of the module
+     *
+     * @return Optional of {@link Module}
+     */
+    public Optional<Module> get(@NonNull String name) {
+        return Optional.ofNullable(modulesByName.get(key(name)));
+    }
+
+    /**
+     * Returns immutable snapshot of registered modules in order of their registration. The snapshot is not affected by
+     * later changes of the registry.
+     *
+     * @return Immutable list of modules
+     */
+    public List<Module> snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns mutable synchronized list of registered modules. Changes made directly to the list are not reflected by
+     * the registry.
+     *
+     * @return Synchronized list of modules
+     */
+    List<Module> list() {
+        return modules;
+    }
+
+    /**
+     * Returns number of registered modules
+     *
+     * @return Number of modules
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Returns whenever there are no registered modules
+     *
+     * @return True if empty
+     */
+    public boolean isEmpty() {
+        return snapshot.isEmpty();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,249 @@
+package enterprises.iwakura.modularbot.metrics;
+
+import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.managers.ModuleManager;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of event handling - latency histogram, count and errors of handled events per module and event class. The
+ * recorders do not allocate once they exist, so recording is cheap enough to wrap every listener invocation. The
+ * metrics cover an interval that starts at Modular Bot's start and can be reset with {@link #reset()}.
+ */
+@Bean
+@RequiredArgsConstructor
+public final class ModularBotEventMetrics {
+
+    public static final String CORE_MODULE_NAME = "core";
+
+    private final ModuleManager moduleManager;
+
+    private final Queue<LatencyRecorder> allRecorders = new ConcurrentLinkedQueue<>();
+    private volatile long intervalStartNanos = System.nanoTime();
+
+    /**
+     * Recorders of event class, by module name
+     */
+    private final ClassValue<Map<String, LatencyRecorder>> recorders = new ClassValue<>() {
+        @Override
+        protected Map<String, LatencyRecorder> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Module names of listener classes
+     */
+    private final ClassValue<String> listenerModuleNames = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            for (Module module : moduleManager.getModulesSnapshot()) {
+                if (module.getClass().getClassLoader() == type.getClassLoader()) {
+                    return module.getModuleInfo().getName();
+                }
+            }
+
+            return CORE_MODULE_NAME;
+        }
+    };
+
+    /**
+     * Returns name of the module that loaded specified listener's class
+     *
+     * @param listener Non-null listener
+     *
+     * @return Module name or {@value #CORE_MODULE_NAME} if the listener does not belong to any module
+     */
+    public String getModuleName(@NonNull Object listener) {
+        return listenerModuleNames.get(listener.getClass());
+    }
+
+    /**
+     * Records handled event
+     *
+     * @param moduleName    Non-null name of the module that handled the event
+     * @param eventClass    Non-null class of the event
+     * @param durationNanos How long the handling took
+     * @param failed        Whether the handling threw an exception
+     */
+    public void record(@NonNull String moduleName, @NonNull Class<?> eventClass, long durationNanos, boolean failed) {
+        Map<String, LatencyRecorder> eventRecorders = recorders.get(eventClass);
+        LatencyRecorder recorder = eventRecorders.get(moduleName);
+
+        if (recorder == null) {
+            recorder = eventRecorders.computeIfAbsent(moduleName, key -> {
+                LatencyRecorder newRecorder = new LatencyRecorder(moduleName, eventClass.getSimpleName());
+                allRecorders.add(newRecorder);
+                return newRecorder;
+            });
+        }
+
+        recorder.record(durationNanos, failed);
+    }
+
+    /**
+     * Resets all recorders and starts a new interval
+     */
+    public void reset() {
+        allRecorders.forEach(LatencyRecorder::reset);
+        intervalStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns duration of the current interval
+     *
+     * @return Duration in nanoseconds
+     */
+    public long getIntervalNanos() {
+        return System.nanoTime() - intervalStartNanos;
+    }
+
+    /**
+     * Returns snapshots of all recorders with at least one event in the current interval
+     *
+     * @return List of {@link Snapshot}, sorted by total handling time descending
+     */
+    public List<Snapshot> getSnapshots() {
+        long intervalNanos = getIntervalNanos();
+        List<Snapshot> snapshots = new ArrayList<>();
+
+        allRecorders.forEach(recorder -> {
+            Snapshot snapshot = recorder.snapshot(intervalNanos);
+
+            if (snapshot.count() != 0) {
+                snapshots.add(snapshot);
+            }
+        });
+
+        snapshots.sort(Comparator.comparingLong(Snapshot::totalNanos).reversed());
+        return snapshots;
+    }
+
+    /**
+     * Snapshot of a recorder
+     *
+     * @param moduleName      Name of the module
+     * @param eventName       Simple name of the event class
+     * @param count           Amount of handled events
+     * @param errors          Amount of handlings that threw an exception
+     * @param eventsPerSecond Handled events per second in the interval
+     * @param totalNanos      Total handling time
+     * @param p50Nanos        Upper bound of the median handling time
+     * @param p99Nanos        Upper bound of the 99th percentile of handling time
+     * @param maxNanos        Maximum handling time
+     */
+    public record Snapshot(String moduleName, String eventName, long count, long errors, double eventsPerSecond, long totalNanos,
+                           long p50Nanos, long p99Nanos, long maxNanos) {
+
+        /**
+         * Returns average handling time
+         *
+         * @return Average in nanoseconds
+         */
+        public long averageNanos() {
+            return count != 0 ? totalNanos / count : 0;
+        }
+    }
+
+    /**
+     * Latency histogram with power of two buckets - bucket i counts durations from 2^i to 2^(i+1) nanoseconds
+     */
+    private static final class LatencyRecorder {
+
+        private static final int BUCKET_COUNT = 64;
+
+        private final String moduleName;
+        private final String eventName;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private LatencyRecorder(String moduleName, String eventName) {
+            this.moduleName = moduleName;
+            this.eventName = eventName;
+        }
+
+        private void record(long durationNanos, boolean failed) {
+            long duration = Math.max(1, durationNanos);
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(duration));
+            count.increment();
+            totalNanos.add(duration);
+
+            if (failed) {
+                errors.increment();
+            }
+
+            long currentMax;
+
+            while (duration > (currentMax = maxNanos.get())) {
+                if (maxNanos.compareAndSet(currentMax, duration)) {
+                    break;
+                }
+            }
+        }
+
+        private void reset() {
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                buckets.set(index, 0);
+            }
+
+            count.reset();
+            errors.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+
+        private Snapshot snapshot(long intervalNanos) {
+            long[] bucketCounts = new long[BUCKET_COUNT];
+            long bucketTotal = 0;
+
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                bucketCounts[index] = buckets.get(index);
+                bucketTotal += bucketCounts[index];
+            }
+
+            long currentCount = count.sum();
+
+            return new Snapshot(
+                    moduleName,
+                    eventName,
+                    currentCount,
+                    errors.sum(),
+                    intervalNanos > 0 ? currentCount * 1_000_000_000.0 / intervalNanos : 0,
+                    totalNanos.sum(),
+                    percentile(bucketCounts, bucketTotal, 0.50),
+                    percentile(bucketCounts, bucketTotal, 0.99),
+                    maxNanos.get()
+            );
+        }
+
+        private static long percentile(long[] bucketCounts, long bucketTotal, double percentile) {
+            long threshold = (long) Math.ceil(bucketTotal * percentile);
+            long cumulative = 0;
+
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                cumulative += bucketCounts[index];
+
+                if (cumulative >= threshold && cumulative != 0) {
+                    return index >= 62 ? Long.MAX_VALUE : 1L << (index + 1);
+                }
+            }
+
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package enterprises.iwakura.modularbot.metrics;
+
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of Modular Bot's metrics. Metrics are gauges - named suppliers of a number that are evaluated only when the
+ * metrics are read (e.g., by the {@code modular metrics} console command or by a module exporting them).
+ */
+@Bean
+@Slf4j
+public final class ModularBotMetrics {
+
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Registers gauge with specified name, replacing any gauge with the same name
+     *
+     * @param name     Non-null name of the gauge, e.g., {@code classloaders.leaked}
+     * @param supplier Non-null supplier of the gauge's value
+     */
+    public void registerGauge(@NonNull String name, @NonNull Supplier<? extends Number> supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Unregisters gauge with specified name
+     *
+     * @param name Non-null name of the gauge
+     */
+    public void unregisterGauge(@NonNull String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Evaluates all registered gauges
+     *
+     * @return Sorted map of gauge names and their current values
+     */
+    public Map<String, Number> getValues() {
+        Map<String, Number> values = new TreeMap<>();
+
+        gauges.forEach((name, supplier) -> {
+            try {
+                values.put(name, supplier.get());
+            } catch (Exception exception) {
+                log.error("Failed to evaluate gauge {}!", name, exception);
+            }
+        });
+
+        return values;
+    }
+}
@@ -0,0 +1,225 @@
+package enterprises.iwakura.modularbot.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import enterprises.iwakura.modularbot.ModularBotConstants;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps timings of Modular Bot's startup phases and of modules' lifecycle steps (resolving, class loader creation,
+ * registration, onLoad, onEnable, onDisable, onUnload) in memory. Timings are measured with {@link System#nanoTime()}
+ * and their start is relative to the JVM start, so they can be compared across restarts and deploys.
+ */
+@Bean
+@Slf4j
+public final class ModularBotTimings {
+
+    public static final String CATEGORY_STARTUP = "startup";
+    public static final String CATEGORY_MODULE = "module";
+    public static final String CATEGORY_SHARD = "shard";
+
+    private static final int MAX_TIMINGS = 4096;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    /**
+     * {@link System#nanoTime()} value corresponding to the JVM start
+     */
+    private static final long JVM_START_NANOS = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+
+    /**
+     * Timings recorded without this bean (e.g., Amber bootstrap and Sigewine scan of Modular Bot), drained into the bean lazily
+     */
+    private static final Queue<Timing> EARLY_TIMINGS = new ConcurrentLinkedQueue<>();
+
+    private final Deque<Timing> timings = new ArrayDeque<>();
+    private volatile long startupMillis = -1;
+    private volatile Instant startupCompletedAt;
+
+    /**
+     * Records startup step that happens before the {@link ModularBotTimings} bean is available (e.g., during Sigewine
+     * injection). The step ends now.
+     *
+     * @param step       Non-null name of the step
+     * @param startNanos {@link System#nanoTime()} when the step started
+     */
+    public static void recordEarly(@NonNull String step, long startNanos) {
+        EARLY_TIMINGS.add(createTiming(CATEGORY_STARTUP, null, step, startNanos, System.nanoTime()));
+    }
+
+    /**
+     * Records step that ends now. This method is thread-safe.
+     *
+     * @param category   Non-null category of the step, e.g., {@link #CATEGORY_MODULE}
+     * @param subject    Nullable subject of the step, e.g., name of the module
+     * @param step       Non-null name of the step, e.g., {@code onEnable}
+     * @param startNanos {@link System#nanoTime()} when the step started
+     */
+    public void record(@NonNull String category, String subject, @NonNull String step, long startNanos) {
+        record(category, subject, step, startNanos, System.nanoTime());
+    }
+
+    /**
+     * Records step. This method is thread-safe.
+     *
+     * @param category   Non-null category of the step, e.g., {@link #CATEGORY_MODULE}
+     * @param subject    Nullable subject of the step, e.g., name of the module
+     * @param step       Non-null name of the step, e.g., {@code onEnable}
+     * @param startNanos {@link System#nanoTime()} when the step started
+     * @param endNanos   {@link System#nanoTime()} when the step ended
+     */
+    public void record(@NonNull String category, String subject, @NonNull String step, long startNanos, long endNanos) {
+        add(createTiming(category, subject, step, startNanos, endNanos));
+    }
+
+    /**
+     * Marks the startup as completed
+     *
+     * @param startupMillis Number of milliseconds the startup took
+     */
+    public void markStartupCompleted(long startupMillis) {
+        this.startupMillis = startupMillis;
+        this.startupCompletedAt = Instant.now();
+    }
+
+    /**
+     * Returns recorded timings, sorted by their start. Only the last {@value #MAX_TIMINGS} timings are kept.
+     *
+     * @return List of {@link Timing}
+     */
+    public List<Timing> getTimings() {
+        synchronized (timings) {
+            drainEarlyTimings();
+            List<Timing> sortedTimings = new ArrayList<>(timings);
+            sortedTimings.sort(Comparator.comparingLong(Timing::startMicros));
+            return sortedTimings;
+        }
+    }
+
+    /**
+     * Returns number of milliseconds the startup took
+     *
+     * @return Number of milliseconds or -1 if the startup has not completed yet
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
+
+    /**
+     * Serializes recorded timings into JSON
+     *
+     * @return JSON string
+     */
+    public String toJson() {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("version", ModularBotConstants.getVersion());
+        jsonObject.addProperty("jvmStartTime", Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()).toString());
+        jsonObject.addProperty("startupCompletedAt", startupCompletedAt != null ? startupCompletedAt.toString() : null);
+        jsonObject.addProperty("startupMillis", startupMillis);
+
+        JsonArray timingsArray = new JsonArray();
+
+        for (Timing timing : getTimings()) {
+            JsonObject timingObject = new JsonObject();
+            timingObject.addProperty("category", timing.category());
+            timingObject.addProperty("subject", timing.subject());
+            timingObject.addProperty("step", timing.step());
+            timingObject.addProperty("startMicros", timing.startMicros());
+            timingObject.addProperty("durationMicros", timing.durationMicros());
+            timingObject.addProperty("thread", timing.thread());
+            timingsArray.add(timingObject);
+        }
+
+        jsonObject.add("timings", timingsArray);
+        return GSON.toJson(jsonObject);
+    }
+
+    /**
+     * Writes recorded timings as JSON into specified file
+     *
+     * @param file Non-null {@link Path} to the file
+     */
+    public void dump(@NonNull Path file) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporaryFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(temporaryFile)) {
+                writer.write(toJson());
+            }
+
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Dumped {} timings into {}", getTimings().size(), file);
+        } catch (IOException exception) {
+            log.warn("Failed to dump timings into {}!", file, exception);
+        }
+    }
+
+    private void add(Timing timing) {
+        synchronized (timings) {
+            drainEarlyTimings();
+            addLast(timing);
+        }
+    }
+
+    private void drainEarlyTimings() {
+        Timing timing;
+
+        while ((timing = EARLY_TIMINGS.poll()) != null) {
+            addLast(timing);
+        }
+    }
+
+    private void addLast(Timing timing) {
+        if (timings.size() >= MAX_TIMINGS) {
+            timings.removeFirst();
+        }
+
+        timings.addLast(timing);
+    }
+
+    private static Timing createTiming(String category, String subject, String step, long startNanos, long endNanos) {
+        return new Timing(
+                category,
+                subject,
+                step,
+                TimeUnit.NANOSECONDS.toMicros(startNanos - JVM_START_NANOS),
+                TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos),
+                Thread.currentThread().getName()
+        );
+    }
+
+    /**
+     * Timing of a single step
+     *
+     * @param category       Category of the step
+     * @param subject        Subject of the step (e.g., module's name) or null
+     * @param step           Name of the step
+     * @param startMicros    Start of the step, in microseconds since JVM start
+     * @param durationMicros Duration of the step in microseconds
+     * @param thread         Name of the thread that finished the step
+     */
+    public record Timing(String category, String subject, String step, long startMicros, long durationMicros, String thread) {
+
+    }
+}
@@ -0,0 +1,241 @@
+package enterprises.iwakura.modularbot.objects;
+
+import lombok.NonNull;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Dependency graph of modules built from {@link ModuleInfo#getDepend()}, {@link ModuleInfo#getSoftDepend()} and
+ * {@link ModuleInfo#getLoadBefore()}. Nodes are resolved into topological layers; nodes within one layer do not depend
+ * on each other.
+ *
+ * @param <T> Type of the node (e.g., {@link enterprises.iwakura.modularbot.base.Module})
+ */
+public final class ModuleDependencyGraph<T> {
+
+    private final Map<String, T> nodes = new LinkedHashMap<>();
+    private final Map<String, Set<String>> edges = new HashMap<>();
+    private final Map<String, Set<String>> hardEdges = new HashMap<>();
+    private final Map<String, List<String>> missingDependencies = new HashMap<>();
+    private final List<List<T>> layers = new ArrayList<>();
+    private final List<T> unresolvable = new ArrayList<>();
+    private final List<List<String>> cycles = new ArrayList<>();
+
+    private ModuleDependencyGraph() {
+    }
+
+    /**
+     * Builds the dependency graph for specified nodes
+     *
+     * @param nodes        Non-null collection of nodes
+     * @param infoFunction Non-null function returning {@link ModuleInfo} of a node
+     * @param <T>          Type of the node
+     *
+     * @return Non-null {@link ModuleDependencyGraph}
+     *
+     * @throws IllegalArgumentException If multiple nodes have the same module name (case-insensitive)
+     */
+    public static <T> ModuleDependencyGraph<T> of(@NonNull Collection<T> nodes, @NonNull Function<T, ModuleInfo> infoFunction) {
+        ModuleDependencyGraph<T> graph = new ModuleDependencyGraph<>();
+        Map<String, ModuleInfo> infos = new HashMap<>();
+
+        for (T node : nodes) {
+            ModuleInfo moduleInfo = infoFunction.apply(node);
+            String key = key(moduleInfo.getName());
+            if (graph.nodes.putIfAbsent(key, node) != null) {
+                throw new IllegalArgumentException("Multiple modules have the same name " + moduleInfo.getName());
+            }
+
+            infos.put(key, moduleInfo);
+            graph.edges.put(key, new LinkedHashSet<>());
+            graph.hardEdges.put(key, new LinkedHashSet<>());
+        }
+
+        infos.forEach((key, moduleInfo) -> {
+            for (String depend : moduleInfo.getDepend()) {
+                if (graph.nodes.containsKey(key(depend))) {
+                    graph.edges.get(key).add(key(depend));
+                    graph.hardEdges.get(key).add(key(depend));
+                } else {
+                    graph.missingDependencies.computeIfAbsent(key, k -> new ArrayList<>()).add(depend);
+                }
+            }
+
+            for (String softDepend : moduleInfo.getSoftDepend()) {
+                if (graph.nodes.containsKey(key(softDepend))) {
+                    graph.edges.get(key).add(key(softDepend));
+                }
+            }
+
+            // Load before -> the other module depends on this one
+            for (String loadBefore : moduleInfo.getLoadBefore()) {
+                if (graph.nodes.containsKey(key(loadBefore))) {
+                    graph.edges.get(key(loadBefore)).add(key);
+                }
+            }
+        });
+
+        graph.resolve();
+        return graph;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Resolves topological layers using Kahn's algorithm. Nodes left over are part of (or depend on) a cycle.
+     */
+    private void resolve() {
+        Map<String, Integer> remainingDependencies = new LinkedHashMap<>();
+        edges.forEach((key, dependencies) -> remainingDependencies.put(key, dependencies.size()));
+
+        Set<String> resolved = new HashSet<>();
+        // Keep the insertion order of nodes within each layer
+        List<String> keys = new ArrayList<>(nodes.keySet());
+
+        while (true) {
+            List<String> layerKeys = keys.stream()
+                    .filter(key -> !resolved.contains(key) && remainingDependencies.get(key) == 0)
+                    .toList();
+
+            if (layerKeys.isEmpty()) {
+                break;
+            }
+
+            resolved.addAll(layerKeys);
+            layers.add(layerKeys.stream().map(nodes::get).toList());
+
+            edges.forEach((key, dependencies) -> {
+                for (String layerKey : layerKeys) {
+                    if (dependencies.contains(layerKey)) {
+                        remainingDependencies.merge(key, -1, Integer::sum);
+                    }
+                }
+            });
+        }
+
+        keys.stream().filter(key -> !resolved.contains(key)).map(nodes::get).forEach(unresolvable::add);
+        findCycles(resolved);
+    }
+
+    /**
+     * Finds strongly connected components among unresolved nodes using Tarjan's algorithm
+     *
+     * @param resolved Keys of resolved nodes
+     */
+    private void findCycles(Set<String> resolved) {
+        Map<String, Integer> indexes = new HashMap<>();
+        Map<String, Integer> lowLinks = new HashMap<>();
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        int[] index = {0};
+
+        for (String key : nodes.keySet()) {
+            if (!resolved.contains(key) && !indexes.containsKey(key)) {
+                strongConnect(key, resolved, indexes, lowLinks, stack, onStack, index);
+            }
+        }
+    }
+
+    private void strongConnect(String key, Set<String> resolved, Map<String, Integer> indexes, Map<String, Integer> lowLinks,
+                               Deque<String> stack, Set<String> onStack, int[] index) {
+        indexes.put(key, index[0]);
+        lowLinks.put(key, index[0]);
+        index[0]++;
+        stack.push(key);
+        onStack.add(key);
+
+        for (String dependency : edges.get(key)) {
+            if (resolved.contains(dependency)) {
+                continue;
+            }
+
+            if (!indexes.containsKey(dependency)) {
+                strongConnect(dependency, resolved, indexes, lowLinks, stack, onStack, index);
+                lowLinks.put(key, Math.min(lowLinks.get(key), lowLinks.get(dependency)));
+            } else if (onStack.contains(dependency)) {
+                lowLinks.put(key, Math.min(lowLinks.get(key), indexes.get(dependency)));
+            }
+        }
+
+        if (lowLinks.get(key).equals(indexes.get(key))) {
+            List<String> component = new ArrayList<>();
+            String member;
+
+            do {
+                member = stack.pop();
+                onStack.remove(member);
+                component.add(member);
+            } while (!member.equals(key));
+
+            if (component.size() > 1 || edges.get(key).contains(key)) {
+                Collections.reverse(component);
+                cycles.add(component);
+            }
+        }
+    }
+
+    /**
+     * Returns topological layers. Nodes in the same layer do not depend on each other and nodes in a layer depend only
+     * on nodes in previous layers.
+     *
+     * @return Unmodifiable list of layers
+     */
+    public List<List<T>> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    /**
+     * Returns all nodes in topological order, followed by nodes that could not be resolved
+     *
+     * @return List of nodes
+     */
+    public List<T> getOrder() {
+        List<T> order = new ArrayList<>();
+        layers.forEach(order::addAll);
+        order.addAll(unresolvable);
+        return order;
+    }
+
+    /**
+     * Returns nodes that are part of a cycle or (transitively) depend on a cycle
+     *
+     * @return Unmodifiable list of nodes
+     */
+    public List<T> getUnresolvable() {
+        return Collections.unmodifiableList(unresolvable);
+    }
+
+    /**
+     * Returns found dependency cycles as lists of lower-cased module names
+     *
+     * @return Unmodifiable list of cycles
+     */
+    public List<List<String>> getCycles() {
+        return Collections.unmodifiableList(cycles);
+    }
+
+    /**
+     * Returns names of hard dependencies ({@link ModuleInfo#getDepend()}) of specified module that are not in the graph
+     *
+     * @param name Non-null module name
+     *
+     * @return List of missing dependency names, empty if there are none
+     */
+    public List<String> getMissingDependencies(@NonNull String name) {
+        return missingDependencies.getOrDefault(key(name), List.of());
+    }
+
+    /**
+     * Returns nodes that specified module hard-depends on
+     *
+     * @param name Non-null module name
+     *
+     * @return List of nodes
+     */
+    public List<T> getHardDependencies(@NonNull String name) {
+        return hardEdges.getOrDefault(key(name), Set.of()).stream().map(nodes::get).toList();
+    }
+}
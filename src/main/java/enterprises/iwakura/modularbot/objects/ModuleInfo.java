@@ -24,6 +24,12 @@ public final class ModuleInfo {
     private final String[] softDepend;
     private final String[] loadBefore;
     private final String[] exceptionHandlingPackages;
+    private final boolean lazy;
+    private final String[] triggerEvents;
+    private final String[] triggerCommands;
+    private final String[] cacheFlags;
+    private final String[] memberCachePolicies;
+    private final boolean chunking;
 
     /**
      * Loads {@link ModuleInfo} from {@link JsonObject}
@@ -55,7 +61,16 @@ public final class ModuleInfo {
         String[] loadBefore = jsonObject.has("loadBefore") ? jsonArrayToStringArray(jsonObject.getAsJsonArray("loadBefore")) : new String[0];
         String[] exceptionHandlingPackages = jsonObject.has("exceptionHandlingPackages") ? jsonArrayToStringArray(jsonObject.getAsJsonArray("exceptionHandlingPackages")) : new String[0];
 
-        return new ModuleInfo(name, mainClass, author, version, sigewineRequired, sigewinePackagePath, depend, softDepend, loadBefore, exceptionHandlingPackages);
+        boolean lazy = jsonObject.has("lazy") && jsonObject.get("lazy").getAsBoolean();
+        String[] triggerEvents = jsonObject.has("triggerEvents") ? jsonArrayToStringArray(jsonObject.getAsJsonArray("triggerEvents")) : new String[0];
+        String[] triggerCommands = jsonObject.has("triggerCommands") ? jsonArrayToStringArray(jsonObject.getAsJsonArray("triggerCommands")) : new String[0];
+
+        String[] cacheFlags = jsonObject.has("cacheFlags") ? jsonArrayToStringArray(jsonObject.getAsJsonArray("cacheFlags")) : new String[0];
+        String[] memberCachePolicies = jsonObject.has("memberCachePolicies") ? jsonArrayToStringArray(jsonObject.getAsJsonArray("memberCachePolicies")) : new String[0];
+        boolean chunking = jsonObject.has("chunking") && jsonObject.get("chunking").getAsBoolean();
+
+        return new ModuleInfo(name, mainClass, author, version, sigewineRequired, sigewinePackagePath, depend, softDepend, loadBefore, exceptionHandlingPackages,
+                lazy, triggerEvents, triggerCommands, cacheFlags, memberCachePolicies, chunking);
     }
 
     private static String[] jsonArrayToStringArray(JsonArray jsonArray) {
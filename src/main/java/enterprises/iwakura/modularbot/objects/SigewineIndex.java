@@ -0,0 +1,70 @@
+package enterprises.iwakura.modularbot.objects;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Precomputed index of packages with module's Sigewine beans, shipped in the module jar as sigewine_index.json. Generated
+ * at build time by {@link enterprises.iwakura.modularbot.sigewine.SigewineIndexProcessor}.
+ */
+@Data
+@RequiredArgsConstructor
+public final class SigewineIndex {
+
+    private final List<String> packages;
+
+    /**
+     * Loads {@link SigewineIndex} from {@link JsonObject}
+     *
+     * @param jsonObject Non-null {@link JsonObject}
+     *
+     * @return Non-null {@link SigewineIndex}
+     *
+     * @throws IOException If packages field is missing
+     */
+    public static SigewineIndex loadFromJsonObject(JsonObject jsonObject) throws IOException {
+        if (!jsonObject.has("packages")) {
+            throw new IOException("SigewineIndex is missing packages field!");
+        }
+
+        return new SigewineIndex(jsonArrayToStringList(jsonObject.getAsJsonArray("packages")));
+    }
+
+    /**
+     * Returns packages that have to be scanned by Sigewine to register all indexed beans. Packages whose parent package
+     * is also indexed are omitted, as Sigewine scans packages recursively.
+     *
+     * @return List of package names
+     */
+    public List<String> getScanPackages() {
+        List<String> scanPackages = new ArrayList<>();
+
+        // Sorted, so parent packages come before their subpackages
+        for (String packageName : new TreeSet<>(packages)) {
+            boolean coveredByParent = scanPackages.stream().anyMatch(scanPackage -> packageName.startsWith(scanPackage + "."));
+
+            if (!coveredByParent) {
+                scanPackages.add(packageName);
+            }
+        }
+
+        return scanPackages;
+    }
+
+    private static List<String> jsonArrayToStringList(JsonArray jsonArray) {
+        List<String> stringList = new ArrayList<>(jsonArray.size());
+
+        for (int i = 0; i < jsonArray.size(); i++) {
+            stringList.add(jsonArray.get(i).getAsString());
+        }
+
+        return stringList;
+    }
+}
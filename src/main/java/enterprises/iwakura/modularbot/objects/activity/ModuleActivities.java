@@ -5,18 +5,19 @@ import lombok.NonNull;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.Activity;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
 /**
- * Manages Module's Presence Activities
+ * Manages Module's Presence Activities<br>
+ * Activities are kept in an immutable snapshot that is replaced on every change, so the presence activity cycle reads
+ * them without locking.
  */
 public final class ModuleActivities {
 
-    private final List<ModuleActivity> activities = Collections.synchronizedList(new LinkedList<>());
+    private final Object lock = new Object();
+    private volatile List<ModuleActivity> activities = List.of();
     private final Module module;
 
     /**
@@ -35,8 +36,12 @@ public final class ModuleActivities {
      * @param onActivityRefresh Non-null {@link Function} with {@link JDA} (shard) as an argument and {@link Activity} as a return value
      */
     public void createActivity(@NonNull String name, @NonNull Function<JDA, Activity> onActivityRefresh) {
-        removeActivity(name);
-        activities.add(new ModuleActivity(module, name, onActivityRefresh));
+        synchronized (lock) {
+            List<ModuleActivity> newActivities = new ArrayList<>(activities.size() + 1);
+            activities.stream().filter(activity -> !activity.getName().equals(name)).forEach(newActivities::add);
+            newActivities.add(new ModuleActivity(module, name, onActivityRefresh));
+            activities = List.copyOf(newActivities);
+        }
     }
 
     /**
@@ -47,30 +52,26 @@ public final class ModuleActivities {
      * @return True if anything was removed from the internal list
      */
     public boolean removeActivity(@NonNull String name) {
-        synchronized (activities) {
-            Iterator<ModuleActivity> iterator = activities.listIterator();
-
-            boolean removedSomething = false;
-
-            while (iterator.hasNext()) {
-                ModuleActivity activity = iterator.next();
+        synchronized (lock) {
+            List<ModuleActivity> newActivities = activities.stream()
+                    .filter(activity -> !activity.getName().equals(name))
+                    .toList();
 
-                if (activity.getName().equals(name)) {
-                    iterator.remove();
-                    removedSomething = true;
-                }
+            if (newActivities.size() == activities.size()) {
+                return false;
             }
 
-            return removedSomething;
+            activities = newActivities;
+            return true;
         }
     }
 
     /**
-     * Returns unmodifiable list of {@link ModuleActivity}
+     * Returns unmodifiable snapshot of {@link ModuleActivity}. The snapshot does not change, later changes replace it.
      *
      * @return List of {@link ModuleActivity}
      */
     public List<ModuleActivity> getActivities() {
-        return Collections.unmodifiableList(activities);
+        return activities;
     }
 }
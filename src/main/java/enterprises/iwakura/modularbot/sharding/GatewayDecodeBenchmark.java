@@ -0,0 +1,168 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import lombok.NonNull;
+import net.dv8tion.jda.api.GatewayEncoding;
+import net.dv8tion.jda.api.utils.Compression;
+import net.dv8tion.jda.api.utils.data.DataObject;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Measures how fast recorded gateway payloads are decoded with each combination of gateway encoding and transport
+ * compression. Payloads are re-encoded into each encoding and compressed as a single zlib stream per shard, like the
+ * gateway does with zlib-stream, so the benchmark covers the same work JDA does when it receives them.
+ */
+public final class GatewayDecodeBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 1;
+
+    private GatewayDecodeBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark
+     *
+     * @param payloadsByShard Non-null recorded JSON payloads by shard ID
+     * @param iterations      How many times the payloads of each shard are decoded with each setting
+     *
+     * @return List of {@link Result}, one for each shard and setting
+     *
+     * @throws DataFormatException If compressed payloads could not be inflated
+     */
+    public static List<Result> run(@NonNull Map<Integer, List<byte[]>> payloadsByShard, int iterations) throws DataFormatException {
+        List<Result> results = new ArrayList<>();
+
+        for (var entry : payloadsByShard.entrySet()) {
+            List<byte[]> jsonPayloads = entry.getValue();
+
+            if (jsonPayloads.isEmpty()) {
+                continue;
+            }
+
+            List<byte[]> etfPayloads = jsonPayloads.stream().map(payload -> DataObject.fromJson(payload).toETF()).toList();
+
+            for (GatewayEncoding encoding : GatewayEncoding.values()) {
+                List<byte[]> payloads = encoding == GatewayEncoding.ETF ? etfPayloads : jsonPayloads;
+
+                for (Compression compression : List.of(Compression.NONE, Compression.ZLIB)) {
+                    List<byte[]> transportPayloads = compression == Compression.ZLIB ? compress(payloads) : payloads;
+                    long transportBytes = transportPayloads.stream().mapToLong(payload -> payload.length).sum();
+
+                    for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+                        decode(transportPayloads, encoding, compression);
+                    }
+
+                    long startNanos = System.nanoTime();
+
+                    for (int iteration = 0; iteration < Math.max(1, iterations); iteration++) {
+                        decode(transportPayloads, encoding, compression);
+                    }
+
+                    long nanos = System.nanoTime() - startNanos;
+                    results.add(new Result(entry.getKey(), encoding, compression, (long) payloads.size() * Math.max(1, iterations), transportBytes * Math.max(1, iterations), nanos));
+                }
+            }
+        }
+
+        return results;
+    }
+
+    private static void decode(List<byte[]> payloads, GatewayEncoding encoding, Compression compression) throws DataFormatException {
+        Inflater inflater = compression == Compression.ZLIB ? new Inflater() : null;
+        byte[] buffer = new byte[8192];
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try {
+            for (byte[] payload : payloads) {
+                byte[] decompressedPayload = payload;
+
+                if (inflater != null) {
+                    outputStream.reset();
+                    inflater.setInput(payload);
+
+                    int length;
+
+                    while ((length = inflater.inflate(buffer)) > 0) {
+                        outputStream.write(buffer, 0, length);
+                    }
+
+                    decompressedPayload = outputStream.toByteArray();
+                }
+
+                if (encoding == GatewayEncoding.ETF) {
+                    DataObject.fromETF(decompressedPayload);
+                } else {
+                    DataObject.fromJson(decompressedPayload);
+                }
+            }
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static List<byte[]> compress(List<byte[]> payloads) {
+        Deflater deflater = new Deflater();
+        byte[] buffer = new byte[8192];
+        List<byte[]> compressedPayloads = new ArrayList<>(payloads.size());
+
+        try {
+            for (byte[] payload : payloads) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                deflater.setInput(payload);
+
+                int length;
+
+                // Each payload ends with a sync flush, as zlib-stream messages do
+                do {
+                    length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    outputStream.write(buffer, 0, length);
+                } while (length == buffer.length);
+
+                compressedPayloads.add(outputStream.toByteArray());
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return compressedPayloads;
+    }
+
+    /**
+     * Result of the benchmark for a shard and setting
+     *
+     * @param shardId     Shard ID
+     * @param encoding    Gateway encoding
+     * @param compression Transport compression
+     * @param payloads    Amount of decoded payloads, including all iterations
+     * @param bytes       Amount of bytes received over the transport, including all iterations
+     * @param nanos       Total decode time
+     */
+    public record Result(int shardId, GatewayEncoding encoding, Compression compression, long payloads, long bytes, long nanos) {
+
+        /**
+         * Returns decoded payloads per second
+         *
+         * @return Payloads per second
+         */
+        public double payloadsPerSecond() {
+            return nanos != 0 ? payloads * 1_000_000_000.0 / nanos : 0;
+        }
+
+        /**
+         * Returns transport megabytes decoded per second
+         *
+         * @return Megabytes per second
+         */
+        public double megabytesPerSecond() {
+            return nanos != 0 ? bytes * 1_000_000_000.0 / nanos / (1024 * 1024) : 0;
+        }
+    }
+}
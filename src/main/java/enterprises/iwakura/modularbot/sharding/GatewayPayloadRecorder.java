@@ -0,0 +1,67 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import lombok.NonNull;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.RawGatewayEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the latest raw gateway payloads of each shard (as JSON) for the gateway decode benchmark. Requires raw events
+ * to be enabled on the shards, so it is used only when discord#shardManager#gateway#recordPayloads is enabled.
+ */
+public final class GatewayPayloadRecorder implements EventListener {
+
+    private final int payloadsPerShard;
+    private final Map<Integer, Deque<byte[]>> payloads = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new {@link GatewayPayloadRecorder}
+     *
+     * @param payloadsPerShard How many latest payloads of each shard are kept
+     */
+    public GatewayPayloadRecorder(int payloadsPerShard) {
+        this.payloadsPerShard = Math.max(1, payloadsPerShard);
+    }
+
+    @Override
+    public void onEvent(@NonNull GenericEvent event) {
+        if (!(event instanceof RawGatewayEvent rawGatewayEvent)) {
+            return;
+        }
+
+        byte[] payload = rawGatewayEvent.getPackage().toJson();
+        Deque<byte[]> shardPayloads = payloads.computeIfAbsent(event.getJDA().getShardInfo().getShardId(), shardId -> new ArrayDeque<>());
+
+        synchronized (shardPayloads) {
+            if (shardPayloads.size() >= payloadsPerShard) {
+                shardPayloads.pollFirst();
+            }
+
+            shardPayloads.addLast(payload);
+        }
+    }
+
+    /**
+     * Returns copy of recorded payloads
+     *
+     * @return Sorted map of shard IDs and their payloads in order they were received
+     */
+    public Map<Integer, List<byte[]>> getPayloads() {
+        Map<Integer, List<byte[]>> copy = new TreeMap<>();
+
+        payloads.forEach((shardId, shardPayloads) -> {
+            synchronized (shardPayloads) {
+                copy.put(shardId, List.copyOf(shardPayloads));
+            }
+        });
+
+        return copy;
+    }
+}
@@ -0,0 +1,191 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cache configuration of shards - cache flags, member cache policy and chunking filter from discord#shardManager#cache,
+ * merged with requirements of modules declared in their module_info.json ({@code cacheFlags},
+ * {@code memberCachePolicies} and {@code chunking}). The light shard manager starts with everything disabled, so only
+ * the cache required by the config and modules is enabled, including cache flags required by the member cache
+ * policies. Gateway intents required by the resulting cache are enabled as well, except for privileged intents, which
+ * must be approved in the developer portal and enabled in the config.
+ */
+@Slf4j
+public final class ShardCachePolicy {
+
+    /**
+     * Intents that must be approved in the developer portal, enabling them otherwise fails the login
+     */
+    private static final Set<GatewayIntent> PRIVILEGED_INTENTS = EnumSet.of(GatewayIntent.GUILD_MEMBERS, GatewayIntent.GUILD_PRESENCES,
+            GatewayIntent.MESSAGE_CONTENT);
+
+    private final Set<CacheFlag> enabledCacheFlags = EnumSet.noneOf(CacheFlag.class);
+    private final Set<CacheFlag> disabledCacheFlags = EnumSet.noneOf(CacheFlag.class);
+    private final Set<ModularBotConfig.Discord.ShardManager.Cache.MemberCachePolicyType> memberCachePolicies =
+            EnumSet.noneOf(ModularBotConfig.Discord.ShardManager.Cache.MemberCachePolicyType.class);
+    private final Set<GatewayIntent> requiredIntents = EnumSet.noneOf(GatewayIntent.class);
+    private boolean chunking;
+
+    /**
+     * Creates new {@link ShardCachePolicy}
+     *
+     * @param cacheSettings Non-null cache settings
+     * @param modules       Non-null loaded modules, including dormant lazy modules, as the cache cannot change after
+     *                      the shards are built
+     */
+    public ShardCachePolicy(@NonNull ModularBotConfig.Discord.ShardManager.Cache cacheSettings, @NonNull Collection<Module> modules) {
+        enabledCacheFlags.addAll(cacheSettings.getEnabledCacheFlags());
+        disabledCacheFlags.addAll(cacheSettings.getDisabledCacheFlags());
+        memberCachePolicies.addAll(cacheSettings.getMemberCachePolicies());
+        chunking = cacheSettings.getChunkingFilter() == ModularBotConfig.Discord.ShardManager.Cache.ChunkingFilterType.ALL;
+
+        if (cacheSettings.isMergeModuleRequirements()) {
+            modules.forEach(this::mergeModuleRequirements);
+        }
+
+        // Member cache policies rely on cache flags, e.g., VOICE caches only members with a cached voice state
+        memberCachePolicies.forEach(memberCachePolicy -> {
+            switch (memberCachePolicy) {
+                case VOICE, DEFAULT -> enabledCacheFlags.add(CacheFlag.VOICE_STATE);
+                case ONLINE -> enabledCacheFlags.add(CacheFlag.ONLINE_STATUS);
+                default -> {
+                    // No cache flag is required
+                }
+            }
+        });
+
+        // Cache required by modules wins over the config
+        disabledCacheFlags.removeAll(enabledCacheFlags);
+        enabledCacheFlags.forEach(cacheFlag -> {
+            if (cacheFlag.getRequiredIntent() != null) {
+                requiredIntents.add(cacheFlag.getRequiredIntent());
+            }
+        });
+        memberCachePolicies.forEach(memberCachePolicy -> {
+            switch (memberCachePolicy) {
+                case ALL, BOOSTER, PENDING -> requiredIntents.add(GatewayIntent.GUILD_MEMBERS);
+                case ONLINE -> requiredIntents.add(GatewayIntent.GUILD_PRESENCES);
+                case VOICE -> requiredIntents.add(GatewayIntent.GUILD_VOICE_STATES);
+                default -> {
+                    // No additional intent is required
+                }
+            }
+        });
+
+        if (chunking) {
+            requiredIntents.add(GatewayIntent.GUILD_MEMBERS);
+        }
+    }
+
+    /**
+     * Applies the cache configuration to specified builder
+     *
+     * @param shardManagerBuilder Non-null {@link DefaultShardManagerBuilder}
+     * @param cacheSettings       Non-null cache settings
+     * @param configuredIntents   Non-null gateway intents from the config
+     */
+    public void apply(@NonNull DefaultShardManagerBuilder shardManagerBuilder, @NonNull ModularBotConfig.Discord.ShardManager.Cache cacheSettings,
+                      @NonNull Collection<GatewayIntent> configuredIntents) {
+        if (!enabledCacheFlags.isEmpty()) {
+            log.info("Enabling cache flags: {}", enabledCacheFlags);
+            shardManagerBuilder.enableCache(enabledCacheFlags);
+        }
+
+        if (!disabledCacheFlags.isEmpty()) {
+            log.info("Disabling cache flags: {}", disabledCacheFlags);
+            shardManagerBuilder.disableCache(disabledCacheFlags);
+        }
+
+        if (!memberCachePolicies.isEmpty()) {
+            log.info("Using member cache policies: {}", memberCachePolicies);
+            shardManagerBuilder.setMemberCachePolicy(createMemberCachePolicy());
+        }
+
+        if (chunking) {
+            log.info("Chunking members of all guilds");
+            shardManagerBuilder.setChunkingFilter(ChunkingFilter.ALL);
+        } else if (cacheSettings.getChunkingFilter() == ModularBotConfig.Discord.ShardManager.Cache.ChunkingFilterType.NONE) {
+            shardManagerBuilder.setChunkingFilter(ChunkingFilter.NONE);
+        }
+
+        Set<GatewayIntent> missingIntents = EnumSet.noneOf(GatewayIntent.class);
+        missingIntents.addAll(requiredIntents);
+        missingIntents.removeAll(configuredIntents);
+
+        if (missingIntents.isEmpty()) {
+            return;
+        }
+
+        Set<GatewayIntent> missingPrivilegedIntents = EnumSet.noneOf(GatewayIntent.class);
+        missingPrivilegedIntents.addAll(missingIntents);
+        missingPrivilegedIntents.retainAll(PRIVILEGED_INTENTS);
+        missingIntents.removeAll(PRIVILEGED_INTENTS);
+
+        if (!missingPrivilegedIntents.isEmpty()) {
+            log.warn("Cache requires privileged gateway intents {} that are not enabled in discord#shardManager#gatewayIntents, it will not be populated!", missingPrivilegedIntents);
+        }
+
+        if (missingIntents.isEmpty()) {
+            return;
+        }
+
+        if (cacheSettings.isEnableRequiredIntents()) {
+            log.info("Enabling gateway intents required by the cache: {}", missingIntents);
+            shardManagerBuilder.enableIntents(missingIntents);
+        } else {
+            log.warn("Cache requires gateway intents {} that are not enabled, it will not be populated!", missingIntents);
+        }
+    }
+
+    private void mergeModuleRequirements(Module module) {
+        var moduleInfo = module.getModuleInfo();
+
+        for (String cacheFlag : moduleInfo.getCacheFlags()) {
+            try {
+                enabledCacheFlags.add(CacheFlag.valueOf(cacheFlag));
+            } catch (IllegalArgumentException exception) {
+                log.warn("Module {} requires unknown cache flag {}", moduleInfo.getName(), cacheFlag);
+            }
+        }
+
+        for (String memberCachePolicy : moduleInfo.getMemberCachePolicies()) {
+            try {
+                memberCachePolicies.add(ModularBotConfig.Discord.ShardManager.Cache.MemberCachePolicyType.valueOf(memberCachePolicy));
+            } catch (IllegalArgumentException exception) {
+                log.warn("Module {} requires unknown member cache policy {}", moduleInfo.getName(), memberCachePolicy);
+            }
+        }
+
+        chunking |= moduleInfo.isChunking();
+    }
+
+    private MemberCachePolicy createMemberCachePolicy() {
+        List<MemberCachePolicy> policies = memberCachePolicies.stream()
+                .map(memberCachePolicy -> switch (memberCachePolicy) {
+                    case NONE -> MemberCachePolicy.NONE;
+                    case ALL -> MemberCachePolicy.ALL;
+                    case OWNER -> MemberCachePolicy.OWNER;
+                    case ONLINE -> MemberCachePolicy.ONLINE;
+                    case VOICE -> MemberCachePolicy.VOICE;
+                    case BOOSTER -> MemberCachePolicy.BOOSTER;
+                    case PENDING -> MemberCachePolicy.PENDING;
+                    case DEFAULT -> MemberCachePolicy.DEFAULT;
+                })
+                .toList();
+
+        return MemberCachePolicy.any(policies.getFirst(), policies.subList(1, policies.size()).toArray(MemberCachePolicy[]::new));
+    }
+}
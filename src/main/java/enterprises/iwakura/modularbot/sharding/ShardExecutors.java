@@ -0,0 +1,84 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates executors of all shards from discord#shardManager#threading - event pool (runs event listeners), callback pool
+ * (runs RestAction callbacks), rate limit elastic pool (executes REST requests) and rate limit scheduler. Executors are
+ * shared by all shards and are not shut down by JDA, so stopping a single shard does not stop them.
+ */
+@Slf4j
+public final class ShardExecutors {
+
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    /**
+     * Applies executors to specified builder. Executors with {@link ModularBotConfig.Discord.ShardManager.Threading.ExecutorType#DEFAULT}
+     * type are left to JDA.
+     *
+     * @param shardManagerBuilder Non-null {@link DefaultShardManagerBuilder}
+     * @param threading           Non-null threading settings
+     */
+    public synchronized void apply(@NonNull DefaultShardManagerBuilder shardManagerBuilder, @NonNull ModularBotConfig.Discord.ShardManager.Threading threading) {
+        var eventPool = create("jda-event", threading.getEventPool(), threading.getEventPoolSize());
+
+        if (eventPool != null) {
+            shardManagerBuilder.setEventPool(eventPool, false);
+        }
+
+        var callbackPool = create("jda-callback", threading.getCallbackPool(), threading.getCallbackPoolSize());
+
+        if (callbackPool != null) {
+            shardManagerBuilder.setCallbackPool(callbackPool, false);
+        }
+
+        var rateLimitElastic = create("jda-rest", threading.getRateLimitElastic(), threading.getRateLimitElasticSize());
+
+        if (rateLimitElastic != null) {
+            shardManagerBuilder.setRateLimitElastic(rateLimitElastic, false);
+        }
+
+        // Scheduler cannot run on virtual threads, only its size is configurable
+        if (threading.getRateLimitSchedulerSize() > 0) {
+            ScheduledExecutorService rateLimitScheduler = Executors.newScheduledThreadPool(threading.getRateLimitSchedulerSize(), Thread.ofPlatform().name("jda-rate-limit-", 0).daemon().factory());
+            executors.add(rateLimitScheduler);
+            shardManagerBuilder.setRateLimitScheduler(rateLimitScheduler, false);
+            log.info("Using rate limit scheduler with {} platform threads", threading.getRateLimitSchedulerSize());
+        }
+    }
+
+    /**
+     * Shuts down all created executors. Already submitted tasks are still executed.
+     */
+    public synchronized void shutdown() {
+        executors.forEach(ExecutorService::shutdown);
+        executors.clear();
+    }
+
+    private ExecutorService create(String name, ModularBotConfig.Discord.ShardManager.Threading.ExecutorType type, int size) {
+        ExecutorService executor = switch (type) {
+            case DEFAULT -> null;
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+            case PLATFORM -> Executors.newFixedThreadPool(
+                    size > 0 ? size : Runtime.getRuntime().availableProcessors(),
+                    Thread.ofPlatform().name(name + "-", 0).daemon().factory()
+            );
+        };
+
+        if (executor != null) {
+            executors.add(executor);
+            log.info("Using {} executor for {}", type, name);
+        }
+
+        return executor;
+    }
+}
@@ -0,0 +1,94 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.utils.ConcurrentSessionController;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session controller that logs shards in by identify buckets (shard ID modulo identify concurrency). Each bucket has its
+ * own worker, so shards of different buckets identify in parallel, while shards of the same bucket identify one after
+ * another, as required by Discord. The concurrency is Discord's max_concurrency unless
+ * discord#shardManager#loginConcurrency overrides it. Progress of the login is reported to {@link ShardLoginProgress}.
+ */
+@Slf4j
+public final class ShardLoginController extends ConcurrentSessionController {
+
+    private final int configuredConcurrency;
+    private final ShardLoginProgress shardLoginProgress;
+    private final Map<SessionConnectNode, TrackedSessionConnectNode> trackedNodes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates new {@link ShardLoginController}
+     *
+     * @param configuredConcurrency Identify concurrency, zero or less to use Discord's max_concurrency
+     * @param shardLoginProgress    Non-null {@link ShardLoginProgress}
+     */
+    public ShardLoginController(int configuredConcurrency, @NonNull ShardLoginProgress shardLoginProgress) {
+        this.configuredConcurrency = configuredConcurrency;
+        this.shardLoginProgress = shardLoginProgress;
+    }
+
+    @Override
+    public void setConcurrency(int level) {
+        int concurrency = configuredConcurrency > 0 ? configuredConcurrency : level;
+
+        if (concurrency != level) {
+            log.info("Using identify concurrency {} instead of Discord's max concurrency {}", concurrency, level);
+        }
+
+        super.setConcurrency(concurrency);
+        shardLoginProgress.setConcurrency(concurrency);
+    }
+
+    @Override
+    public void appendSession(@NonNull SessionConnectNode node) {
+        shardLoginProgress.onQueued(node.getShardInfo().getShardId());
+        super.appendSession(trackedNodes.computeIfAbsent(node, TrackedSessionConnectNode::new));
+    }
+
+    @Override
+    public void removeSession(@NonNull SessionConnectNode node) {
+        TrackedSessionConnectNode trackedNode = trackedNodes.remove(node);
+        super.removeSession(trackedNode != null ? trackedNode : node);
+    }
+
+    /**
+     * Reports when the shard starts identifying
+     */
+    private final class TrackedSessionConnectNode implements SessionConnectNode {
+
+        private final SessionConnectNode node;
+
+        private TrackedSessionConnectNode(SessionConnectNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean isReconnect() {
+            return node.isReconnect();
+        }
+
+        @NonNull
+        @Override
+        public JDA getJDA() {
+            return node.getJDA();
+        }
+
+        @NonNull
+        @Override
+        public JDA.ShardInfo getShardInfo() {
+            return node.getShardInfo();
+        }
+
+        @Override
+        public void run(boolean isLast) throws InterruptedException {
+            trackedNodes.remove(node, this);
+            shardLoginProgress.onIdentifying(node.getShardInfo().getShardId());
+            node.run(isLast);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks login of local shards - which shards are queued, identifying and connected. Its readiness future completes
+ * when all local shards are {@link JDA.Status#CONNECTED} for the first time. Shards that are shut down stop being
+ * local shards, shards that are queued for login later become local shards.
+ */
+@Slf4j
+public final class ShardLoginProgress implements EventListener {
+
+    private final Map<Integer, ShardLoginState> states = new ConcurrentHashMap<>();
+    private final CompletableFuture<Duration> readiness = new CompletableFuture<>();
+
+    private final Set<Integer> localShardIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean expecting;
+    private volatile long startNanos = System.nanoTime();
+    private volatile @Getter @Setter int concurrency = 1;
+
+    /**
+     * Marks the start of the login
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Sets IDs of local shards whose connection completes the readiness future
+     *
+     * @param shardIds Non-null shard IDs
+     */
+    public void expect(@NonNull Collection<Integer> shardIds) {
+        localShardIds.clear();
+        localShardIds.addAll(shardIds);
+        expecting = true;
+        shardIds.forEach(shardId -> states.putIfAbsent(shardId, ShardLoginState.QUEUED));
+        checkReadiness();
+    }
+
+    /**
+     * Returns future which completes with the time it took to connect all local shards
+     *
+     * @return {@link CompletableFuture} of {@link Duration}
+     */
+    public CompletableFuture<Duration> getReadiness() {
+        return readiness;
+    }
+
+    /**
+     * Returns login states of local shards
+     *
+     * @return Map of shard IDs and their {@link ShardLoginState}
+     */
+    public Map<Integer, ShardLoginState> getStates() {
+        return Map.copyOf(states);
+    }
+
+    /**
+     * Returns amount of local shards
+     *
+     * @return Amount of local shards, zero before the login
+     */
+    public int getLocalShardCount() {
+        return localShardIds.size();
+    }
+
+    /**
+     * Returns amount of local shards in specified state
+     *
+     * @param state Non-null {@link ShardLoginState}
+     *
+     * @return Amount of shards
+     */
+    public long count(@NonNull ShardLoginState state) {
+        return states.values().stream().filter(shardState -> shardState == state).count();
+    }
+
+    /**
+     * Returns time elapsed since the start of the login, or the time it took to connect all local shards
+     *
+     * @return {@link Duration}
+     */
+    public Duration getElapsed() {
+        return readiness.getNow(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    void onQueued(int shardId) {
+        localShardIds.add(shardId);
+        states.put(shardId, ShardLoginState.QUEUED);
+    }
+
+    void onIdentifying(int shardId) {
+        states.put(shardId, ShardLoginState.IDENTIFYING);
+    }
+
+    @Override
+    public void onEvent(@NonNull GenericEvent event) {
+        if (!(event instanceof StatusChangeEvent statusChangeEvent)) {
+            return;
+        }
+
+        int shardId = statusChangeEvent.getJDA().getShardInfo().getShardId();
+
+        switch (statusChangeEvent.getNewStatus()) {
+            case CONNECTED -> {
+                states.put(shardId, ShardLoginState.CONNECTED);
+                checkReadiness();
+            }
+            case SHUTDOWN -> {
+                localShardIds.remove(shardId);
+                states.remove(shardId);
+                checkReadiness();
+            }
+            case IDENTIFYING_SESSION, AWAITING_LOGIN_CONFIRMATION, LOADING_SUBSYSTEMS -> states.put(shardId, ShardLoginState.IDENTIFYING);
+            default -> states.computeIfPresent(shardId, (id, state) -> state == ShardLoginState.CONNECTED ? ShardLoginState.RECONNECTING : state);
+        }
+    }
+
+    private void checkReadiness() {
+        if (readiness.isDone() || !expecting) {
+            return;
+        }
+
+        for (Integer shardId : localShardIds) {
+            if (states.get(shardId) != ShardLoginState.CONNECTED) {
+                return;
+            }
+        }
+
+        readiness.complete(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Login state of a shard
+     */
+    public enum ShardLoginState {
+        /**
+         * Waiting in the identify queue of its bucket
+         */
+        QUEUED,
+        /**
+         * Identifying or loading its cache
+         */
+        IDENTIFYING,
+        /**
+         * Connected
+         */
+        CONNECTED,
+        /**
+         * Was connected, is reconnecting
+         */
+        RECONNECTING
+    }
+}
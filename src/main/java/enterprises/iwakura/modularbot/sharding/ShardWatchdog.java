@@ -0,0 +1,277 @@
+package enterprises.iwakura.modularbot.sharding;
+
+import enterprises.iwakura.modularbot.config.ModularBotConfig;
+import enterprises.iwakura.modularbot.metrics.ModularBotMetrics;
+import enterprises.iwakura.sigewine.core.annotations.Bean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.sharding.ShardManager;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches health of local shards - their status, gateway ping and time since their last event (gateway ping event is
+ * received with every heartbeat, so a healthy shard never stays silent for long). A shard that was connected at least
+ * once and then exceeds one of the thresholds from discord#shardManager#watchdog is restarted using
+ * {@link ShardManager#restart(int)}. Restarts of the same shard are delayed by exponential backoff.
+ */
+@Bean
+@Slf4j
+@RequiredArgsConstructor
+public final class ShardWatchdog implements EventListener {
+
+    private static final int MAX_DECISIONS = 100;
+
+    private final ModularBotConfig modularBotConfig;
+    private final ModularBotMetrics modularBotMetrics;
+
+    private final Map<Integer, ShardHealth> healths = new ConcurrentHashMap<>();
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+    private final AtomicLong restarts = new AtomicLong();
+    private volatile int unhealthyShards;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Starts checking health of shards if discord#shardManager#watchdog#enabled is true
+     *
+     * @param shardManager Non-null {@link ShardManager}
+     */
+    public synchronized void start(@NonNull ShardManager shardManager) {
+        var watchdogSettings = modularBotConfig.getDiscord().getShardManager().getWatchdog();
+
+        if (!watchdogSettings.isEnabled()) {
+            log.info("Shard watchdog is disabled, skipping.");
+            return;
+        }
+
+        if (scheduler != null) {
+            log.warn("Shard watchdog is already running.");
+            return;
+        }
+
+        modularBotMetrics.registerGauge("shards.watchdog.restarts", restarts::get);
+        modularBotMetrics.registerGauge("shards.watchdog.unhealthy", () -> unhealthyShards);
+        modularBotMetrics.registerGauge("shards.gatewayPing.max", () -> shardManager.getShardCache().stream().mapToLong(JDA::getGatewayPing).max().orElse(0));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("shard-watchdog").daemon().factory());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                check(shardManager, watchdogSettings);
+            } catch (Exception exception) {
+                log.error("Failed to check health of shards!", exception);
+            }
+        }, watchdogSettings.getCheckIntervalMillis(), watchdogSettings.getCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checking health of shards
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Returns health of local shards
+     *
+     * @return Sorted map of shard IDs and their {@link HealthSnapshot}
+     */
+    public Map<Integer, HealthSnapshot> getHealths() {
+        long now = System.nanoTime();
+        Map<Integer, HealthSnapshot> snapshots = new TreeMap<>();
+
+        healths.forEach((shardId, health) -> snapshots.put(shardId, new HealthSnapshot(
+                health.status,
+                health.gatewayPingMillis,
+                TimeUnit.NANOSECONDS.toMillis(now - health.lastEventNanos),
+                health.restarts,
+                Math.max(0, TimeUnit.NANOSECONDS.toMillis(health.nextRestartNanos - now))
+        )));
+
+        return snapshots;
+    }
+
+    /**
+     * Returns the latest decisions of the watchdog
+     *
+     * @return List of {@link Decision}, the oldest first
+     */
+    public List<Decision> getDecisions() {
+        synchronized (decisions) {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    @Override
+    public void onEvent(@NonNull GenericEvent event) {
+        ShardHealth health = healths.computeIfAbsent(event.getJDA().getShardInfo().getShardId(), shardId -> new ShardHealth());
+        long now = System.nanoTime();
+        health.lastEventNanos = now;
+
+        if (event instanceof StatusChangeEvent statusChangeEvent) {
+            JDA.Status newStatus = statusChangeEvent.getNewStatus();
+            health.status = newStatus;
+
+            if (newStatus == JDA.Status.CONNECTED) {
+                health.everConnected = true;
+                health.disconnectedSinceNanos = 0;
+            } else if (health.disconnectedSinceNanos == 0) {
+                health.disconnectedSinceNanos = now;
+            }
+        }
+    }
+
+    private void check(ShardManager shardManager, ModularBotConfig.Discord.ShardManager.Watchdog watchdogSettings) {
+        long now = System.nanoTime();
+        int unhealthy = 0;
+
+        // Shards may be stopped, e.g. when they are assigned to another cluster node
+        healths.keySet().removeIf(shardId -> shardManager.getShardById(shardId) == null);
+
+        for (JDA shard : shardManager.getShardCache()) {
+            int shardId = shard.getShardInfo().getShardId();
+            ShardHealth health = healths.computeIfAbsent(shardId, key -> new ShardHealth());
+            health.gatewayPingMillis = shard.getGatewayPing();
+
+            // Shards that are still logging in for the first time are handled by the login
+            if (!health.everConnected) {
+                continue;
+            }
+
+            String reason = getUnhealthyReason(health, watchdogSettings, now);
+
+            if (reason == null) {
+                // Healthy long enough, the next restart does not have to wait for the backoff
+                if (health.backoffMillis != 0 && now - health.lastRestartNanos > TimeUnit.MILLISECONDS.toNanos(watchdogSettings.getMaxBackoffMillis())) {
+                    health.backoffMillis = 0;
+                }
+
+                continue;
+            }
+
+            unhealthy++;
+
+            if (now < health.nextRestartNanos) {
+                log.debug("Shard ID {} is unhealthy ({}), restart is delayed by backoff", shardId, reason);
+                continue;
+            }
+
+            health.backoffMillis = health.backoffMillis == 0
+                    ? watchdogSettings.getInitialBackoffMillis()
+                    : Math.min(health.backoffMillis * 2, watchdogSettings.getMaxBackoffMillis());
+            health.lastRestartNanos = now;
+            health.nextRestartNanos = now + TimeUnit.MILLISECONDS.toNanos(health.backoffMillis);
+            health.restarts++;
+            health.pingStrikes = 0;
+            health.lastEventNanos = now;
+            health.disconnectedSinceNanos = now;
+            restarts.incrementAndGet();
+
+            addDecision(new Decision(Instant.now(), shardId, reason, health.backoffMillis));
+            log.warn("Restarting shard ID {} - {} (next restart possible in {}ms)", shardId, reason, health.backoffMillis);
+            shardManager.restart(shardId);
+        }
+
+        unhealthyShards = unhealthy;
+    }
+
+    private String getUnhealthyReason(ShardHealth health, ModularBotConfig.Discord.ShardManager.Watchdog watchdogSettings, long now) {
+        if (health.disconnectedSinceNanos != 0) {
+            long disconnectedMillis = TimeUnit.NANOSECONDS.toMillis(now - health.disconnectedSinceNanos);
+
+            if (disconnectedMillis > watchdogSettings.getMaxDisconnectedMillis()) {
+                return "not connected for " + disconnectedMillis + "ms (status " + health.status + ")";
+            }
+
+            return null;
+        }
+
+        if (health.gatewayPingMillis > watchdogSettings.getMaxGatewayPingMillis()) {
+            if (++health.pingStrikes >= watchdogSettings.getGatewayPingStrikes()) {
+                return "gateway ping " + health.gatewayPingMillis + "ms in " + health.pingStrikes + " checks";
+            }
+        } else {
+            health.pingStrikes = 0;
+        }
+
+        long silenceMillis = TimeUnit.NANOSECONDS.toMillis(now - health.lastEventNanos);
+
+        if (silenceMillis > watchdogSettings.getMaxEventSilenceMillis()) {
+            return "no event for " + silenceMillis + "ms";
+        }
+
+        return null;
+    }
+
+    private void addDecision(Decision decision) {
+        synchronized (decisions) {
+            if (decisions.size() >= MAX_DECISIONS) {
+                decisions.pollFirst();
+            }
+
+            decisions.addLast(decision);
+        }
+    }
+
+    /**
+     * Health of a shard
+     *
+     * @param status             Last known status
+     * @param gatewayPingMillis  Gateway ping at the last check
+     * @param millisSinceEvent   Time since the last event
+     * @param restarts           How many times the watchdog restarted the shard
+     * @param millisUntilRestart Time until the shard can be restarted again
+     */
+    public record HealthSnapshot(JDA.Status status, long gatewayPingMillis, long millisSinceEvent, int restarts, long millisUntilRestart) {
+
+    }
+
+    /**
+     * Restart of a shard decided by the watchdog
+     *
+     * @param time          When the shard was restarted
+     * @param shardId       Shard ID
+     * @param reason        Why the shard was restarted
+     * @param backoffMillis Backoff until the next restart of the shard
+     */
+    public record Decision(Instant time, int shardId, String reason, long backoffMillis) {
+
+    }
+
+    /**
+     * Mutable health of a shard, written by event threads and the watchdog thread
+     */
+    private static final class ShardHealth {
+
+        private volatile JDA.Status status = JDA.Status.INITIALIZING;
+        private volatile long lastEventNanos = System.nanoTime();
+        private volatile long disconnectedSinceNanos;
+        private volatile boolean everConnected;
+        private volatile long gatewayPingMillis;
+
+        // Only accessed by the watchdog thread
+        private int pingStrikes;
+        private int restarts;
+        private long backoffMillis;
+        private long lastRestartNanos;
+        private long nextRestartNanos;
+    }
+}
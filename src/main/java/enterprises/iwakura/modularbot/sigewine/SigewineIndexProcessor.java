@@ -0,0 +1,89 @@
+package enterprises.iwakura.modularbot.sigewine;
+
+import enterprises.iwakura.modularbot.ModularBotConstants;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation processor that generates sigewine_index.json - list of packages with Sigewine beans (classes annotated with
+ * {@code @Bean} or declaring {@code @Bean} methods). When a module jar contains the index, Modular Bot scans only the
+ * indexed packages instead of the module's whole package tree. Sigewine registers beans only by scanning packages, so
+ * this speeds up loading only when the beans live in sub-packages of the main class's package - if a bean is in the
+ * main class's package, the whole tree is scanned anyway.<br>
+ * Usage in module's build.gradle: {@code annotationProcessor 'enterprises.iwakura:modular-discord-bot:<version>'}
+ */
+@SupportedAnnotationTypes(SigewineIndexProcessor.BEAN_ANNOTATION)
+public final class SigewineIndexProcessor extends AbstractProcessor {
+
+    public static final String BEAN_ANNOTATION = "enterprises.iwakura.sigewine.core.annotations.Bean";
+
+    private final Set<String> packages = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                // Classes annotated with @Bean and classes with @Bean methods
+                if (element.getKind().isClass()) {
+                    addBeanPackage((TypeElement) element);
+                } else if (element.getKind() == ElementKind.METHOD && element.getEnclosingElement().getKind().isClass()) {
+                    addBeanPackage((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        }
+
+        return false;
+    }
+
+    private void addBeanPackage(TypeElement typeElement) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(typeElement);
+        packages.add(packageElement.getQualifiedName().toString());
+    }
+
+    private void writeIndex() {
+        if (packages.isEmpty()) {
+            return;
+        }
+
+        try {
+            FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ModularBotConstants.FILE_NAME_SIGEWINE_INDEX);
+
+            try (Writer writer = fileObject.openWriter()) {
+                writer.write("{\n");
+                writer.write("  \"packages\": " + toJsonArray(packages) + "\n");
+                writer.write("}\n");
+            }
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + ModularBotConstants.FILE_NAME_SIGEWINE_INDEX + ": " + exception);
+        }
+    }
+
+    private static String toJsonArray(Set<String> values) {
+        // Package names do not contain characters that would need escaping
+        return values.stream().map(value -> "\"" + value + "\"").collect(Collectors.joining(", ", "[", "]"));
+    }
+}
@@ -0,0 +1,82 @@
+package enterprises.iwakura.modularbot.util;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class HashUtils {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private HashUtils() {
+    }
+
+    /**
+     * Computes SHA-256 hash of specified file
+     *
+     * @param file Non-null {@link Path} to the file
+     *
+     * @return Lower-case hex string of the hash
+     *
+     * @throws IOException If the file could not be read
+     */
+    public static String sha256(@NonNull Path file) throws IOException {
+        return hash(file, createSha256Digest());
+    }
+
+    /**
+     * Computes SHA-1 hash of specified file, e.g., to compare it with the checksum published by a Maven repository
+     *
+     * @param file Non-null {@link Path} to the file
+     *
+     * @return Lower-case hex string of the hash
+     *
+     * @throws IOException If the file could not be read
+     */
+    public static String sha1(@NonNull Path file) throws IOException {
+        try {
+            return hash(file, MessageDigest.getInstance("SHA-1"));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-1 is not supported by this JVM!", exception);
+        }
+    }
+
+    private static String hash(Path file, MessageDigest messageDigest) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    /**
+     * Computes SHA-256 hash of specified string's UTF-8 bytes
+     *
+     * @param content Non-null string
+     *
+     * @return Lower-case hex string of the hash
+     */
+    public static String sha256(@NonNull String content) {
+        return HexFormat.of().formatHex(createSha256Digest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest createSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM!", exception);
+        }
+    }
+}
@@ -5,8 +5,6 @@ import lombok.NonNull;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Enumeration;
-import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -25,21 +23,18 @@ public final class InputStreamUtils {
      * @return Nullable {@link InputStream}
      */
     public static InputStream openFileAsInputStream(@NonNull ZipFile zipFile, @NonNull String fileName) {
-        Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
-
-        while (zipEntries.hasMoreElements()) {
-            ZipEntry zipEntry = zipEntries.nextElement();
-
-            if (Objects.equals(zipEntry.getName(), fileName)) {
-                try {
-                    return zipFile.getInputStream(zipEntry);
-                } catch (Exception exception) {
-                    throw new RuntimeException("Could not open file " + fileName + " as input stream in zip file " + zipFile.getName() + "!");
-                }
-            }
+        // Lookup in the zip's central directory instead of iterating over all entries
+        ZipEntry zipEntry = zipFile.getEntry(fileName);
+
+        if (zipEntry == null) {
+            return null;
         }
 
-        return null;
+        try {
+            return zipFile.getInputStream(zipEntry);
+        } catch (Exception exception) {
+            throw new RuntimeException("Could not open file " + fileName + " as input stream in zip file " + zipFile.getName() + "!");
+        }
     }
 
     /**
@@ -0,0 +1,130 @@
+package enterprises.iwakura.modularbot.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Utilities for launching Modular Bot in a child JVM with its Amber dependencies on the class path. Uses only JDK
+ * classes, so it can be used before the dependencies are loaded.
+ */
+public final class JvmUtils {
+
+    private JvmUtils() {
+    }
+
+    /**
+     * Creates command that launches specified main class in a new JVM. The new JVM has the same JVM options as this
+     * one (e.g., -Xmx) and Modular Bot's jar with specified libraries on its class path.
+     *
+     * @param jvmOptionFilter Filter of this JVM's options that should be passed to the new JVM
+     * @param extraJvmOptions Additional JVM options
+     * @param libraries       Modular Bot's dependencies bootstrapped by Amber
+     * @param mainClass       Name of the main class
+     * @param args            Program arguments
+     *
+     * @return Command
+     *
+     * @throws URISyntaxException If the location of Modular Bot's jar could not be determined
+     */
+    public static List<String> createJavaCommand(Predicate<String> jvmOptionFilter, List<String> extraJvmOptions, List<Path> libraries,
+                                                 String mainClass, String[] args) throws URISyntaxException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(jvmOptionFilter)
+                .forEach(command::add);
+
+        command.addAll(extraJvmOptions);
+        command.add("-cp");
+        command.add(createClassPath(libraries));
+        command.add(mainClass);
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+
+    /**
+     * Runs specified command with inherited standard streams and waits for it to exit. Termination of this JVM is
+     * forwarded to the child process, so it can shut down gracefully.
+     *
+     * @param command Command
+     *
+     * @return Exit code of the process
+     *
+     * @throws IOException          If the process could not be started
+     * @throws InterruptedException If interrupted while waiting for the process
+     */
+    public static int runAndWait(List<String> command) throws IOException, InterruptedException {
+        Process process = start(command);
+
+        Thread shutdownHook = new Thread(() -> {
+            if (process.isAlive()) {
+                process.destroy();
+
+                try {
+                    process.waitFor();
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        int exitCode = process.waitFor();
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        return exitCode;
+    }
+
+    /**
+     * Starts specified command with inherited standard streams, without waiting for it
+     *
+     * @param command Command
+     *
+     * @return Started {@link Process}
+     *
+     * @throws IOException If the process could not be started
+     */
+    public static Process start(List<String> command) throws IOException {
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * Creates class path of Modular Bot's jar and its libraries. Libraries are sorted, so the class path is the same
+     * across starts regardless of the order in which Amber resolved them.
+     *
+     * @param libraries Modular Bot's dependencies
+     *
+     * @return Class path
+     *
+     * @throws URISyntaxException If the location of Modular Bot's jar could not be determined
+     */
+    public static String createClassPath(List<Path> libraries) throws URISyntaxException {
+        List<String> classPath = new ArrayList<>();
+        classPath.add(getModularBotJar().toString());
+        libraries.stream()
+                .map(library -> library.toAbsolutePath().normalize().toString())
+                .sorted()
+                .distinct()
+                .forEach(classPath::add);
+
+        return String.join(File.pathSeparator, classPath);
+    }
+
+    /**
+     * Returns path to Modular Bot's jar (or classes directory when not running from a jar)
+     *
+     * @return Absolute, normalized {@link Path}
+     *
+     * @throws URISyntaxException If the location could not be determined
+     */
+    public static Path getModularBotJar() throws URISyntaxException {
+        return Path.of(JvmUtils.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toAbsolutePath().normalize();
+    }
+}
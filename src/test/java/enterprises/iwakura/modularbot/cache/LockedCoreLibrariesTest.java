@@ -0,0 +1,92 @@
+package enterprises.iwakura.modularbot.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LockedCoreLibrariesTest {
+
+    private static Path createJar(Path directory, String name) throws IOException {
+        Path jarFile = directory.resolve(name);
+        Files.write(jarFile, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(jarFile, FileTime.fromMillis(1700000000000L));
+        return jarFile;
+    }
+
+    private static String lockedJar(Path jarFile) throws IOException {
+        // Same layout as Gson writes, backslashes of Windows paths are escaped
+        return """
+                    {
+                      "file": "%s",
+                      "size": %d,
+                      "lastModified": %d,
+                      "sha256": "0000"
+                    }""".formatted(jarFile.toString().replace("\\", "\\\\"), Files.size(jarFile), Files.getLastModifiedTime(jarFile).toMillis());
+    }
+
+    private static Path writeLockfile(Path directory, int version, String moduleJars, String coreJars) throws IOException {
+        Path lockfile = directory.resolve("dependencies.lock.json");
+        Files.writeString(lockfile, """
+                {
+                  "version": %d,
+                  "createdAt": "2026-01-01T00:00:00Z",
+                  "moduleResolutionSettings": "overrideModuleDependenciesLibraryDirectory=true,sharedLibraryStore=false",
+                  "modules": {
+                    "module.jar": [
+                %s
+                    ]
+                  },
+                  "core": [
+                %s
+                  ]
+                }
+                """.formatted(version, moduleJars, coreJars));
+        return lockfile;
+    }
+
+    @Test
+    public void readsLockedCoreJars(@TempDir Path directory) throws IOException {
+        Path moduleDependency = createJar(directory, "module-dependency-1.0.jar");
+        Path gson = createJar(directory, "gson-2.13.1.jar");
+        Path guava = createJar(directory, "guava-33.4.8-jre.jar");
+        Path lockfile = writeLockfile(directory, DependencyLockfile.VERSION, lockedJar(moduleDependency), lockedJar(gson) + ",\n" + lockedJar(guava));
+
+        assertEquals(Optional.of(List.of(gson, guava)), LockedCoreLibraries.read(lockfile));
+    }
+
+    @Test
+    public void ignoresLockfileWhenLockedJarChanged(@TempDir Path directory) throws IOException {
+        Path gson = createJar(directory, "gson-2.13.1.jar");
+        Path lockfile = writeLockfile(directory, DependencyLockfile.VERSION, "", lockedJar(gson));
+        Files.setLastModifiedTime(gson, FileTime.fromMillis(1800000000000L));
+
+        assertTrue(LockedCoreLibraries.read(lockfile).isEmpty());
+    }
+
+    @Test
+    public void ignoresLockfileWhenLockedJarIsMissing(@TempDir Path directory) throws IOException {
+        Path gson = createJar(directory, "gson-2.13.1.jar");
+        Path lockfile = writeLockfile(directory, DependencyLockfile.VERSION, "", lockedJar(gson));
+        Files.delete(gson);
+
+        assertTrue(LockedCoreLibraries.read(lockfile).isEmpty());
+    }
+
+    @Test
+    public void ignoresOutdatedLockfile(@TempDir Path directory) throws IOException {
+        Path gson = createJar(directory, "gson-2.13.1.jar");
+        Path lockfile = writeLockfile(directory, DependencyLockfile.VERSION - 1, "", lockedJar(gson));
+
+        assertTrue(LockedCoreLibraries.read(lockfile).isEmpty());
+        assertTrue(LockedCoreLibraries.read(directory.resolve("missing.lock.json")).isEmpty());
+    }
+}
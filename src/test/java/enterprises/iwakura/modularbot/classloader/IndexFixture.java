@@ -0,0 +1,8 @@
+package enterprises.iwakura.modularbot.classloader;
+
+/**
+ * Class packed into a module jar by {@link ModuleClassLoaderIndexTest}
+ */
+public class IndexFixture {
+
+}
@@ -0,0 +1,100 @@
+package enterprises.iwakura.modularbot.classloader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModuleClassLoaderIndexTest {
+
+    private static final String FIXTURE_CLASS_NAME = IndexFixture.class.getName();
+    private static final String FIXTURE_PACKAGE_NAME = IndexFixture.class.getPackageName();
+
+    @TempDir
+    Path temporaryDirectory;
+
+    private Path createJar(String name, boolean withFixture) throws IOException {
+        Path jarFile = temporaryDirectory.resolve(name);
+
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(jarFile))) {
+            if (withFixture) {
+                String entryName = FIXTURE_CLASS_NAME.replace('.', '/') + ".class";
+                jar.putNextEntry(new JarEntry(entryName));
+
+                try (InputStream classFile = IndexFixture.class.getClassLoader().getResourceAsStream(entryName)) {
+                    classFile.transferTo(jar);
+                }
+
+                jar.closeEntry();
+            }
+        }
+
+        return jarFile;
+    }
+
+    private ModuleClassLoader createClassLoader(ModuleClassLoaderIndex index, String name, boolean withFixture, Set<String> packageNames) throws IOException {
+        // Platform class loader as parent, so the fixture is not found on the test class path
+        return new ModuleClassLoader(List.of(createJar(name, withFixture)), ClassLoader.getPlatformClassLoader(), index, packageNames);
+    }
+
+    @Test
+    public void invalidatesMissingClassWhenProvidingModuleRegistersAndUnregisters() throws Exception {
+        ModuleClassLoaderIndex index = new ModuleClassLoaderIndex();
+        ModuleClassLoader requester = createClassLoader(index, "requester.jar", false, Set.of());
+        ModuleClassLoader samePackage = createClassLoader(index, "same-package.jar", false, Set.of(FIXTURE_PACKAGE_NAME));
+        index.register(requester);
+        index.register(samePackage);
+
+        assertThrows(ClassNotFoundException.class, () -> requester.loadClass(FIXTURE_CLASS_NAME));
+        assertTrue(index.isMissing(FIXTURE_CLASS_NAME));
+
+        ModuleClassLoader provider = createClassLoader(index, "provider.jar", true, Set.of(FIXTURE_PACKAGE_NAME));
+        index.register(provider);
+
+        assertFalse(index.isMissing(FIXTURE_CLASS_NAME));
+        assertSame(provider, requester.loadClass(FIXTURE_CLASS_NAME).getClassLoader());
+
+        index.unregister(provider);
+
+        assertThrows(ClassNotFoundException.class, () -> requester.loadClass(FIXTURE_CLASS_NAME));
+        assertTrue(index.isMissing(FIXTURE_CLASS_NAME));
+    }
+
+    @Test
+    public void doesNotCacheClassesOfPackagesNoModuleHas() throws Exception {
+        ModuleClassLoaderIndex index = new ModuleClassLoaderIndex();
+        ModuleClassLoader requester = createClassLoader(index, "requester.jar", false, Set.of());
+        index.register(requester);
+
+        assertThrows(ClassNotFoundException.class, () -> requester.loadClass(FIXTURE_CLASS_NAME));
+        assertFalse(index.isMissing(FIXTURE_CLASS_NAME));
+    }
+
+    @Test
+    public void boundsMissingClassNames() {
+        ModuleClassLoaderIndex index = new ModuleClassLoaderIndex();
+
+        for (int i = 0; i < ModuleClassLoaderIndex.MAX_MISSING_CLASS_NAMES; i++) {
+            index.markMissing("missing.Class" + i);
+        }
+
+        assertTrue(index.isMissing("missing.Class0"));
+
+        index.markMissing("missing.Overflow");
+
+        assertFalse(index.isMissing("missing.Class0"));
+        assertTrue(index.isMissing("missing.Overflow"));
+    }
+}
@@ -0,0 +1,81 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdentifyBucketsTest {
+
+    private static final long DELAY = 5000;
+
+    @Test
+    public void splitsShardsByMaxConcurrency() {
+        IdentifyBuckets<String> buckets = new IdentifyBuckets<>(16, DELAY);
+
+        assertEquals(0, buckets.getBucketId(0));
+        assertEquals(15, buckets.getBucketId(15));
+        assertEquals(0, buckets.getBucketId(16));
+        assertEquals(1, buckets.getBucketId(17));
+    }
+
+    @Test
+    public void treatsInvalidMaxConcurrencyAsOne() {
+        IdentifyBuckets<String> buckets = new IdentifyBuckets<>(0, DELAY);
+
+        assertEquals(0, buckets.getBucketId(0));
+        assertEquals(0, buckets.getBucketId(7));
+    }
+
+    @Test
+    public void grantsOneIdentifyPerDelay() {
+        IdentifyBuckets<String> buckets = new IdentifyBuckets<>(1, DELAY);
+        buckets.add("node-1", 0);
+        buckets.add("node-2", 1);
+
+        var first = buckets.grant(0, 1000, node -> true);
+        assertEquals("node-1", first.requester());
+        assertEquals(0, first.shardId());
+
+        assertNull(buckets.grant(0, 1000 + DELAY - 1, node -> true));
+        assertEquals(1, buckets.getDelayMillis(0, 1000 + DELAY - 1));
+        assertTrue(buckets.hasPending(0));
+
+        var second = buckets.grant(0, 1000 + DELAY, node -> true);
+        assertEquals("node-2", second.requester());
+        assertEquals(1, second.shardId());
+        assertFalse(buckets.hasPending(0));
+    }
+
+    @Test
+    public void grantsDifferentBucketsInParallel() {
+        IdentifyBuckets<String> buckets = new IdentifyBuckets<>(2, DELAY);
+        buckets.add("node-1", 0);
+        buckets.add("node-1", 1);
+
+        assertEquals(0, buckets.grant(0, 1000, node -> true).shardId());
+        assertEquals(1, buckets.grant(1, 1000, node -> true).shardId());
+    }
+
+    @Test
+    public void skipsRequestsOfInvalidRequesters() {
+        IdentifyBuckets<String> buckets = new IdentifyBuckets<>(1, DELAY);
+        buckets.add("left", 0);
+        buckets.add("node-1", 1);
+
+        var granted = buckets.grant(0, 1000, node -> !node.equals("left"));
+        assertEquals("node-1", granted.requester());
+        assertEquals(0, buckets.getDelayMillis(0, 1000 + DELAY));
+    }
+
+    @Test
+    public void doesNotDelayBucketWithoutValidRequests() {
+        IdentifyBuckets<String> buckets = new IdentifyBuckets<>(1, DELAY);
+        buckets.add("left", 0);
+
+        assertNull(buckets.grant(0, 1000, node -> false));
+        assertEquals(0, buckets.getDelayMillis(0, 1000));
+    }
+}
@@ -0,0 +1,47 @@
+package enterprises.iwakura.modularbot.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardBalancerTest {
+
+    @Test
+    public void splitsShardsEvenly() {
+        assertEquals(List.of(List.of(0, 1), List.of(2, 3), List.of(4, 5)), ShardBalancer.split(6, 3));
+    }
+
+    @Test
+    public void givesRemainingShardsToFirstNodes() {
+        assertEquals(List.of(List.of(0, 1, 2), List.of(3, 4, 5), List.of(6, 7)), ShardBalancer.split(8, 3));
+    }
+
+    @Test
+    public void leavesExtraNodesWithoutShards() {
+        assertEquals(List.of(List.of(0), List.of(1), List.of()), ShardBalancer.split(2, 3));
+    }
+
+    @Test
+    public void assignsAllShardsToSingleNode() {
+        assertEquals(List.of(List.of(0, 1, 2, 3)), ShardBalancer.split(4, 1));
+    }
+
+    @Test
+    public void rejectsZeroNodes() {
+        assertThrows(IllegalArgumentException.class, () -> ShardBalancer.split(4, 0));
+    }
+
+    @Test
+    public void withholdsShardsRunningOnOtherNodes() {
+        // Node joined, the first node has not yet acknowledged it stopped shards 2 and 3
+        List<Integer> target = ShardBalancer.split(4, 2).get(1);
+
+        assertEquals(List.of(), ShardBalancer.getAssignableShards(target, Set.of(0, 1, 2, 3)));
+        assertEquals(List.of(3), ShardBalancer.getAssignableShards(target, Set.of(0, 1, 2)));
+        assertEquals(List.of(2, 3), ShardBalancer.getAssignableShards(target, Set.of(0, 1)));
+    }
+}
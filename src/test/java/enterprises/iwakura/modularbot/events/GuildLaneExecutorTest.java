@@ -0,0 +1,243 @@
+package enterprises.iwakura.modularbot.events;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Role;
+import net.dv8tion.jda.api.entities.ScheduledEvent;
+import net.dv8tion.jda.api.entities.automod.AutoModExecution;
+import net.dv8tion.jda.api.entities.automod.AutoModRule;
+import net.dv8tion.jda.api.entities.emoji.RichCustomEmoji;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import net.dv8tion.jda.api.events.automod.AutoModExecutionEvent;
+import net.dv8tion.jda.api.events.automod.AutoModRuleCreateEvent;
+import net.dv8tion.jda.api.events.emoji.EmojiAddedEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.events.guild.scheduledevent.ScheduledEventCreateEvent;
+import net.dv8tion.jda.api.events.role.RoleCreateEvent;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GuildLaneExecutorTest {
+
+    private static final long GUILD_ID = 123456789L;
+
+    /**
+     * Creates an entity of specified interface that returns specified values by method name and defaults otherwise
+     */
+    private static <T> T entity(Class<T> type, Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (values.containsKey(method.getName())) {
+                return values.get(method.getName());
+            }
+
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> {
+                    Class<?> returnType = method.getReturnType();
+
+                    if (returnType == boolean.class) {
+                        yield false;
+                    } else if (returnType == long.class) {
+                        yield 0L;
+                    } else if (returnType == int.class) {
+                        yield 0;
+                    }
+
+                    yield null;
+                }
+            };
+        }));
+    }
+
+    private static void awaitIdle(GuildLaneExecutor guildLaneExecutor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        while (guildLaneExecutor.getLaneCount() != 0 || guildLaneExecutor.getQueuedTasks() != 0) {
+            assertTrue(System.nanoTime() < deadline, "Lanes did not become idle");
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void mapsEventsToTheirGuild() {
+        JDA jda = entity(JDA.class, Map.of());
+        Guild guild = entity(Guild.class, Map.of("getIdLong", GUILD_ID));
+        Map<String, Object> ofGuild = Map.of("getGuild", guild);
+
+        assertEquals(GUILD_ID, GuildLaneExecutor.getGuildId(new GuildReadyEvent(jda, 0, guild)));
+        assertEquals(GUILD_ID, GuildLaneExecutor.getGuildId(new RoleCreateEvent(jda, 0, entity(Role.class, ofGuild))));
+        assertEquals(GUILD_ID, GuildLaneExecutor.getGuildId(new EmojiAddedEvent(jda, 0, entity(RichCustomEmoji.class, ofGuild))));
+        assertEquals(GUILD_ID, GuildLaneExecutor.getGuildId(new ScheduledEventCreateEvent(jda, 0, entity(ScheduledEvent.class, ofGuild))));
+        assertEquals(GUILD_ID, GuildLaneExecutor.getGuildId(new AutoModRuleCreateEvent(jda, 0, entity(AutoModRule.class, ofGuild))));
+        assertEquals(GUILD_ID, GuildLaneExecutor.getGuildId(new AutoModExecutionEvent(jda, 0, entity(AutoModExecution.class, ofGuild))));
+    }
+
+    @Test
+    public void mapsEventsWithoutGuildToNoGuildLane() {
+        JDA jda = entity(JDA.class, Map.of());
+
+        assertEquals(GuildLaneExecutor.NO_GUILD_LANE, GuildLaneExecutor.getGuildId(new StatusChangeEvent(jda, JDA.Status.CONNECTED, JDA.Status.LOADING_SUBSYSTEMS)));
+    }
+
+    @Test
+    public void runsTasksOfSameLaneInOrder() throws InterruptedException {
+        GuildLaneExecutor guildLaneExecutor = new GuildLaneExecutor(Executors.newFixedThreadPool(4), 10000);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> expected = new ArrayList<>();
+
+        // More tasks than a single lane turn, so the lane is rescheduled several times
+        for (int index = 0; index < 1000; index++) {
+            int taskIndex = index;
+            expected.add(taskIndex);
+            guildLaneExecutor.execute(1, () -> executed.add(taskIndex));
+        }
+
+        awaitIdle(guildLaneExecutor);
+        guildLaneExecutor.shutdown();
+
+        assertEquals(expected, executed);
+    }
+
+    @Test
+    public void runsDifferentLanesInParallel() throws InterruptedException {
+        GuildLaneExecutor guildLaneExecutor = new GuildLaneExecutor(Executors.newFixedThreadPool(2), 10);
+        CountDownLatch secondLaneRan = new CountDownLatch(1);
+        AtomicBoolean firstLaneUnblocked = new AtomicBoolean();
+
+        guildLaneExecutor.execute(1, () -> {
+            try {
+                firstLaneUnblocked.set(secondLaneRan.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        guildLaneExecutor.execute(2, secondLaneRan::countDown);
+
+        awaitIdle(guildLaneExecutor);
+        guildLaneExecutor.shutdown();
+
+        assertTrue(firstLaneUnblocked.get());
+    }
+
+    @Test
+    public void keepsOrderWhileLanesAreRemovedAndRecreated() throws InterruptedException {
+        int laneCount = 8;
+        int tasksPerLane = 5000;
+        GuildLaneExecutor guildLaneExecutor = new GuildLaneExecutor(Executors.newFixedThreadPool(4), 64);
+        List<List<Integer>> executed = new ArrayList<>();
+        List<AtomicInteger> running = new ArrayList<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        ExecutorService producers = Executors.newFixedThreadPool(laneCount);
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            executed.add(Collections.synchronizedList(new ArrayList<>()));
+            running.add(new AtomicInteger());
+        }
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            int laneKey = lane;
+
+            producers.execute(() -> {
+                for (int index = 0; index < tasksPerLane; index++) {
+                    int taskIndex = index;
+
+                    try {
+                        guildLaneExecutor.execute(laneKey, () -> {
+                            if (running.get(laneKey).incrementAndGet() != 1) {
+                                overlapped.set(true);
+                            }
+
+                            executed.get(laneKey).add(taskIndex);
+                            running.get(laneKey).decrementAndGet();
+                        });
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    // Lets the lane drain, so it is removed while the next task is being added
+                    if (taskIndex % 7 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(30, TimeUnit.SECONDS));
+        awaitIdle(guildLaneExecutor);
+        guildLaneExecutor.shutdown();
+
+        assertFalse(overlapped.get(), "Tasks of the same lane ran concurrently");
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            List<Integer> laneTasks = executed.get(lane);
+            assertEquals(tasksPerLane, laneTasks.size(), "Lane " + lane + " lost or duplicated tasks");
+
+            for (int index = 0; index < tasksPerLane; index++) {
+                assertEquals(index, laneTasks.get(index), "Lane " + lane + " ran tasks out of order");
+            }
+        }
+    }
+
+    @Test
+    public void blocksWhileQueueIsFull() throws InterruptedException {
+        GuildLaneExecutor guildLaneExecutor = new GuildLaneExecutor(Executors.newFixedThreadPool(2), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch submitted = new CountDownLatch(1);
+
+        guildLaneExecutor.execute(1, () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread submitter = new Thread(() -> {
+            try {
+                guildLaneExecutor.execute(2, () -> {
+                });
+                submitted.countDown();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        submitter.start();
+
+        assertFalse(submitted.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(submitted.await(10, TimeUnit.SECONDS));
+
+        awaitIdle(guildLaneExecutor);
+        guildLaneExecutor.shutdown();
+    }
+
+    @Test
+    public void rejectsTasksAfterShutdown() {
+        GuildLaneExecutor guildLaneExecutor = new GuildLaneExecutor(Executors.newFixedThreadPool(1), 10);
+        guildLaneExecutor.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> guildLaneExecutor.execute(1, () -> {
+        }));
+    }
+}
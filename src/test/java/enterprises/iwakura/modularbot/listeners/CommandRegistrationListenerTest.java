@@ -0,0 +1,59 @@
+package enterprises.iwakura.modularbot.listeners;
+
+import enterprises.iwakura.modularbot.cache.CommandManifest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CommandRegistrationListenerTest {
+
+    private static CommandManifest.Scope storedScope(Map<String, String> commandHashes) {
+        CommandManifest.Scope scope = new CommandManifest.Scope();
+        commandHashes.forEach((key, hash) -> {
+            CommandManifest.Command command = new CommandManifest.Command();
+            command.setId("id-" + key);
+            command.setHash(hash);
+            scope.getCommands().put(key, command);
+        });
+        return scope;
+    }
+
+    @Test
+    public void upsertsAddedCommands() {
+        var diff = CommandRegistrationListener.diff(Map.of("SLASH:ping", "a", "SLASH:help", "b"), storedScope(Map.of("SLASH:ping", "a")));
+
+        assertEquals(List.of("SLASH:help"), diff.upserted());
+        assertEquals(List.of(), diff.deleted());
+        assertEquals(List.of("SLASH:ping"), diff.unchanged());
+    }
+
+    @Test
+    public void upsertsChangedCommands() {
+        var diff = CommandRegistrationListener.diff(Map.of("SLASH:ping", "changed"), storedScope(Map.of("SLASH:ping", "a")));
+
+        assertEquals(List.of("SLASH:ping"), diff.upserted());
+        assertEquals(List.of(), diff.deleted());
+        assertEquals(List.of(), diff.unchanged());
+    }
+
+    @Test
+    public void deletesRemovedCommands() {
+        var diff = CommandRegistrationListener.diff(Map.of("SLASH:ping", "a"), storedScope(Map.of("SLASH:ping", "a", "USER:Info", "b")));
+
+        assertEquals(List.of(), diff.upserted());
+        assertEquals(List.of("USER:Info"), diff.deleted());
+        assertEquals(List.of("SLASH:ping"), diff.unchanged());
+    }
+
+    @Test
+    public void distinguishesCommandTypesWithSameName() {
+        var diff = CommandRegistrationListener.diff(Map.of("SLASH:info", "a", "USER:info", "b"), storedScope(Map.of("MESSAGE:info", "a", "SLASH:info", "a")));
+
+        assertEquals(List.of("USER:info"), diff.upserted());
+        assertEquals(List.of("MESSAGE:info"), diff.deleted());
+        assertEquals(List.of("SLASH:info"), diff.unchanged());
+    }
+}
@@ -0,0 +1,77 @@
+package enterprises.iwakura.modularbot.managers;
+
+import enterprises.iwakura.modularbot.base.Module;
+import enterprises.iwakura.modularbot.objects.TestModuleInfos;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModuleRegistryTest {
+
+    private static Module module(String name) {
+        Module module = new Module() {
+            @Override
+            public void onEnable() {
+            }
+
+            @Override
+            public void onDisable() {
+            }
+        };
+        module.setModuleInfo(TestModuleInfos.of(name));
+        return module;
+    }
+
+    @Test
+    public void looksUpModulesCaseInsensitively() {
+        ModuleRegistry registry = new ModuleRegistry();
+        Module module = module("MyModule");
+        registry.register(module);
+
+        assertSame(module, registry.get("mymodule").orElseThrow());
+        assertSame(module, registry.get("MYMODULE").orElseThrow());
+        assertTrue(registry.get("other").isEmpty());
+    }
+
+    @Test
+    public void rejectsModulesWithSameNameIgnoringCase() {
+        ModuleRegistry registry = new ModuleRegistry();
+        Module module = module("MyModule");
+
+        assertTrue(registry.register(module));
+        assertFalse(registry.register(module("mymodule")));
+        assertEquals(List.of(module), registry.snapshot());
+        assertEquals(List.of(module), registry.list());
+    }
+
+    @Test
+    public void unregistersOnlySameModuleInstance() {
+        ModuleRegistry registry = new ModuleRegistry();
+        Module module = module("MyModule");
+        registry.register(module);
+
+        assertFalse(registry.unregister(module("mymodule")));
+        assertTrue(registry.unregister(module));
+        assertTrue(registry.isEmpty());
+        assertTrue(registry.list().isEmpty());
+        assertTrue(registry.get("MyModule").isEmpty());
+    }
+
+    @Test
+    public void keepsSnapshotUnchangedByLaterChanges() {
+        ModuleRegistry registry = new ModuleRegistry();
+        Module first = module("first");
+        registry.register(first);
+        List<Module> snapshot = registry.snapshot();
+
+        registry.register(module("second"));
+
+        assertEquals(List.of(first), snapshot);
+        assertEquals(2, registry.size());
+    }
+}
@@ -0,0 +1,85 @@
+package enterprises.iwakura.modularbot.objects;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModuleDependencyGraphTest {
+
+    private static ModuleInfo info(String name, String[] depend, String[] softDepend, String[] loadBefore) {
+        return TestModuleInfos.of(name, depend, softDepend, loadBefore);
+    }
+
+    private static ModuleInfo info(String name, String... depend) {
+        return info(name, depend, new String[0], new String[0]);
+    }
+
+    private static List<String> names(List<ModuleInfo> infos) {
+        return infos.stream().map(ModuleInfo::getName).toList();
+    }
+
+    @Test
+    public void ordersModulesIntoLayers() {
+        var graph = ModuleDependencyGraph.of(List.of(info("c", "b"), info("b", "a"), info("a"), info("d", "a")), Function.identity());
+
+        assertEquals(3, graph.getLayers().size());
+        assertEquals(List.of("a"), names(graph.getLayers().get(0)));
+        assertEquals(List.of("b", "d"), names(graph.getLayers().get(1)));
+        assertEquals(List.of("c"), names(graph.getLayers().get(2)));
+        assertTrue(graph.getUnresolvable().isEmpty());
+    }
+
+    @Test
+    public void respectsSoftDependAndLoadBefore() {
+        ModuleInfo a = info("a", new String[0], new String[] {"b"}, new String[0]);
+        ModuleInfo b = info("b");
+        ModuleInfo c = info("c", new String[0], new String[0], new String[] {"b"});
+
+        assertEquals(List.of("c", "b", "a"), names(ModuleDependencyGraph.of(List.of(a, b, c), Function.identity()).getOrder()));
+    }
+
+    @Test
+    public void matchesNamesCaseInsensitively() {
+        var graph = ModuleDependencyGraph.of(List.of(info("Dependent", "LIBRARY"), info("library")), Function.identity());
+
+        assertEquals(List.of("library", "Dependent"), names(graph.getOrder()));
+        assertEquals(List.of("library"), names(graph.getHardDependencies("dependent")));
+    }
+
+    @Test
+    public void rejectsDuplicateNames() {
+        assertThrows(IllegalArgumentException.class, () -> ModuleDependencyGraph.of(List.of(info("module"), info("Module")), Function.identity()));
+    }
+
+    @Test
+    public void reportsCyclesAndModulesDependingOnThem() {
+        var graph = ModuleDependencyGraph.of(List.of(info("a", "b"), info("b", "a"), info("c", "a"), info("d")), Function.identity());
+
+        assertEquals(List.of("d"), names(graph.getLayers().get(0)));
+        assertEquals(List.of("a", "b", "c"), names(graph.getUnresolvable()));
+        assertEquals(1, graph.getCycles().size());
+        assertEquals(2, graph.getCycles().get(0).size());
+        assertTrue(graph.getCycles().get(0).containsAll(List.of("a", "b")));
+    }
+
+    @Test
+    public void reportsSelfDependencyAsCycle() {
+        var graph = ModuleDependencyGraph.of(List.of(info("a", "a")), Function.identity());
+
+        assertEquals(List.of(List.of("a")), graph.getCycles());
+        assertEquals(List.of("a"), names(graph.getUnresolvable()));
+    }
+
+    @Test
+    public void reportsMissingHardDependencies() {
+        var graph = ModuleDependencyGraph.of(List.of(info("a", "missing")), Function.identity());
+
+        assertEquals(List.of("missing"), graph.getMissingDependencies("A"));
+        assertEquals(List.of("a"), names(graph.getOrder()));
+    }
+}
@@ -0,0 +1,62 @@
+package enterprises.iwakura.modularbot.objects;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Creates {@link ModuleInfo}s for tests from module_info.json content, so tests do not depend on its constructor
+ */
+public final class TestModuleInfos {
+
+    private TestModuleInfos() {
+    }
+
+    /**
+     * Creates module info with specified name and no dependencies
+     *
+     * @param name Module name
+     *
+     * @return {@link ModuleInfo}
+     */
+    public static ModuleInfo of(String name) {
+        return of(name, new String[0], new String[0], new String[0]);
+    }
+
+    /**
+     * Creates module info with specified name and dependencies
+     *
+     * @param name       Module name
+     * @param depend     Hard dependencies
+     * @param softDepend Soft dependencies
+     * @param loadBefore Modules this module loads before
+     *
+     * @return {@link ModuleInfo}
+     */
+    public static ModuleInfo of(String name, String[] depend, String[] softDepend, String[] loadBefore) {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("name", name);
+        jsonObject.addProperty("mainClass", name + ".Main");
+        jsonObject.add("depend", toJsonArray(depend));
+        jsonObject.add("softDepend", toJsonArray(softDepend));
+        jsonObject.add("loadBefore", toJsonArray(loadBefore));
+
+        try {
+            return ModuleInfo.loadFromJsonObject(jsonObject);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static JsonArray toJsonArray(String[] values) {
+        JsonArray jsonArray = new JsonArray();
+
+        for (String value : values) {
+            jsonArray.add(value);
+        }
+
+        return jsonArray;
+    }
+}